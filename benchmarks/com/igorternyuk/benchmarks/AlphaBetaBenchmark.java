@@ -0,0 +1,42 @@
+package com.igorternyuk.benchmarks;
+
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.player.ai.AlphaBeta;
+import com.igorternyuk.engine.player.ai.TranspositionTable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by igor on 17.12.18.
+ *
+ * A full fixed-depth search of every position, starting from an empty transposition table each time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class AlphaBetaBenchmark {
+    @Param({"1", "2", "3"})
+    public int depth;
+
+    private final TranspositionTable transpositionTable = new TranspositionTable();
+    private Board[] boards;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        this.transpositionTable.clear();
+        this.boards = BenchmarkPositions.createBoards();
+    }
+
+    @Benchmark
+    public void execute(final Blackhole blackhole) {
+        final AlphaBeta alphaBeta = new AlphaBeta(this.depth, this.transpositionTable);
+        for (final Board board : this.boards) {
+            blackhole.consume(alphaBeta.execute(board));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.igorternyuk.benchmarks;
+
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.perft.PerftPosition;
+
+/**
+ * Created by igor on 17.12.18.
+ *
+ * The fixed position set every benchmark runs on: the opening, two busy middlegames, a promotion race
+ * and a rook endgame.
+ */
+final class BenchmarkPositions {
+    private static final PerftPosition[] POSITIONS = {
+            PerftPosition.INITIAL,
+            PerftPosition.KIWIPETE,
+            PerftPosition.MIDDLEGAME,
+            PerftPosition.PROMOTIONS,
+            PerftPosition.ROOK_ENDGAME
+    };
+
+    private BenchmarkPositions() {
+    }
+
+    //Boards cache their players and legal moves, so a benchmark that measures move generation needs fresh ones
+    static Board[] createBoards() {
+        final Board[] boards = new Board[POSITIONS.length];
+        for (int i = 0; i < POSITIONS.length; ++i) {
+            boards[i] = POSITIONS[i].createBoard();
+        }
+        return boards;
+    }
+
+    static Board[] createBoardsWithEveryMoveType() {
+        final PerftPosition[] positions = PerftPosition.values();
+        final Board[] boards = new Board[positions.length];
+        for (int i = 0; i < positions.length; ++i) {
+            boards[i] = positions[i].createBoard();
+        }
+        return boards;
+    }
+}
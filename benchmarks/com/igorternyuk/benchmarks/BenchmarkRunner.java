@@ -0,0 +1,26 @@
+package com.igorternyuk.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Created by igor on 17.12.18.
+ *
+ * Runs the benchmarks whose names match the given regular expressions, all of them by default.
+ * The GC profiler is always on, so every result comes with gc.alloc.rate.norm, the bytes allocated per operation.
+ */
+public class BenchmarkRunner {
+    public static void main(final String[] args) throws RunnerException {
+        final OptionsBuilder options = new OptionsBuilder();
+        if (args.length == 0) {
+            options.include(BenchmarkRunner.class.getPackage().getName() + ".*Benchmark");
+        }
+        for (final String include : args) {
+            options.include(include);
+        }
+        options.addProfiler(GCProfiler.class);
+        new Runner(options.build()).run();
+    }
+}
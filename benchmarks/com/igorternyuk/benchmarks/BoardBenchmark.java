@@ -0,0 +1,49 @@
+package com.igorternyuk.benchmarks;
+
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.moves.Move;
+import com.igorternyuk.engine.player.Player;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by igor on 17.12.18.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    private final List<Player> players = new ArrayList<>();
+    private final List<Move> moves = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        for (final Board board : BenchmarkPositions.createBoards()) {
+            final Player player = board.getCurrentPlayer();
+            for (final Move move : player.getLegalMoves()) {
+                this.players.add(player);
+                this.moves.add(move);
+            }
+        }
+    }
+
+    @Benchmark
+    public Board createStandardBoard() {
+        return Board.createStandardBoard();
+    }
+
+    //Every pseudo-legal move of the position set, including the ones rejected for leaving the king in check
+    @Benchmark
+    public void makeMove(final Blackhole blackhole) {
+        for (int i = 0; i < this.moves.size(); ++i) {
+            blackhole.consume(this.players.get(i).makeMove(this.moves.get(i)));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.igorternyuk.benchmarks;
+
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.board.SearchBoard;
+import com.igorternyuk.engine.player.ai.BoardEvaluator;
+import com.igorternyuk.engine.player.ai.SinglePassBoardEvaluator;
+import com.igorternyuk.engine.player.ai.StandardBoardEvaluator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by igor on 17.12.18.
+ *
+ * The standard evaluator generates the legal moves of both players, which a board caches, so its boards are
+ * rebuilt before every invocation to measure the cost the search actually pays at a leaf. The single-pass
+ * evaluator the search uses reads the pieces only, so its positions are built once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluatorBenchmark {
+
+    @State(Scope.Thread)
+    public static class StandardEvaluatorState {
+        private final BoardEvaluator evaluator = new StandardBoardEvaluator();
+        private Board[] boards;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            this.boards = BenchmarkPositions.createBoards();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class SinglePassEvaluatorState {
+        private final SinglePassBoardEvaluator evaluator = new SinglePassBoardEvaluator();
+        private Board[] boards;
+        private SearchBoard[] searchBoards;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            this.boards = BenchmarkPositions.createBoards();
+            this.searchBoards = new SearchBoard[this.boards.length];
+            for (int i = 0; i < this.boards.length; ++i) {
+                this.searchBoards[i] = new SearchBoard(this.boards[i]);
+            }
+        }
+    }
+
+    @Benchmark
+    public int evaluate(final StandardEvaluatorState state) {
+        int score = 0;
+        for (final Board board : state.boards) {
+            score += state.evaluator.evaluate(board, 0);
+        }
+        return score;
+    }
+
+    @Benchmark
+    public int evaluateSinglePassBoard(final SinglePassEvaluatorState state) {
+        int score = 0;
+        for (final Board board : state.boards) {
+            score += state.evaluator.evaluate(board, 0);
+        }
+        return score;
+    }
+
+    //The evaluation at the leaves of the search, which reads the search board in place
+    @Benchmark
+    public int evaluateSinglePassSearchBoard(final SinglePassEvaluatorState state) {
+        int score = 0;
+        for (final SearchBoard searchBoard : state.searchBoards) {
+            score += state.evaluator.evaluate(searchBoard, 0);
+        }
+        return score;
+    }
+}
@@ -0,0 +1,44 @@
+package com.igorternyuk.benchmarks;
+
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.moves.Move;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by igor on 17.12.18.
+ *
+ * Move.execute for one move of the given class, taken from the first reference position that has such a move.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveExecuteBenchmark {
+    @Param({"RegularMove", "PieceCapturingMove", "PawnMove", "PawnJump", "PawnCapturingMove",
+            "PawnEnPassantCapture", "PawnPromotion", "KingsSideCastling", "QueensSideCastling"})
+    public String moveClass;
+
+    private Move move;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        for (final Board board : BenchmarkPositions.createBoardsWithEveryMoveType()) {
+            for (final Move candidate : board.getCurrentPlayer().getLegalMoves()) {
+                if (candidate.getClass().getSimpleName().equals(this.moveClass)) {
+                    this.move = candidate;
+                    return;
+                }
+            }
+        }
+        throw new IllegalStateException("No " + this.moveClass + " in the reference positions");
+    }
+
+    @Benchmark
+    public Board execute() {
+        return this.move.execute();
+    }
+}
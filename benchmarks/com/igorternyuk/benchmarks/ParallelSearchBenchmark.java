@@ -0,0 +1,92 @@
+package com.igorternyuk.benchmarks;
+
+import com.igorternyuk.engine.perft.PerftPosition;
+import com.igorternyuk.engine.player.ai.AlphaBeta;
+import com.igorternyuk.engine.player.ai.LazySmp;
+import com.igorternyuk.engine.player.ai.SearchLimits;
+import com.igorternyuk.engine.player.ai.TranspositionTable;
+import com.igorternyuk.engine.player.ai.YoungBrothersWait;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by igor on 18.12.18.
+ *
+ * Compares the time-to-depth of the parallel searches with the sequential AlphaBeta on a fixed position set.
+ * Every search starts with an empty transposition table. Wall-clock time to depth is what a parallel search
+ * trades its extra nodes for, so this runs from its own main method rather than under BenchmarkRunner.
+ * Options: -threads N (number of search threads), -depth D (fixed search depth), -hash MB (table size).
+ */
+public class ParallelSearchBenchmark {
+    private static final int DEFAULT_DEPTH = 4;
+    private static final PerftPosition[] POSITIONS = {
+            PerftPosition.INITIAL,
+            PerftPosition.KIWIPETE,
+            PerftPosition.MIDDLEGAME,
+            PerftPosition.ROOK_ENDGAME
+    };
+
+    public static void main(final String[] args) {
+        int numberOfThreads = Runtime.getRuntime().availableProcessors();
+        int depth = DEFAULT_DEPTH;
+        int hashSizeInMegabytes = TranspositionTable.DEFAULT_SIZE_IN_MEGABYTES;
+        for (int i = 0; i < args.length; ++i) {
+            switch (args[i]) {
+                case "-threads":
+                    numberOfThreads = Integer.parseInt(args[++i]);
+                    break;
+                case "-depth":
+                    depth = Integer.parseInt(args[++i]);
+                    break;
+                case "-hash":
+                    hashSizeInMegabytes = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        final SearchLimits searchLimits = SearchLimits.fixedDepth(depth);
+        long sequentialTime = 0;
+        long lazySmpTime = 0;
+        long youngBrothersWaitTime = 0;
+        for (final PerftPosition position : POSITIONS) {
+            long startTime = System.nanoTime();
+            final AlphaBeta alphaBeta = new AlphaBeta(searchLimits, new TranspositionTable(hashSizeInMegabytes));
+            alphaBeta.execute(position.createBoard());
+            final long positionSequentialTime = calculateTimeTaken(startTime);
+
+            final LazySmp lazySmp = new LazySmp(searchLimits, new TranspositionTable(hashSizeInMegabytes),
+                    numberOfThreads);
+            lazySmp.execute(position.createBoard());
+            final long positionLazySmpTime = lazySmp.getSearchTimeInMilliseconds();
+
+            final YoungBrothersWait youngBrothersWait = new YoungBrothersWait(searchLimits,
+                    new TranspositionTable(hashSizeInMegabytes), numberOfThreads);
+            startTime = System.nanoTime();
+            youngBrothersWait.execute(position.createBoard());
+            final long positionYoungBrothersWaitTime = calculateTimeTaken(startTime);
+            youngBrothersWait.shutdown();
+
+            System.out.println(position + ": AlphaBeta " + positionSequentialTime + " ms, "
+                    + alphaBeta.getNodesSearched() + " nodes; LazySmp " + positionLazySmpTime + " ms, "
+                    + lazySmp.getNodesSearched() + " nodes, speedup "
+                    + formatSpeedup(positionSequentialTime, positionLazySmpTime) + "; YoungBrothersWait "
+                    + positionYoungBrothersWaitTime + " ms, " + youngBrothersWait.getNodesSearched()
+                    + " nodes, speedup " + formatSpeedup(positionSequentialTime, positionYoungBrothersWaitTime));
+            sequentialTime += positionSequentialTime;
+            lazySmpTime += positionLazySmpTime;
+            youngBrothersWaitTime += positionYoungBrothersWaitTime;
+        }
+        System.out.println("Depth " + depth + " with " + numberOfThreads + " threads, speedup: LazySmp "
+                + formatSpeedup(sequentialTime, lazySmpTime) + ", YoungBrothersWait "
+                + formatSpeedup(sequentialTime, youngBrothersWaitTime));
+    }
+
+    private static long calculateTimeTaken(final long startTime) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    }
+
+    private static String formatSpeedup(final long sequentialTime, final long parallelTime) {
+        return String.format("%.2f", (double) sequentialTime / Math.max(1, parallelTime));
+    }
+}
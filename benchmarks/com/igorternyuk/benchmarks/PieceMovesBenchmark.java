@@ -0,0 +1,49 @@
+package com.igorternyuk.benchmarks;
+
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.pieces.Piece;
+import com.igorternyuk.engine.pieces.PieceType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by igor on 17.12.18.
+ *
+ * Piece.getLegalMoves for all pieces of one type, both sides, over the position set.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieceMovesBenchmark {
+    @Param({"KING", "QUEEN", "BISHOP", "KNIGHT", "ROOK", "PAWN"})
+    public PieceType pieceType;
+
+    private final List<Board> boards = new ArrayList<>();
+    private final List<Piece> pieces = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        for (final Board board : BenchmarkPositions.createBoards()) {
+            for (final Piece piece : board.getAllActivePieces()) {
+                if (piece.getPieceType() == this.pieceType) {
+                    this.boards.add(board);
+                    this.pieces.add(piece);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void getLegalMoves(final Blackhole blackhole) {
+        for (int i = 0; i < this.pieces.size(); ++i) {
+            blackhole.consume(this.pieces.get(i).getLegalMoves(this.boards.get(i)));
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.igorternyuk.engine.board;
+
+import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.pieces.PieceType;
+
+/**
+ * Created by igor on 14.12.18.
+ *
+ * Bit i of every bitboard corresponds to the tile index i = y * 8 + x, so bit 0 is a8 and bit 63 is h1.
+ * Bishop and rook attacks are looked up in magic tables: the relevant blockers are multiplied by a per-tile magic
+ * number and the top bits of the product index a table filled once at class load.
+ */
+public final class BitBoards {
+    private static final int NUMBER_OF_PIECE_TYPES = PieceType.values().length;
+    public static final int NUMBER_OF_PIECE_INDICES = Alliance.values().length * NUMBER_OF_PIECE_TYPES;
+    public static final long EMPTY = 0L;
+    public static final long[] FILES = createFileMasks();
+    public static final long[] RANKS = createRankMasks();
+    public static final long LIGHT_TILES = createLightTilesMask();
+    public static final long DARK_TILES = ~LIGHT_TILES;
+    public static final long[] KNIGHT_ATTACKS = createLeaperAttacks(new int[][]{
+            {-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}
+    });
+    public static final long[] KING_ATTACKS = createLeaperAttacks(new int[][]{
+            {-1, -1}, {-1, 1}, {1, -1}, {1, 1}, {-1, 0}, {0, 1}, {1, 0}, {0, -1}
+    });
+    private static final long[][] PAWN_ATTACKS = createPawnAttacks();
+    private static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+    private static final int[][] ROOK_DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    private static final long[][] RAYS = createRays();
+    private static final long[] ROOK_MAGICS = {
+            0x1480001880400020L, 0x2040100040002001L, 0x2080082004100080L, 0x2080100044C80080L,
+            0x0200200200040810L, 0x1200100401020008L, 0x4600020000814C18L, 0x0200048410244102L,
+            0x0010802040008000L, 0x0004804000822000L, 0x0110802000801009L, 0x0F81000821001000L,
+            0x0002800800800401L, 0x0341000300088400L, 0x400D001411000200L, 0x200080005F800100L,
+            0x2040218000804000L, 0x0000810020400100L, 0x0E01010010200048L, 0x0420210009001004L,
+            0x8824110008000500L, 0x1042008004008002L, 0xA041040008020110L, 0x0020220000408104L,
+            0x0000209080004008L, 0x0000200240005002L, 0x0000200100410010L, 0x0100080080801000L,
+            0x0801000500080210L, 0x4095002300040008L, 0x0002100400080102L, 0x0020208A00110064L,
+            0x2080002000400048L, 0x4041402001401001L, 0x1308100088802000L, 0x0028100101002008L,
+            0x1004008004800800L, 0x1040402008010410L, 0x2400081004008201L, 0x18040041020010A4L,
+            0x0080002000444001L, 0x0800400020008080L, 0x0000208200420018L, 0x2604082012020040L,
+            0x3124040008008080L, 0x0400401060480104L, 0x0002000448220081L, 0x0210042848820001L,
+            0x1080002000400C40L, 0x8410004002200140L, 0x040B884022011200L, 0x1021201001000900L,
+            0x2900440080080280L, 0x0420040002008080L, 0xC009002402002100L, 0x000003104C148200L,
+            0x110100102040820AL, 0x3080260012830042L, 0x0045002001094011L, 0x4002209000540901L,
+            0x0241000210080005L, 0xA001000614000803L, 0x00250004120000B1L, 0x8000040100208042L
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0x2540104102023041L, 0x9008420802002001L, 0x0524480619411600L, 0x0104040084000002L,
+            0x014414E002202080L, 0x8004240440628044L, 0x0014020242200020L, 0x1004120090041048L,
+            0x2140A12004210064L, 0x0004424401040108L, 0x4010102080810400L, 0x0120220A02041008L,
+            0x8002420210080280L, 0x2020020203200000L, 0x0000020082209080L, 0x0008808044100480L,
+            0x1208014090443088L, 0x0002041002081512L, 0x000200100400400FL, 0x0092000420260000L,
+            0x6008100101401000L, 0x0001020200A20101L, 0x00012C8200900400L, 0x0001030600410440L,
+            0x08A8440008101000L, 0x0808080820024082L, 0x8000340088004400L, 0x0804080004202040L,
+            0x4010404004010040L, 0x1140860081011080L, 0x8808060001012118L, 0xC004030022310103L,
+            0x8011101220401400L, 0x0028884440200400L, 0x4805005800090800L, 0x8C30200500080108L,
+            0x0020010400030408L, 0x81A0040230150100L, 0x0B44442080004800L, 0x0002005040010409L,
+            0x0840900820100808L, 0x200080842000100AL, 0x1848120088401000L, 0x8000004010402200L,
+            0x0C68082100410408L, 0x000230020A001620L, 0x002008008100089AL, 0x00024C0400208090L,
+            0x0000411010100220L, 0x20418A0802622042L, 0x0060002402080024L, 0x0260894904090000L,
+            0x100C030421860001L, 0x002A400448008002L, 0x0028E81004004804L, 0x01100948108A8A00L,
+            0x0210220110015001L, 0x000800808C4D2002L, 0x20103B2904009200L, 0xC860004000841102L,
+            0x10A4280020034400L, 0x0800000410129204L, 0x4000071004010C00L, 0x8250822248020010L
+    };
+    private static final long[] ROOK_MASKS = createRelevantOccupancyMasks(ROOK_DIRECTIONS);
+    private static final long[] BISHOP_MASKS = createRelevantOccupancyMasks(BISHOP_DIRECTIONS);
+    private static final long[][] ROOK_ATTACKS = createMagicAttacks(ROOK_MASKS, ROOK_MAGICS, ROOK_DIRECTIONS);
+    private static final long[][] BISHOP_ATTACKS = createMagicAttacks(BISHOP_MASKS, BISHOP_MAGICS,
+            BISHOP_DIRECTIONS);
+
+    public static long squareMask(final int index) {
+        return 1L << index;
+    }
+
+    public static long squareMask(final Location location) {
+        return 1L << BoardUtils.getTileIndex(location);
+    }
+
+    public static boolean isSet(final long bitBoard, final int index) {
+        return (bitBoard & (1L << index)) != 0;
+    }
+
+    public static int firstIndex(final long bitBoard) {
+        return Long.numberOfTrailingZeros(bitBoard);
+    }
+
+    public static int lastIndex(final long bitBoard) {
+        return Long.SIZE - 1 - Long.numberOfLeadingZeros(bitBoard);
+    }
+
+    public static long clearFirst(final long bitBoard) {
+        return bitBoard & (bitBoard - 1);
+    }
+
+    public static int count(final long bitBoard) {
+        return Long.bitCount(bitBoard);
+    }
+
+    public static int pieceIndex(final PieceType pieceType, final Alliance alliance) {
+        return alliance.ordinal() * NUMBER_OF_PIECE_TYPES + pieceType.ordinal();
+    }
+
+    public static long pawnAttacks(final Alliance alliance, final int index) {
+        return PAWN_ATTACKS[alliance.ordinal()][index];
+    }
+
+    public static boolean isTileAttacked(final long[] pieceBitBoards, final long allOccupancy, final int tileIndex,
+                                         final Alliance attacker) {
+        final Alliance defender = attacker.isWhite() ? Alliance.BLACK : Alliance.WHITE;
+        final long queens = pieceBitBoards[pieceIndex(PieceType.QUEEN, attacker)];
+        return (pawnAttacks(defender, tileIndex) & pieceBitBoards[pieceIndex(PieceType.PAWN, attacker)]) != EMPTY
+                || (KNIGHT_ATTACKS[tileIndex] & pieceBitBoards[pieceIndex(PieceType.KNIGHT, attacker)]) != EMPTY
+                || (KING_ATTACKS[tileIndex] & pieceBitBoards[pieceIndex(PieceType.KING, attacker)]) != EMPTY
+                || (bishopAttacks(tileIndex, allOccupancy)
+                & (pieceBitBoards[pieceIndex(PieceType.BISHOP, attacker)] | queens)) != EMPTY
+                || (rookAttacks(tileIndex, allOccupancy)
+                & (pieceBitBoards[pieceIndex(PieceType.ROOK, attacker)] | queens)) != EMPTY;
+    }
+
+    //Pieces of both sides attacking the tile through the given occupancy, pieces outside it still show up
+    public static long getAttackers(final long[] pieceBitBoards, final long occupancy, final int tileIndex) {
+        final long queens = getPieces(pieceBitBoards, PieceType.QUEEN);
+        return (pawnAttacks(Alliance.BLACK, tileIndex) & pieceBitBoards[pieceIndex(PieceType.PAWN, Alliance.WHITE)])
+                | (pawnAttacks(Alliance.WHITE, tileIndex) & pieceBitBoards[pieceIndex(PieceType.PAWN, Alliance.BLACK)])
+                | (KNIGHT_ATTACKS[tileIndex] & getPieces(pieceBitBoards, PieceType.KNIGHT))
+                | (KING_ATTACKS[tileIndex] & getPieces(pieceBitBoards, PieceType.KING))
+                | (bishopAttacks(tileIndex, occupancy) & (getPieces(pieceBitBoards, PieceType.BISHOP) | queens))
+                | (rookAttacks(tileIndex, occupancy) & (getPieces(pieceBitBoards, PieceType.ROOK) | queens));
+    }
+
+    public static long bishopAttacks(final int index, final long occupancy) {
+        final long[] attacks = BISHOP_ATTACKS[index];
+        return attacks[magicIndex(occupancy & BISHOP_MASKS[index], BISHOP_MAGICS[index], attacks.length)];
+    }
+
+    public static long rookAttacks(final int index, final long occupancy) {
+        final long[] attacks = ROOK_ATTACKS[index];
+        return attacks[magicIndex(occupancy & ROOK_MASKS[index], ROOK_MAGICS[index], attacks.length)];
+    }
+
+    public static long queenAttacks(final int index, final long occupancy) {
+        return bishopAttacks(index, occupancy) | rookAttacks(index, occupancy);
+    }
+
+    //All tiles from the given one to the edge of the board in the direction (dx, dy), the tile itself excluded
+    public static long ray(final int index, final int dx, final int dy) {
+        return RAYS[(dx + 1) * 3 + dy + 1][index];
+    }
+
+    private static long getPieces(final long[] pieceBitBoards, final PieceType pieceType) {
+        return pieceBitBoards[pieceIndex(pieceType, Alliance.WHITE)]
+                | pieceBitBoards[pieceIndex(pieceType, Alliance.BLACK)];
+    }
+
+    private static int magicIndex(final long blockers, final long magic, final int tableSize) {
+        return (int) ((blockers * magic) >>> (Long.SIZE - Integer.numberOfTrailingZeros(tableSize)));
+    }
+
+    private static long slidingAttacks(final int index, final long occupancy, final int[][] directions) {
+        long attacks = 0L;
+        final int x = BoardUtils.getTileX(index);
+        final int y = BoardUtils.getTileY(index);
+        for (final int[] direction : directions) {
+            int destX = x + direction[0];
+            int destY = y + direction[1];
+            while (BoardUtils.isValidLocation(destX, destY)) {
+                final long destination = 1L << BoardUtils.getTileIndex(destX, destY);
+                attacks |= destination;
+                if ((occupancy & destination) != 0) {
+                    break;
+                }
+                destX += direction[0];
+                destY += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    private static long[][] createRays() {
+        final long[][] rays = new long[9][BoardUtils.TOTAL_NUMBER_OF_TILES];
+        for (int dx = -1; dx <= 1; ++dx) {
+            for (int dy = -1; dy <= 1; ++dy) {
+                if (dx == 0 && dy == 0) {
+                    continue;
+                }
+                for (int index = 0; index < BoardUtils.TOTAL_NUMBER_OF_TILES; ++index) {
+                    rays[(dx + 1) * 3 + dy + 1][index] = slidingAttacks(index, EMPTY, new int[][]{{dx, dy}});
+                }
+            }
+        }
+        return rays;
+    }
+
+    //Tiles whose occupancy can change the attacks from the given one: the rays without their last tiles
+    private static long[] createRelevantOccupancyMasks(final int[][] directions) {
+        final long[] masks = new long[BoardUtils.TOTAL_NUMBER_OF_TILES];
+        for (int index = 0; index < BoardUtils.TOTAL_NUMBER_OF_TILES; ++index) {
+            for (final int[] direction : directions) {
+                final long ray = RAYS[(direction[0] + 1) * 3 + direction[1] + 1][index];
+                masks[index] |= ray & ~squareMask(farthestIndex(ray, direction));
+            }
+        }
+        return masks;
+    }
+
+    private static int farthestIndex(final long ray, final int[] direction) {
+        return direction[0] + direction[1] * BoardUtils.BOARD_SIZE > 0 ? lastIndex(ray) : firstIndex(ray);
+    }
+
+    private static long[][] createMagicAttacks(final long[] masks, final long[] magics, final int[][] directions) {
+        final long[][] attacks = new long[BoardUtils.TOTAL_NUMBER_OF_TILES][];
+        for (int index = 0; index < BoardUtils.TOTAL_NUMBER_OF_TILES; ++index) {
+            final long mask = masks[index];
+            attacks[index] = new long[1 << count(mask)];
+            //Enumerates all subsets of the mask with the Carry-Rippler trick
+            long blockers = EMPTY;
+            do {
+                attacks[index][magicIndex(blockers, magics[index], attacks[index].length)] =
+                        slidingAttacks(index, blockers, directions);
+                blockers = (blockers - mask) & mask;
+            } while (blockers != EMPTY);
+        }
+        return attacks;
+    }
+
+    private static long[] createFileMasks() {
+        final long[] files = new long[BoardUtils.BOARD_SIZE];
+        for (int x = 0; x < BoardUtils.BOARD_SIZE; ++x) {
+            for (int y = 0; y < BoardUtils.BOARD_SIZE; ++y) {
+                files[x] |= 1L << BoardUtils.getTileIndex(x, y);
+            }
+        }
+        return files;
+    }
+
+    private static long[] createRankMasks() {
+        final long[] ranks = new long[BoardUtils.BOARD_SIZE];
+        for (int y = 0; y < BoardUtils.BOARD_SIZE; ++y) {
+            for (int x = 0; x < BoardUtils.BOARD_SIZE; ++x) {
+                ranks[y] |= 1L << BoardUtils.getTileIndex(x, y);
+            }
+        }
+        return ranks;
+    }
+
+    private static long createLightTilesMask() {
+        long mask = 0L;
+        for (int y = 0; y < BoardUtils.BOARD_SIZE; ++y) {
+            for (int x = 0; x < BoardUtils.BOARD_SIZE; ++x) {
+                if ((x + y) % 2 == 0) {
+                    mask |= 1L << BoardUtils.getTileIndex(x, y);
+                }
+            }
+        }
+        return mask;
+    }
+
+    private static long[] createLeaperAttacks(final int[][] offsets) {
+        final long[] attacks = new long[BoardUtils.TOTAL_NUMBER_OF_TILES];
+        for (int index = 0; index < BoardUtils.TOTAL_NUMBER_OF_TILES; ++index) {
+            final int x = BoardUtils.getTileX(index);
+            final int y = BoardUtils.getTileY(index);
+            for (final int[] offset : offsets) {
+                if (BoardUtils.isValidLocation(x + offset[0], y + offset[1])) {
+                    attacks[index] |= 1L << BoardUtils.getTileIndex(x + offset[0], y + offset[1]);
+                }
+            }
+        }
+        return attacks;
+    }
+
+    private static long[][] createPawnAttacks() {
+        final long[][] attacks = new long[Alliance.values().length][BoardUtils.TOTAL_NUMBER_OF_TILES];
+        for (final Alliance alliance : Alliance.values()) {
+            attacks[alliance.ordinal()] = createLeaperAttacks(new int[][]{
+                    {-1, alliance.getDirectionY()}, {1, alliance.getDirectionY()}
+            });
+        }
+        return attacks;
+    }
+}
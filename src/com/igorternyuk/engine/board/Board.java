@@ -11,73 +11,78 @@ import com.igorternyuk.engine.player.Player;
 import com.igorternyuk.engine.player.WhitePlayer;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Created by igor on 01.12.17.
  */
 
-public class Board {
+public class Board implements Position {
+    public static final int MAX_PHASE = 24;
+    private static final int MINOR_PIECE_PHASE = 1;
+    private static final int ROOK_PHASE = 2;
+    private static final int QUEEN_PHASE = 4;
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+    private static final int[] PHASE_WEIGHTS = createPhaseWeights();
+
     private final GameType gameType;
     private final Pawn enPassantPawn;
     private final int kingsRookStartCoordinateX;
     private final int queensRookStartCoordinateX;
-    private final Map<Location, Tile> gameBoard;
-    private final Collection<Piece> whitePieces;
-    private final Collection<Piece> blackPieces;
-    private final Collection<Piece> allActivePieces;
-    private final Collection<Move> legalMovesWhitePieces;
-    private final Collection<Move> legalMovesBlackPieces;
-    private final WhitePlayer whitePlayer;
-    private final BlackPlayer blackPlayer;
-    private final Player currentPlayer;
+    private final Piece[] mailbox;
+    private final long[] pieceBitBoards;
+    private final long whiteOccupancy;
+    private final long blackOccupancy;
+    private final long allOccupancy;
+    private final Alliance nextMoveMaker;
     private final boolean isInsufficientMaterial;
     private final Move transitionMove;
+    private final int castlingRights;
+    private final long zobristKey;
+    private final int[] middleGameScores;
+    private final int[] endGameScores;
+    private final int phase;
+    private Collection<Piece> whitePieces;
+    private Collection<Piece> blackPieces;
+    private Collection<Piece> allActivePieces;
+    private Collection<Move> legalMovesWhitePieces;
+    private Collection<Move> legalMovesBlackPieces;
+    private WhitePlayer whitePlayer;
+    private BlackPlayer blackPlayer;
 
     private Board(final Builder builder) {
         this.gameType = builder.gameType;
         this.kingsRookStartCoordinateX = builder.kingsRookStartCoordinateX;
         this.queensRookStartCoordinateX = builder.queensRookStartCoordinateX;
-        this.gameBoard = createGameBoard(builder);
-        this.whitePieces = detectActivePieces(this.gameBoard, Alliance.WHITE);
-        this.blackPieces = detectActivePieces(this.gameBoard, Alliance.BLACK);
-        this.allActivePieces = ImmutableList.copyOf(Iterables.concat(this.whitePieces, this.blackPieces));
+        this.mailbox = builder.boardPattern.clone();
+        this.pieceBitBoards = createPieceBitBoards(this.mailbox);
+        this.whiteOccupancy = calculateOccupancy(this.pieceBitBoards, Alliance.WHITE);
+        this.blackOccupancy = calculateOccupancy(this.pieceBitBoards, Alliance.BLACK);
+        this.allOccupancy = this.whiteOccupancy | this.blackOccupancy;
         this.enPassantPawn = builder.enPassantPawn;
-        this.legalMovesWhitePieces = calculateLegalMoves(this.whitePieces);
-        this.legalMovesBlackPieces = calculateLegalMoves(this.blackPieces);
-        this.whitePlayer = new WhitePlayer(this, this.legalMovesWhitePieces, this.legalMovesBlackPieces);
-        this.blackPlayer = new BlackPlayer(this, this.legalMovesBlackPieces, this.legalMovesWhitePieces);
-        this.currentPlayer = builder.nextMoveMaker.choosePlayer(this.whitePlayer, this.blackPlayer);
+        this.nextMoveMaker = builder.nextMoveMaker;
         this.isInsufficientMaterial = checkIfInsufficientMaterial();
         this.transitionMove = builder.transitionMove == null
                 ? Move.MoveFactory.NULL_MOVE
                 : builder.transitionMove;
-        if (builder.checkEndGamePhase()) {
-            this.setEndGameKings();
+        this.castlingRights = builder.hasCastlingRights
+                ? builder.castlingRights
+                : Zobrist.calculateCastlingRights(this);
+        this.zobristKey = builder.hasZobristKey ? builder.zobristKey : Zobrist.calculateKey(this);
+        if (builder.hasScores) {
+            this.middleGameScores = builder.middleGameScores.clone();
+            this.endGameScores = builder.endGameScores.clone();
+            this.phase = Math.min(builder.phase, MAX_PHASE);
+        } else {
+            this.middleGameScores = new int[Alliance.values().length];
+            this.endGameScores = new int[Alliance.values().length];
+            this.phase = Math.min(calculateScores(this.mailbox, this.allOccupancy, this.middleGameScores,
+                    this.endGameScores), MAX_PHASE);
         }
     }
 
-    public boolean isEndGamePhase() {
-        int numMinorPieces = 0;
-        int numMajorPieces = 0;
-        boolean noQueens = false;
-        for (final Piece piece : this.allActivePieces) {
-            if (piece.getPieceType().isMinorPiece()) {
-                ++numMinorPieces;
-            } else if (piece.getPieceType().isMajorPiece()) {
-                ++numMajorPieces;
-            }
-            if (piece.getPieceType().isQueen()) {
-                noQueens = false;
-            }
-        }
-        if (noQueens && (numMinorPieces + numMajorPieces) <= 8) {
-            return true;
-        }
-        if (!noQueens && (numMinorPieces + numMajorPieces) <= 2) {
-            return true;
-        }
-        return false;
+    @Override
+    public int getPhase() {
+        return this.phase;
     }
 
     public Move getTransitionMove() {
@@ -85,7 +90,11 @@ public class Board {
     }
 
     public Map<Location, Tile> getGameBoard() {
-        return this.gameBoard;
+        final ImmutableMap.Builder<Location, Tile> tiles = ImmutableMap.builder();
+        for (int index = 0; index < BoardUtils.TOTAL_NUMBER_OF_TILES; ++index) {
+            tiles.put(BoardUtils.getLocation(index), Tile.createTile(BoardUtils.getLocation(index), this.mailbox[index]));
+        }
+        return tiles.build();
     }
 
     public boolean isInsufficientMaterial() {
@@ -98,114 +107,223 @@ public class Board {
                 || isInsufficientMaterial();
     }
 
+    @Override
     public GameType getGameType() {
         return this.gameType;
     }
 
+    @Override
     public int getKingsRookStartCoordinateX() {
         return this.kingsRookStartCoordinateX;
     }
 
+    @Override
     public int getQueensRookStartCoordinateX() {
         return this.queensRookStartCoordinateX;
     }
 
+    @Override
     public Pawn getEnPassantPawn() {
         return this.enPassantPawn;
     }
 
+    public int getCastlingRights() {
+        return this.castlingRights;
+    }
+
+    public long getZobristKey() {
+        return this.zobristKey;
+    }
+
+    @Override
+    public int getMiddleGameScore(final Alliance alliance) {
+        return this.middleGameScores[alliance.ordinal()];
+    }
+
+    @Override
+    public int getEndGameScore(final Alliance alliance) {
+        return this.endGameScores[alliance.ordinal()];
+    }
+
     public Collection<Piece> getWhitePieces() {
+        if (this.whitePieces == null) {
+            this.whitePieces = collectPieces(this.whiteOccupancy);
+        }
         return this.whitePieces;
     }
 
     public Collection<Piece> getBlackPieces() {
+        if (this.blackPieces == null) {
+            this.blackPieces = collectPieces(this.blackOccupancy);
+        }
         return this.blackPieces;
     }
 
     public Collection<Piece> getAllActivePieces() {
+        if (this.allActivePieces == null) {
+            this.allActivePieces = ImmutableList.copyOf(Iterables.concat(getWhitePieces(), getBlackPieces()));
+        }
         return this.allActivePieces;
     }
 
+    @Override
+    public Piece getPiece(final int tileIndex) {
+        return this.mailbox[tileIndex];
+    }
+
+    @Override
+    public long getPieceBitBoard(final PieceType pieceType, final Alliance alliance) {
+        return this.pieceBitBoards[BitBoards.pieceIndex(pieceType, alliance)];
+    }
+
+    @Override
+    public long getOccupancy(final Alliance alliance) {
+        return alliance.isWhite() ? this.whiteOccupancy : this.blackOccupancy;
+    }
+
+    @Override
+    public long getAllOccupancy() {
+        return this.allOccupancy;
+    }
+
     public Player getWhitePlayer() {
+        if (this.whitePlayer == null) {
+            this.whitePlayer = new WhitePlayer(this);
+        }
         return this.whitePlayer;
     }
 
     public Player getBlackPlayer() {
+        if (this.blackPlayer == null) {
+            this.blackPlayer = new BlackPlayer(this);
+        }
         return this.blackPlayer;
     }
 
     public Player getCurrentPlayer() {
-        return this.currentPlayer;
+        return this.nextMoveMaker.isWhite() ? getWhitePlayer() : getBlackPlayer();
+    }
+
+    public Alliance getMoveMaker() {
+        return this.nextMoveMaker;
+    }
+
+    //Pseudo-legal moves of the pieces of the given side, castles excluded
+    public Collection<Move> getPieceLegalMoves(final Alliance alliance) {
+        if (alliance.isWhite()) {
+            if (this.legalMovesWhitePieces == null) {
+                this.legalMovesWhitePieces = calculateLegalMoves(this.whiteOccupancy);
+            }
+            return this.legalMovesWhitePieces;
+        }
+        if (this.legalMovesBlackPieces == null) {
+            this.legalMovesBlackPieces = calculateLegalMoves(this.blackOccupancy);
+        }
+        return this.legalMovesBlackPieces;
+    }
+
+    @Override
+    public boolean isInCheck(final Alliance alliance) {
+        final long king = getPieceBitBoard(PieceType.KING, alliance);
+        return king != BitBoards.EMPTY && isTileAttacked(BitBoards.firstIndex(king),
+                alliance.isWhite() ? Alliance.BLACK : Alliance.WHITE);
+    }
+
+    @Override
+    public boolean isTileAttacked(final int tileIndex, final Alliance attacker) {
+        return BitBoards.isTileAttacked(this.pieceBitBoards, this.allOccupancy, tileIndex, attacker);
     }
 
     public Tile getTile(final Location candidateDestination) {
-        return BoardUtils.isValidLocation(candidateDestination) ? gameBoard.get(candidateDestination) : null;
+        return BoardUtils.isValidLocation(candidateDestination) ? createTile(candidateDestination) : null;
     }
 
     public Tile getTile(final int x, final int y) {
-        return BoardUtils.isValidLocation(x, y) ? gameBoard.get(BoardUtils.LOCATIONS[y][x]) : null;
+        return BoardUtils.isValidLocation(x, y) ? createTile(BoardUtils.getLocation(x, y)) : null;
     }
 
     public Tile getTile(final char file, final int rank) {
-        return gameBoard.get(BoardUtils.getLocation(file, rank));
+        return createTile(BoardUtils.getLocation(file, rank));
     }
 
     public Tile getTile(final String algebraicNotation) {
-        return gameBoard.get(BoardUtils.getLocation(algebraicNotation));
+        return createTile(BoardUtils.getLocation(algebraicNotation));
+    }
+
+    private Tile createTile(final Location location) {
+        return Tile.createTile(location, this.mailbox[BoardUtils.getTileIndex(location)]);
     }
 
     public Iterable<Move> getAllLegalMoves() {
-        return Iterables.unmodifiableIterable(Iterables.concat(this.legalMovesWhitePieces, this.legalMovesBlackPieces));
+        return Iterables.unmodifiableIterable(Iterables.concat(getPieceLegalMoves(Alliance.WHITE),
+                getPieceLegalMoves(Alliance.BLACK)));
     }
 
-    public void setEndGameKings() {
-        if (this.isEndGamePhase()) {
-            this.getWhitePlayer().getPlayerKing().setEndGameValue();
-            this.getBlackPlayer().getPlayerKing().setEndGameValue();
+    //Fills in the scores of the pieces and returns the phase they add up to, promoted pieces included
+    private static int calculateScores(final Piece[] mailbox, final long allOccupancy,
+                                       final int[] middleGameScores, final int[] endGameScores) {
+        int phase = 0;
+        for (long pieces = allOccupancy; pieces != BitBoards.EMPTY; pieces = BitBoards.clearFirst(pieces)) {
+            final Piece piece = mailbox[BitBoards.firstIndex(pieces)];
+            middleGameScores[piece.getAlliance().ordinal()] += piece.getMiddleGameValue();
+            endGameScores[piece.getAlliance().ordinal()] += piece.getEndGameValue();
+            phase += getPhaseWeight(piece.getPieceType());
         }
+        return phase;
+    }
+
+    //How much the piece adds to the phase: pawns and kings stay on the board into the endgame
+    static int getPhaseWeight(final PieceType pieceType) {
+        return PHASE_WEIGHTS[pieceType.ordinal()];
+    }
+
+    private static int[] createPhaseWeights() {
+        final int[] weights = new int[PieceType.values().length];
+        weights[PieceType.KNIGHT.ordinal()] = MINOR_PIECE_PHASE;
+        weights[PieceType.BISHOP.ordinal()] = MINOR_PIECE_PHASE;
+        weights[PieceType.ROOK.ordinal()] = ROOK_PHASE;
+        weights[PieceType.QUEEN.ordinal()] = QUEEN_PHASE;
+        return weights;
     }
 
     private boolean checkIfInsufficientMaterial() {
-        List<Piece> whitePieces = (List<Piece>) this.whitePieces;
-        List<Piece> blackPieces = (List<Piece>) this.blackPieces;
-        if (whitePieces.size() > 3 && blackPieces.size() > 3) return false;
-        if (whitePieces.size() == 1) {
-            if (blackPieces.size() == 1) return true;
-            if (blackPieces.size() == 2) {
-                final Piece secondBlackPiece = blackPieces.get(0).getPieceType().isKing() ?
-                        blackPieces.get(1) : blackPieces.get(0);
-                if (secondBlackPiece.getPieceType().isMinorPiece())
-                    return true;
-            } else if (blackPieces.size() == 3) {
-                return blackPieces.stream().filter(piece -> !piece.getPieceType().isKing())
-                        .allMatch(piece -> piece.getPieceType().equals(PieceType.KNIGHT));
+        return isInsufficientMaterial(this.pieceBitBoards, this.whiteOccupancy, this.blackOccupancy);
+    }
+
+    static boolean isInsufficientMaterial(final long[] pieceBitBoards, final long whiteOccupancy,
+                                          final long blackOccupancy) {
+        final int numWhitePieces = BitBoards.count(whiteOccupancy);
+        final int numBlackPieces = BitBoards.count(blackOccupancy);
+        if (numWhitePieces > 3 && numBlackPieces > 3) return false;
+        final int numWhiteMinorPieces = countMinorPieces(pieceBitBoards, Alliance.WHITE);
+        final int numBlackMinorPieces = countMinorPieces(pieceBitBoards, Alliance.BLACK);
+        if (numWhitePieces == 1) {
+            if (numBlackPieces == 1) return true;
+            if (numBlackPieces == 2) {
+                return numBlackMinorPieces == 1;
+            } else if (numBlackPieces == 3) {
+                return BitBoards.count(pieceBitBoards[BitBoards.pieceIndex(PieceType.KNIGHT, Alliance.BLACK)]) == 2;
             }
-        } else if (whitePieces.size() == 2) {
-            if (blackPieces.size() == 1) {
-                final Piece secondWhitePiece = whitePieces.get(0).getPieceType().isKing() ?
-                        whitePieces.get(1) : whitePieces.get(0);
-                if (secondWhitePiece.getPieceType().isMinorPiece())
-                    return true;
-            } else if (blackPieces.size() == 2) {
-                final Piece secondWhitePiece = whitePieces.get(0).getPieceType().isKing() ?
-                        whitePieces.get(1) : whitePieces.get(0);
-                final Piece secondBlackPiece = blackPieces.get(0).getPieceType().isKing() ?
-                        blackPieces.get(1) : blackPieces.get(0);
-                if ((secondWhitePiece.getPieceType().isMinorPiece()) &&
-                        (secondBlackPiece.getPieceType().isMinorPiece())) {
-                    return true;
-                }
+        } else if (numWhitePieces == 2) {
+            if (numBlackPieces == 1) {
+                return numWhiteMinorPieces == 1;
+            } else if (numBlackPieces == 2) {
+                return numWhiteMinorPieces == 1 && numBlackMinorPieces == 1;
             }
-        } else if (whitePieces.size() == 3) {
-            if (blackPieces.size() == 1) {
-                return whitePieces.stream().filter(piece -> !piece.getPieceType().isKing())
-                        .allMatch(piece -> piece.getPieceType().equals(PieceType.KNIGHT));
+        } else if (numWhitePieces == 3) {
+            if (numBlackPieces == 1) {
+                return BitBoards.count(pieceBitBoards[BitBoards.pieceIndex(PieceType.KNIGHT, Alliance.WHITE)]) == 2;
             }
         }
 
         return false;
     }
 
+    private static int countMinorPieces(final long[] pieceBitBoards, final Alliance alliance) {
+        return BitBoards.count(pieceBitBoards[BitBoards.pieceIndex(PieceType.KNIGHT, alliance)]
+                | pieceBitBoards[BitBoards.pieceIndex(PieceType.BISHOP, alliance)]);
+    }
+
     /*@Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -244,22 +362,29 @@ public class Board {
     }*/
 
     public static class Builder {
-        private Map<Location, Piece> boardPattern;
+        private Piece[] boardPattern;
         private Alliance nextMoveMaker;
         private Pawn enPassantPawn;
         private GameType gameType;
         private int kingsRookStartCoordinateX;
         private int queensRookStartCoordinateX;
         private Move transitionMove;
-        private boolean checkEndGamePhase = false;
+        private boolean hasZobristKey = false;
+        private long zobristKey;
+        private boolean hasScores = false;
+        private int[] middleGameScores;
+        private int[] endGameScores;
+        private int phase;
+        private boolean hasCastlingRights = false;
+        private int castlingRights;
 
         public Builder() {
-            this.boardPattern = new HashMap<>();
+            this.boardPattern = new Piece[BoardUtils.TOTAL_NUMBER_OF_TILES];
             this.nextMoveMaker = Alliance.WHITE;
         }
 
         public Builder setPiece(final Piece piece) {
-            this.boardPattern.put(piece.getLocation(), piece);
+            this.boardPattern[BoardUtils.getTileIndex(piece.getLocation())] = piece;
             return this;
         }
 
@@ -268,14 +393,6 @@ public class Board {
             return this;
         }
 
-        public void setCheckEndGamePhase(boolean checkEndGamePhase) {
-            this.checkEndGamePhase = checkEndGamePhase;
-        }
-
-        public boolean checkEndGamePhase() {
-            return this.checkEndGamePhase;
-        }
-
         public void setGameType(GameType gameType) {
             this.gameType = gameType;
         }
@@ -292,6 +409,24 @@ public class Board {
             this.transitionMove = transitionMove;
         }
 
+        public void setZobristKey(final long zobristKey) {
+            this.zobristKey = zobristKey;
+            this.hasZobristKey = true;
+        }
+
+        //Scores and phase kept up to date move by move, so the board does not have to sum its pieces again
+        public void setScores(final int[] middleGameScores, final int[] endGameScores, final int phase) {
+            this.middleGameScores = middleGameScores;
+            this.endGameScores = endGameScores;
+            this.phase = phase;
+            this.hasScores = true;
+        }
+
+        public void setCastlingRights(final int castlingRights) {
+            this.castlingRights = castlingRights;
+            this.hasCastlingRights = true;
+        }
+
         public Board build() {
             return new Board(this);
         }
@@ -409,31 +544,40 @@ public class Board {
         return builder.build();
     }
 
-    private Collection<Move> calculateLegalMoves(final Collection<Piece> pieces) {
+    private Collection<Move> calculateLegalMoves(final long occupancy) {
         final List<Move> legalMoves = new ArrayList<>();
-        pieces.forEach(piece -> legalMoves.addAll(piece.getLegalMoves(this)));
+        for (long pieces = occupancy; pieces != BitBoards.EMPTY; pieces = BitBoards.clearFirst(pieces)) {
+            legalMoves.addAll(this.mailbox[BitBoards.firstIndex(pieces)].getLegalMoves(this));
+        }
         return ImmutableList.copyOf(legalMoves);
     }
 
-    private static Collection<Piece> detectActivePieces(final Map<Location, Tile> gameBoard,
-                                                        final Alliance alliance) {
-        final List<Piece> pieces = gameBoard.values().stream()
-                .filter(tile -> tile.isOccupied() && tile.getPiece().getAlliance().equals(alliance))
-                .map(Tile::getPiece).collect(Collectors.toList());
-        return ImmutableList.copyOf(pieces);
+    private Collection<Piece> collectPieces(final long occupancy) {
+        final ImmutableList.Builder<Piece> pieces = ImmutableList.builder();
+        for (long bitBoard = occupancy; bitBoard != BitBoards.EMPTY; bitBoard = BitBoards.clearFirst(bitBoard)) {
+            pieces.add(this.mailbox[BitBoards.firstIndex(bitBoard)]);
+        }
+        return pieces.build();
     }
 
-    private static Map<Location, Tile> createGameBoard(final Builder builder) {
-        final Map<Location, Tile> tiles = new HashMap<>();
-        for (int y = 0; y < BoardUtils.BOARD_SIZE; ++y) {
-            for (int x = 0; x < BoardUtils.BOARD_SIZE; ++x) {
-                final Location location = BoardUtils.getLocation(x, y);
-                final Piece piece = builder.boardPattern.get(location);
-                final Tile tile = Tile.createTile(location, piece);
-                tiles.put(location, tile);
+    private static long[] createPieceBitBoards(final Piece[] mailbox) {
+        final long[] bitBoards = new long[BitBoards.NUMBER_OF_PIECE_INDICES];
+        for (int index = 0; index < BoardUtils.TOTAL_NUMBER_OF_TILES; ++index) {
+            final Piece piece = mailbox[index];
+            if (piece != null) {
+                bitBoards[BitBoards.pieceIndex(piece.getPieceType(), piece.getAlliance())] |=
+                        BitBoards.squareMask(index);
             }
         }
-        return ImmutableMap.copyOf(tiles);
+        return bitBoards;
+    }
+
+    private static long calculateOccupancy(final long[] pieceBitBoards, final Alliance alliance) {
+        long occupancy = BitBoards.EMPTY;
+        for (final PieceType pieceType : PIECE_TYPES) {
+            occupancy |= pieceBitBoards[BitBoards.pieceIndex(pieceType, alliance)];
+        }
+        return occupancy;
     }
 
     @Override
@@ -447,12 +591,12 @@ public class Board {
             stringBuilder.append("\n");
         }
         stringBuilder.append("\n");
-        if (this.whitePlayer.isCastled()) {
+        if (getWhitePlayer().isCastled()) {
             stringBuilder.append("1");
         } else {
             stringBuilder.append("0");
         }
-        if (this.blackPlayer.isCastled()) {
+        if (getBlackPlayer().isCastled()) {
             stringBuilder.append("1");
         } else {
             stringBuilder.append("0");
@@ -41,6 +41,10 @@ public class BoardUtils {
         return transition.getTransitedBoard().getCurrentPlayer().isUnderCheck();
     }
 
+    public static boolean kingThreat(final SearchBoard board, final int move) {
+        return board.givesCheck(move);
+    }
+
     // MVV-LVA (Most Valuable Victim - Least Valuable Aggressor),
     public static int mvvlva(final Move move) {
         final Piece movedPiece = move.getMovedPiece();
@@ -51,6 +55,15 @@ public class BoardUtils {
         return PieceType.KING.getValue() - movedPiece.getValue();
     }
 
+    public static int mvvlva(final SearchBoard board, final int move) {
+        final Piece movedPiece = board.getMovedPiece(move);
+        if (SearchBoard.isCapturingMove(move)) {
+            final Piece capturedPiece = board.getCapturedPiece(move);
+            return (capturedPiece.getValue() - movedPiece.getValue() + PieceType.KING.getValue()) * 100;
+        }
+        return PieceType.KING.getValue() - movedPiece.getValue();
+    }
+
     public static Collection<Move> getMoveHistory(final Board board, int numberOfMoves) {
         final List<Move> moveHistory = new ArrayList<>(numberOfMoves);
         Move currentMove = board.getTransitionMove();
@@ -112,6 +125,26 @@ public class BoardUtils {
         return LOCATIONS[y][x];
     }
 
+    public static Location getLocation(final int tileIndex) {
+        return LOCATIONS[tileIndex / BOARD_SIZE][tileIndex % BOARD_SIZE];
+    }
+
+    public static int getTileIndex(final int x, final int y) {
+        return y * BOARD_SIZE + x;
+    }
+
+    public static int getTileIndex(final Location location) {
+        return getTileIndex(location.getX(), location.getY());
+    }
+
+    public static int getTileX(final int tileIndex) {
+        return tileIndex % BOARD_SIZE;
+    }
+
+    public static int getTileY(final int tileIndex) {
+        return tileIndex / BOARD_SIZE;
+    }
+
     public static Location getLocation(final String algebraicNotation) {
         return ALGEBRAIC_NOTATION_TO_LOCATION.get(algebraicNotation);
     }
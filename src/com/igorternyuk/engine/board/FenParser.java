@@ -0,0 +1,207 @@
+package com.igorternyuk.engine.board;
+
+import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.pieces.*;
+
+/**
+ * Created by igor on 17.12.18.
+ *
+ * Builds a Board from a FEN record. Castling rights are written either as KQkq or, for Chess960 positions, as the
+ * files of the castling rooks (Shredder-FEN, e.g. HFhf). Since the board keeps castling rights in the first-move
+ * flags of kings and rooks, only the king and rooks that may still castle are created as unmoved pieces.
+ * Pawns standing on their start rank are unmoved as well, other pieces are treated as already moved.
+ */
+public final class FenParser {
+    private static final String STANDARD_CASTLING_LETTERS = "KQkq";
+    private static final String NO_CASTLING_RIGHTS = "-";
+    private static final String NO_EN_PASSANT = "-";
+
+    public static Board createBoard(final String fen) {
+        final String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+        final Piece[] mailbox = parsePiecePlacement(fields[0], fen);
+        final Alliance moveMaker = parseMoveMaker(fields[1], fen);
+        final String castling = fields[2];
+        final boolean isChess960 = !castling.equals(NO_CASTLING_RIGHTS) && !isStandardCastling(castling);
+        final Board.Builder builder = new Board.Builder();
+        builder.setGameType(isChess960 ? GameType.RANDOM_FISHER_CHESS : GameType.CLASSIC_CHESS);
+        //The standard board keeps the a-file as the king's rook file and the h-file as the queen's rook file
+        int kingsRookX = isChess960 ? BoardUtils.BOARD_SIZE - 1 : 0;
+        int queensRookX = isChess960 ? 0 : BoardUtils.BOARD_SIZE - 1;
+        final boolean[][] castlingRookFiles = new boolean[Alliance.values().length][BoardUtils.BOARD_SIZE];
+        if (!castling.equals(NO_CASTLING_RIGHTS)) {
+            for (final char letter : castling.toCharArray()) {
+                final Alliance alliance = Character.isUpperCase(letter) ? Alliance.WHITE : Alliance.BLACK;
+                final int rookX = getCastlingRookX(mailbox, alliance, Character.toLowerCase(letter), fen);
+                castlingRookFiles[alliance.ordinal()][rookX] = true;
+                if (isChess960) {
+                    if (rookX > getKingX(mailbox, alliance, fen)) {
+                        kingsRookX = rookX;
+                    } else {
+                        queensRookX = rookX;
+                    }
+                }
+            }
+        }
+        builder.setKingsRookStartCoordinateX(kingsRookX);
+        builder.setQueensRookStartCoordinateX(queensRookX);
+        for (final Piece piece : mailbox) {
+            if (piece != null) {
+                builder.setPiece(createPiece(piece, castlingRookFiles[piece.getAlliance().ordinal()]));
+            }
+        }
+        Pawn enPassantPawn = null;
+        if (!fields[3].equals(NO_EN_PASSANT)) {
+            final Location target = BoardUtils.getLocation(fields[3]);
+            if (target == null) {
+                throw new IllegalArgumentException("Invalid en passant square in FEN: " + fen);
+            }
+            //The pawn that has just jumped stands one rank behind the target square
+            final int pawnY = target.getY() - moveMaker.getDirectionY();
+            final Piece jumpedPawn = mailbox[BoardUtils.getTileIndex(target.getX(), pawnY)];
+            if (jumpedPawn == null || !jumpedPawn.getPieceType().isPawn() || jumpedPawn.getAlliance() == moveMaker) {
+                throw new IllegalArgumentException("No pawn to capture en passant in FEN: " + fen);
+            }
+            enPassantPawn = (Pawn) jumpedPawn;
+        }
+        builder.setEnPassantPawn(enPassantPawn);
+        builder.setMoveMaker(moveMaker);
+        return builder.build();
+    }
+
+    private static Piece[] parsePiecePlacement(final String placement, final String fen) {
+        final Piece[] mailbox = new Piece[BoardUtils.TOTAL_NUMBER_OF_TILES];
+        final String[] ranks = placement.split("/");
+        if (ranks.length != BoardUtils.BOARD_SIZE) {
+            throw new IllegalArgumentException("Invalid piece placement in FEN: " + fen);
+        }
+        for (int y = 0; y < BoardUtils.BOARD_SIZE; ++y) {
+            int x = 0;
+            for (final char symbol : ranks[y].toCharArray()) {
+                if (Character.isDigit(symbol)) {
+                    x += symbol - '0';
+                    continue;
+                }
+                if (x >= BoardUtils.BOARD_SIZE) {
+                    throw new IllegalArgumentException("Invalid piece placement in FEN: " + fen);
+                }
+                final Alliance alliance = Character.isUpperCase(symbol) ? Alliance.WHITE : Alliance.BLACK;
+                mailbox[BoardUtils.getTileIndex(x, y)] = createPiece(Character.toLowerCase(symbol), x, y, alliance,
+                        fen);
+                ++x;
+            }
+            if (x != BoardUtils.BOARD_SIZE) {
+                throw new IllegalArgumentException("Invalid piece placement in FEN: " + fen);
+            }
+        }
+        return mailbox;
+    }
+
+    private static Piece createPiece(final char symbol, final int x, final int y, final Alliance alliance,
+                                     final String fen) {
+        switch (symbol) {
+            case 'k':
+                return King.createKing(x, y, alliance, false);
+            case 'q':
+                return Queen.createQueen(x, y, alliance, false);
+            case 'b':
+                return Bishop.createBishop(x, y, alliance, false);
+            case 'n':
+                return Knight.createKnight(x, y, alliance, false);
+            case 'r':
+                return Rook.createRook(x, y, alliance, false);
+            case 'p':
+                if (y == BoardUtils.FIRST_RANK || y == BoardUtils.EIGHTH_RANK) {
+                    throw new IllegalArgumentException("Pawn on the first or the last rank in FEN: " + fen);
+                }
+                final int startRank = alliance.isWhite() ? BoardUtils.SECOND_RANK : BoardUtils.SEVENTH_RANK;
+                return Pawn.createPawn(x, y, alliance, y == startRank);
+            default:
+                throw new IllegalArgumentException("Unknown piece '" + symbol + "' in FEN: " + fen);
+        }
+    }
+
+    private static Piece createPiece(final Piece piece, final boolean[] castlingRookFiles) {
+        final Location location = piece.getLocation();
+        final Alliance alliance = piece.getAlliance();
+        final boolean isOnBackRank = location.getY() == getBackRank(alliance);
+        switch (piece.getPieceType()) {
+            case KING:
+                boolean canCastle = false;
+                for (final boolean isCastlingRookFile : castlingRookFiles) {
+                    canCastle |= isCastlingRookFile;
+                }
+                return King.createKing(location, alliance, canCastle && isOnBackRank);
+            case ROOK:
+                return Rook.createRook(location, alliance, isOnBackRank && castlingRookFiles[location.getX()]);
+            default:
+                return piece;
+        }
+    }
+
+    private static boolean isStandardCastling(final String castling) {
+        for (final char letter : castling.toCharArray()) {
+            if (STANDARD_CASTLING_LETTERS.indexOf(letter) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Alliance parseMoveMaker(final String moveMaker, final String fen) {
+        switch (moveMaker) {
+            case "w":
+                return Alliance.WHITE;
+            case "b":
+                return Alliance.BLACK;
+            default:
+                throw new IllegalArgumentException("Invalid side to move in FEN: " + fen);
+        }
+    }
+
+    private static int getCastlingRookX(final Piece[] mailbox, final Alliance alliance, final char letter,
+                                        final String fen) {
+        final int backRank = getBackRank(alliance);
+        final int kingX = getKingX(mailbox, alliance, fen);
+        if (letter == 'k' || letter == 'q') {
+            //X-FEN: the outermost rook on the given side of the king
+            final int step = letter == 'k' ? 1 : -1;
+            int rookX = -1;
+            for (int x = kingX + step; BoardUtils.isValidFile(x); x += step) {
+                if (isOwnRook(mailbox[BoardUtils.getTileIndex(x, backRank)], alliance)) {
+                    rookX = x;
+                }
+            }
+            if (rookX < 0) {
+                throw new IllegalArgumentException("No castling rook for '" + letter + "' in FEN: " + fen);
+            }
+            return rookX;
+        }
+        final int rookX = letter - 'a';
+        if (!BoardUtils.isValidFile(rookX) || !isOwnRook(mailbox[BoardUtils.getTileIndex(rookX, backRank)], alliance)) {
+            throw new IllegalArgumentException("No castling rook for '" + letter + "' in FEN: " + fen);
+        }
+        return rookX;
+    }
+
+    private static int getKingX(final Piece[] mailbox, final Alliance alliance, final String fen) {
+        final int backRank = getBackRank(alliance);
+        for (int x = 0; x < BoardUtils.BOARD_SIZE; ++x) {
+            final Piece piece = mailbox[BoardUtils.getTileIndex(x, backRank)];
+            if (piece != null && piece.getPieceType().isKing() && piece.getAlliance() == alliance) {
+                return x;
+            }
+        }
+        throw new IllegalArgumentException("Castling king is not on its back rank in FEN: " + fen);
+    }
+
+    private static boolean isOwnRook(final Piece piece, final Alliance alliance) {
+        return piece != null && piece.getPieceType().isRook() && piece.getAlliance() == alliance;
+    }
+
+    private static int getBackRank(final Alliance alliance) {
+        return alliance.isWhite() ? BoardUtils.FIRST_RANK : BoardUtils.EIGHTH_RANK;
+    }
+}
@@ -0,0 +1,113 @@
+package com.igorternyuk.engine.board;
+
+import com.igorternyuk.engine.moves.Move;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Created by igor on 17.12.18.
+ *
+ * Fixed-capacity buffer of packed moves. The search keeps one list per ply and refills it at every node,
+ * so generating moves does not allocate anything.
+ */
+public final class MoveList {
+    private final int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(SearchBoard.MAX_MOVES);
+    }
+
+    public MoveList(final int capacity) {
+        this.moves = new int[capacity];
+        this.size = 0;
+    }
+
+    public static MoveList[] createPlyMoveLists() {
+        final MoveList[] moveLists = new MoveList[SearchBoard.MAX_SEARCH_PLY];
+        for (int ply = 0; ply < moveLists.length; ++ply) {
+            moveLists[ply] = new MoveList();
+        }
+        return moveLists;
+    }
+
+    public void add(final int move) {
+        this.moves[this.size++] = move;
+    }
+
+    public int get(final int index) {
+        return this.moves[index];
+    }
+
+    public void set(final int index, final int move) {
+        this.moves[index] = move;
+    }
+
+    public void swap(final int first, final int second) {
+        final int move = this.moves[first];
+        this.moves[first] = this.moves[second];
+        this.moves[second] = move;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public void clear() {
+        this.size = 0;
+    }
+
+    public int indexOf(final int move) {
+        final int moveKey = SearchBoard.getMoveKey(move);
+        for (int i = 0; i < this.size; ++i) {
+            if (SearchBoard.getMoveKey(this.moves[i]) == moveKey) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(final int move) {
+        return indexOf(move) >= 0;
+    }
+
+    //Moves the given move to the head of the list keeping the relative order of the others
+    public boolean moveToFront(final int move) {
+        if (move == SearchBoard.NULL_MOVE) {
+            return false;
+        }
+        final int index = indexOf(move);
+        if (index < 0) {
+            return false;
+        }
+        final int foundMove = this.moves[index];
+        System.arraycopy(this.moves, 0, this.moves, 1, index);
+        this.moves[0] = foundMove;
+        return true;
+    }
+
+    public List<Move> toMoves(final Board board) {
+        final List<Move> convertedMoves = new ArrayList<>(this.size);
+        for (int i = 0; i < this.size; ++i) {
+            convertedMoves.add(SearchBoard.decodeMove(board, this.moves[i]));
+        }
+        return convertedMoves;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < this.size; ++i) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(SearchBoard.toString(this.moves[i]));
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,49 @@
+package com.igorternyuk.engine.board;
+
+import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.pieces.Pawn;
+import com.igorternyuk.engine.pieces.Piece;
+import com.igorternyuk.engine.pieces.PieceType;
+
+/**
+ * Created by igor on 18.12.18.
+ *
+ * Read-only view of the pieces and the state the evaluation looks at. Board and SearchBoard both implement it,
+ * so the search can evaluate its mutable position in place instead of building a Board at every leaf.
+ */
+public interface Position {
+    Piece getPiece(int tileIndex);
+
+    long getPieceBitBoard(PieceType pieceType, Alliance alliance);
+
+    long getOccupancy(Alliance alliance);
+
+    long getAllOccupancy();
+
+    //The pawn that has just made a double step, null if there is none
+    Pawn getEnPassantPawn();
+
+    boolean isInCheck(Alliance alliance);
+
+    boolean isTileAttacked(int tileIndex, Alliance attacker);
+
+    GameType getGameType();
+
+    int getKingsRookStartCoordinateX();
+
+    int getQueensRookStartCoordinateX();
+
+    //Material plus piece-square bonuses of the pieces of the given side, as they count in the middlegame
+    int getMiddleGameScore(Alliance alliance);
+
+    //Material plus piece-square bonuses of the pieces of the given side, as they count in the endgame
+    int getEndGameScore(Alliance alliance);
+
+    //Board.MAX_PHASE while every piece of the opening is on the board, down to 0 when only kings and pawns are left
+    int getPhase();
+
+    //Weighs the middlegame score by the phase and the endgame score by what the trades have taken off the board
+    default int blendScores(final int middleGameScore, final int endGameScore) {
+        return (middleGameScore * getPhase() + endGameScore * (Board.MAX_PHASE - getPhase())) / Board.MAX_PHASE;
+    }
+}
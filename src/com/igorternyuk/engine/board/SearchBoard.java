@@ -0,0 +1,884 @@
+package com.igorternyuk.engine.board;
+
+import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.moves.Move;
+import com.igorternyuk.engine.moves.MoveStatus;
+import com.igorternyuk.engine.moves.PawnJump;
+import com.igorternyuk.engine.moves.PawnPromotion;
+import com.igorternyuk.engine.pieces.*;
+
+/**
+ * Created by igor on 15.12.18.
+ *
+ * Mutable position used by the search. Moves are packed into ints and applied in place with makeMove/unmakeMove,
+ * so visiting a node does not build a new Board, new players or new move collections.
+ * Move generation and castling rules follow Board and Player exactly, including the order of generated moves.
+ *
+ * Packed move layout: origin (bits 0-5), destination (bits 6-11), move type (bits 12-15), promoted piece type
+ * (bits 16-18), moved piece type (bits 19-21) and captured piece type plus one (bits 22-24, zero if nothing is
+ * captured). The lowest 19 bits identify a move in a given position and are what the hash tables keep.
+ */
+public final class SearchBoard implements Position {
+    public static final int MAX_SEARCH_PLY = 128;
+    public static final int MAX_MOVES = 256;
+    public static final int NULL_MOVE = 0;
+
+    public static final int QUIET_MOVE = 0;
+    public static final int PAWN_JUMP = 1;
+    public static final int KINGS_SIDE_CASTLING = 2;
+    public static final int QUEENS_SIDE_CASTLING = 3;
+    public static final int CAPTURING_MOVE = 4;
+    public static final int EN_PASSANT_CAPTURE = 5;
+    public static final int PAWN_PROMOTION = 6;
+    public static final int CAPTURING_PAWN_PROMOTION = 7;
+
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int DESTINATION_SHIFT = 6;
+    private static final int MOVE_TYPE_SHIFT = 12;
+    private static final int MOVE_TYPE_MASK = 0xF;
+    private static final int PROMOTED_PIECE_SHIFT = 16;
+    private static final int MOVED_PIECE_SHIFT = 19;
+    private static final int CAPTURED_PIECE_SHIFT = 22;
+    private static final int PIECE_TYPE_MASK = 0x7;
+    private static final int MOVE_KEY_MASK = (1 << MOVED_PIECE_SHIFT) - 1;
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+    private static final int NO_SQUARE = -1;
+    private static final int KINGS_SIDE_KING_DESTINATION_X = 6;
+    private static final int KINGS_SIDE_ROOK_DESTINATION_X = 5;
+    private static final int QUEENS_SIDE_KING_DESTINATION_X = 2;
+    private static final int QUEENS_SIDE_ROOK_DESTINATION_X = 3;
+    private static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+    private static final int[][] ROOK_DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    private static final int[][] QUEEN_DIRECTIONS = {
+            {-1, -1}, {-1, 1}, {1, -1}, {1, 1}, {-1, 0}, {1, 0}, {0, -1}, {0, 1}
+    };
+    //The order in which the static exchange evaluation brings the attackers in
+    private static final PieceType[] LEAST_VALUABLE_FIRST = {
+            PieceType.PAWN, PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN, PieceType.KING
+    };
+    private static final int MAX_EXCHANGE_LENGTH = 32;
+    private static final PieceType[] PROMOTION_PIECE_TYPES = {
+            PieceType.QUEEN, PieceType.ROOK, PieceType.KNIGHT, PieceType.BISHOP
+    };
+    private static final Piece[][] MOVED_PIECES = createMovedPieces();
+
+    private final Board rootBoard;
+    private final GameType gameType;
+    private final int kingsRookStartCoordinateX;
+    private final int queensRookStartCoordinateX;
+    private final Piece[] mailbox = new Piece[BoardUtils.TOTAL_NUMBER_OF_TILES];
+    private final long[] pieceBitBoards = new long[BitBoards.NUMBER_OF_PIECE_INDICES];
+    private final long[] occupancy = new long[Alliance.values().length];
+    private long allOccupancy;
+    private Alliance sideToMove;
+    private int enPassantSquare;
+    private int castlingRights;
+    private long zobristKey;
+    private final int[] middleGameScores = new int[Alliance.values().length];
+    private final int[] endGameScores = new int[Alliance.values().length];
+    private int phase;
+    private int ply;
+    private final int[] moveHistory = new int[MAX_SEARCH_PLY];
+    private final Piece[] movedPieceHistory = new Piece[MAX_SEARCH_PLY];
+    private final Piece[] capturedPieceHistory = new Piece[MAX_SEARCH_PLY];
+    private final int[] enPassantHistory = new int[MAX_SEARCH_PLY];
+    private final int[] castlingRightsHistory = new int[MAX_SEARCH_PLY];
+    private final long[] zobristKeyHistory = new long[MAX_SEARCH_PLY];
+    private final MoveList escapeMoves = new MoveList();
+    private final int[] exchangeGains = new int[MAX_EXCHANGE_LENGTH];
+
+    public SearchBoard(final Board board) {
+        this.rootBoard = board;
+        this.gameType = board.getGameType();
+        this.kingsRookStartCoordinateX = board.getKingsRookStartCoordinateX();
+        this.queensRookStartCoordinateX = board.getQueensRookStartCoordinateX();
+        for (long pieces = board.getAllOccupancy(); pieces != BitBoards.EMPTY; pieces = BitBoards.clearFirst(pieces)) {
+            final int index = BitBoards.firstIndex(pieces);
+            putPiece(board.getPiece(index), index);
+        }
+        this.sideToMove = board.getCurrentPlayer().getAlliance();
+        this.enPassantSquare = board.getEnPassantPawn() != null
+                ? BoardUtils.getTileIndex(board.getEnPassantPawn().getLocation())
+                : NO_SQUARE;
+        this.castlingRights = board.getCastlingRights();
+        this.zobristKey = board.getZobristKey();
+        this.ply = 0;
+    }
+
+    //An independent copy of the position and of the moves made so far, for searching another line in parallel
+    public SearchBoard(final SearchBoard other) {
+        this.rootBoard = other.rootBoard;
+        this.gameType = other.gameType;
+        this.kingsRookStartCoordinateX = other.kingsRookStartCoordinateX;
+        this.queensRookStartCoordinateX = other.queensRookStartCoordinateX;
+        System.arraycopy(other.mailbox, 0, this.mailbox, 0, this.mailbox.length);
+        System.arraycopy(other.pieceBitBoards, 0, this.pieceBitBoards, 0, this.pieceBitBoards.length);
+        System.arraycopy(other.occupancy, 0, this.occupancy, 0, this.occupancy.length);
+        this.allOccupancy = other.allOccupancy;
+        this.sideToMove = other.sideToMove;
+        this.enPassantSquare = other.enPassantSquare;
+        this.castlingRights = other.castlingRights;
+        this.zobristKey = other.zobristKey;
+        System.arraycopy(other.middleGameScores, 0, this.middleGameScores, 0, this.middleGameScores.length);
+        System.arraycopy(other.endGameScores, 0, this.endGameScores, 0, this.endGameScores.length);
+        this.phase = other.phase;
+        this.ply = other.ply;
+        System.arraycopy(other.moveHistory, 0, this.moveHistory, 0, this.ply);
+        System.arraycopy(other.movedPieceHistory, 0, this.movedPieceHistory, 0, this.ply);
+        System.arraycopy(other.capturedPieceHistory, 0, this.capturedPieceHistory, 0, this.ply);
+        System.arraycopy(other.enPassantHistory, 0, this.enPassantHistory, 0, this.ply);
+        System.arraycopy(other.castlingRightsHistory, 0, this.castlingRightsHistory, 0, this.ply);
+        System.arraycopy(other.zobristKeyHistory, 0, this.zobristKeyHistory, 0, this.ply);
+    }
+
+    public Alliance getSideToMove() {
+        return this.sideToMove;
+    }
+
+    public long getZobristKey() {
+        return this.zobristKey;
+    }
+
+    //Material plus piece-square bonuses, kept up to date by every piece put on or taken off the board
+    @Override
+    public int getMiddleGameScore(final Alliance alliance) {
+        return this.middleGameScores[alliance.ordinal()];
+    }
+
+    @Override
+    public int getEndGameScore(final Alliance alliance) {
+        return this.endGameScores[alliance.ordinal()];
+    }
+
+    @Override
+    public int getPhase() {
+        return Math.min(this.phase, Board.MAX_PHASE);
+    }
+
+    public int getPly() {
+        return this.ply;
+    }
+
+    //The move that led to this position, or the null move at the root
+    public int getLastMove() {
+        return this.ply == 0 ? NULL_MOVE : this.moveHistory[this.ply - 1];
+    }
+
+    @Override
+    public Piece getPiece(final int tileIndex) {
+        return this.mailbox[tileIndex];
+    }
+
+    @Override
+    public long getPieceBitBoard(final PieceType pieceType, final Alliance alliance) {
+        return this.pieceBitBoards[BitBoards.pieceIndex(pieceType, alliance)];
+    }
+
+    @Override
+    public long getOccupancy(final Alliance alliance) {
+        return this.occupancy[alliance.ordinal()];
+    }
+
+    @Override
+    public long getAllOccupancy() {
+        return this.allOccupancy;
+    }
+
+    @Override
+    public Pawn getEnPassantPawn() {
+        return this.enPassantSquare == NO_SQUARE ? null : (Pawn) this.mailbox[this.enPassantSquare];
+    }
+
+    @Override
+    public GameType getGameType() {
+        return this.gameType;
+    }
+
+    @Override
+    public int getKingsRookStartCoordinateX() {
+        return this.kingsRookStartCoordinateX;
+    }
+
+    @Override
+    public int getQueensRookStartCoordinateX() {
+        return this.queensRookStartCoordinateX;
+    }
+
+    public Piece getMovedPiece(final int move) {
+        return this.mailbox[getOrigin(move)];
+    }
+
+    public Piece getCapturedPiece(final int move) {
+        final int moveType = getMoveType(move);
+        if (moveType == EN_PASSANT_CAPTURE) {
+            return this.mailbox[this.enPassantSquare];
+        }
+        return moveType == CAPTURING_MOVE || moveType == CAPTURING_PAWN_PROMOTION
+                ? this.mailbox[getDestination(move)]
+                : null;
+    }
+
+    public boolean isInsufficientMaterial() {
+        return Board.isInsufficientMaterial(this.pieceBitBoards, this.occupancy[Alliance.WHITE.ordinal()],
+                this.occupancy[Alliance.BLACK.ordinal()]);
+    }
+
+    public boolean isInCheck() {
+        return isInCheck(this.sideToMove);
+    }
+
+    @Override
+    public boolean isInCheck(final Alliance alliance) {
+        final long king = this.pieceBitBoards[BitBoards.pieceIndex(PieceType.KING, alliance)];
+        return king != BitBoards.EMPTY && isTileAttacked(BitBoards.firstIndex(king), opposite(alliance));
+    }
+
+    public boolean isCheckMate() {
+        return isInCheck() && !hasLegalMoves();
+    }
+
+    public boolean hasLegalMoves() {
+        generateMoves(this.escapeMoves);
+        for (int i = 0; i < this.escapeMoves.size(); ++i) {
+            if (makeMove(this.escapeMoves.get(i)).isDone()) {
+                unmakeMove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isTileAttacked(final int tileIndex, final Alliance attacker) {
+        return BitBoards.isTileAttacked(this.pieceBitBoards, this.allOccupancy, tileIndex, attacker);
+    }
+
+    public void generateMoves(final MoveList moves) {
+        moves.clear();
+        generateMoves(moves, ~this.occupancy[this.sideToMove.ordinal()], true, true);
+        addCastles(moves);
+    }
+
+    //Captures, en passant captures and promotions only
+    public void generateTacticalMoves(final MoveList moves) {
+        moves.clear();
+        generateMoves(moves, this.occupancy[opposite(this.sideToMove).ordinal()], true, false);
+    }
+
+    //Every move generateTacticalMoves leaves out
+    public void generateQuietMoves(final MoveList moves) {
+        moves.clear();
+        generateMoves(moves, ~this.allOccupancy, false, true);
+        addCastles(moves);
+    }
+
+    //The generated move with the same key, or the null move if there is none: checks a move taken from the
+    //transposition table or from another position and restores the piece types it does not keep
+    public int findMove(final int move) {
+        final Piece piece = this.mailbox[getOrigin(move)];
+        if (move == NULL_MOVE || piece == null || piece.getAlliance() != this.sideToMove) {
+            return NULL_MOVE;
+        }
+        final MoveList moves = this.escapeMoves;
+        moves.clear();
+        if (isCastlingMove(move)) {
+            addCastles(moves);
+        } else {
+            addPieceMoves(piece, getOrigin(move), ~this.occupancy[this.sideToMove.ordinal()], true, true, moves);
+        }
+        final int index = moves.indexOf(move);
+        return index < 0 ? NULL_MOVE : moves.get(index);
+    }
+
+    private void generateMoves(final MoveList moves, final long targets, final boolean isTactical,
+                               final boolean isQuiet) {
+        for (long pieces = this.occupancy[this.sideToMove.ordinal()]; pieces != BitBoards.EMPTY;
+             pieces = BitBoards.clearFirst(pieces)) {
+            final int from = BitBoards.firstIndex(pieces);
+            addPieceMoves(this.mailbox[from], from, targets, isTactical, isQuiet, moves);
+        }
+    }
+
+    private void addPieceMoves(final Piece piece, final int from, final long targets, final boolean isTactical,
+                               final boolean isQuiet, final MoveList moves) {
+        switch (piece.getPieceType()) {
+            case PAWN:
+                addPawnMoves(piece, from, isTactical, isQuiet, moves);
+                break;
+            case KNIGHT:
+                addJumpingMoves(from, PieceType.KNIGHT, BitBoards.KNIGHT_ATTACKS[from] & targets, moves);
+                break;
+            case BISHOP:
+                addSlidingMoves(from, PieceType.BISHOP, BISHOP_DIRECTIONS,
+                        BitBoards.bishopAttacks(from, this.allOccupancy) & targets, moves);
+                break;
+            case ROOK:
+                addSlidingMoves(from, PieceType.ROOK, ROOK_DIRECTIONS,
+                        BitBoards.rookAttacks(from, this.allOccupancy) & targets, moves);
+                break;
+            case QUEEN:
+                addSlidingMoves(from, PieceType.QUEEN, QUEEN_DIRECTIONS,
+                        BitBoards.queenAttacks(from, this.allOccupancy) & targets, moves);
+                break;
+            case KING:
+                addJumpingMoves(from, PieceType.KING, BitBoards.KING_ATTACKS[from] & targets, moves);
+                break;
+        }
+    }
+
+    public MoveStatus makeMove(final int move) {
+        final Alliance moveMaker = this.sideToMove;
+        doMove(move);
+        if (isInCheck(moveMaker)) {
+            unmakeMove();
+            return MoveStatus.KING_IS_UNDER_CHECK;
+        }
+        return MoveStatus.DONE;
+    }
+
+    public void unmakeMove() {
+        --this.ply;
+        this.sideToMove = opposite(this.sideToMove);
+        final int move = this.moveHistory[this.ply];
+        final int from = getOrigin(move);
+        final int to = getDestination(move);
+        final Piece movedPiece = this.movedPieceHistory[this.ply];
+        final Piece capturedPiece = this.capturedPieceHistory[this.ply];
+        this.enPassantSquare = this.enPassantHistory[this.ply];
+        this.castlingRights = this.castlingRightsHistory[this.ply];
+        switch (getMoveType(move)) {
+            case KINGS_SIDE_CASTLING:
+            case QUEENS_SIDE_CASTLING:
+                removePiece(to);
+                removePiece(getCastledRookEndSquare(move));
+                putPiece(movedPiece, from);
+                putPiece(capturedPiece, BoardUtils.getTileIndex(capturedPiece.getLocation()));
+                break;
+            case EN_PASSANT_CAPTURE:
+                removePiece(to);
+                putPiece(movedPiece, from);
+                putPiece(capturedPiece, this.enPassantSquare);
+                break;
+            default:
+                removePiece(to);
+                putPiece(movedPiece, from);
+                if (capturedPiece != null) {
+                    putPiece(capturedPiece, to);
+                }
+        }
+        this.zobristKey = this.zobristKeyHistory[this.ply];
+    }
+
+    //Passes the turn, the null move is recorded as the last move
+    public void makeNullMove() {
+        this.moveHistory[this.ply] = NULL_MOVE;
+        this.movedPieceHistory[this.ply] = null;
+        this.capturedPieceHistory[this.ply] = null;
+        this.enPassantHistory[this.ply] = this.enPassantSquare;
+        this.castlingRightsHistory[this.ply] = this.castlingRights;
+        this.zobristKeyHistory[this.ply] = this.zobristKey;
+        if (this.enPassantSquare != NO_SQUARE) {
+            this.zobristKey ^= Zobrist.getEnPassantKey(this.enPassantSquare);
+            this.enPassantSquare = NO_SQUARE;
+        }
+        this.zobristKey ^= Zobrist.getSideToMoveKey();
+        this.sideToMove = opposite(this.sideToMove);
+        ++this.ply;
+    }
+
+    public void unmakeNullMove() {
+        --this.ply;
+        this.sideToMove = opposite(this.sideToMove);
+        this.enPassantSquare = this.enPassantHistory[this.ply];
+        this.zobristKey = this.zobristKeyHistory[this.ply];
+    }
+
+    //Pieces other than pawns and the king: without them passing the turn is often the best move there is
+    public boolean hasNonPawnMaterial(final Alliance alliance) {
+        return (this.occupancy[alliance.ordinal()]
+                & ~this.pieceBitBoards[BitBoards.pieceIndex(PieceType.PAWN, alliance)]
+                & ~this.pieceBitBoards[BitBoards.pieceIndex(PieceType.KING, alliance)]) != BitBoards.EMPTY;
+    }
+
+    public boolean givesCheck(final int move) {
+        doMove(move);
+        final boolean isCheck = isInCheck(this.sideToMove);
+        unmakeMove();
+        return isCheck;
+    }
+
+    //Static exchange evaluation: the material the side to move wins when both sides keep capturing on the
+    //destination with their least valuable attacker for as long as it pays. Sliders behind a capturer join in.
+    public int evaluateExchange(final int move) {
+        final int to = getDestination(move);
+        final int[] gains = this.exchangeGains;
+        final PieceType capturedPieceType = getCapturedPieceType(move);
+        PieceType attackerType = getMovedPieceType(move);
+        gains[0] = capturedPieceType == null ? 0 : capturedPieceType.getValue();
+        if (isPawnPromotionMove(move)) {
+            attackerType = getPromotedPieceType(move);
+            gains[0] += attackerType.getValue() - PieceType.PAWN.getValue();
+        }
+        long occupancy = this.allOccupancy;
+        if (getMoveType(move) == EN_PASSANT_CAPTURE) {
+            occupancy ^= BitBoards.squareMask(this.enPassantSquare);
+        }
+        long attacker = BitBoards.squareMask(getOrigin(move));
+        Alliance side = this.sideToMove;
+        int depth = 0;
+        do {
+            ++depth;
+            //What the side that has just captured keeps if the piece it moved is taken in turn
+            gains[depth] = attackerType.getValue() - gains[depth - 1];
+            if (Math.max(-gains[depth - 1], gains[depth]) < 0 || depth == MAX_EXCHANGE_LENGTH - 1) {
+                break;
+            }
+            occupancy ^= attacker;
+            side = opposite(side);
+            final long attackers = BitBoards.getAttackers(this.pieceBitBoards, occupancy, to)
+                    & occupancy & this.occupancy[side.ordinal()];
+            attacker = BitBoards.EMPTY;
+            for (final PieceType pieceType : LEAST_VALUABLE_FIRST) {
+                final long pieces = attackers & this.pieceBitBoards[BitBoards.pieceIndex(pieceType, side)];
+                if (pieces != BitBoards.EMPTY) {
+                    attacker = pieces & -pieces;
+                    attackerType = pieceType;
+                    break;
+                }
+            }
+        } while (attacker != BitBoards.EMPTY);
+        while (--depth > 0) {
+            gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+        }
+        return gains[0];
+    }
+
+    public Board toBoard() {
+        final Board.Builder builder = new Board.Builder();
+        for (long pieces = this.allOccupancy; pieces != BitBoards.EMPTY; pieces = BitBoards.clearFirst(pieces)) {
+            builder.setPiece(this.mailbox[BitBoards.firstIndex(pieces)]);
+        }
+        if (this.enPassantSquare != NO_SQUARE) {
+            builder.setEnPassantPawn((Pawn) this.mailbox[this.enPassantSquare]);
+        }
+        builder.setGameType(this.gameType);
+        builder.setKingsRookStartCoordinateX(this.kingsRookStartCoordinateX);
+        builder.setQueensRookStartCoordinateX(this.queensRookStartCoordinateX);
+        builder.setMoveMaker(this.sideToMove);
+        builder.setZobristKey(this.zobristKey);
+        builder.setCastlingRights(this.castlingRights);
+        builder.setScores(this.middleGameScores, this.endGameScores, this.phase);
+        return builder.build();
+    }
+
+    public static int createMove(final int from, final int to, final int moveType, final PieceType movedPieceType,
+                                 final PieceType capturedPieceType) {
+        return from | (to << DESTINATION_SHIFT) | (moveType << MOVE_TYPE_SHIFT)
+                | (movedPieceType.ordinal() << MOVED_PIECE_SHIFT)
+                | (capturedPieceType == null ? 0 : (capturedPieceType.ordinal() + 1) << CAPTURED_PIECE_SHIFT);
+    }
+
+    public static int createPromotion(final int from, final int to, final PieceType capturedPieceType,
+                                      final PieceType promotedPieceType) {
+        return createMove(from, to, capturedPieceType == null ? PAWN_PROMOTION : CAPTURING_PAWN_PROMOTION,
+                PieceType.PAWN, capturedPieceType) | (promotedPieceType.ordinal() << PROMOTED_PIECE_SHIFT);
+    }
+
+    //Origin, destination, type and promoted piece: enough to find the move again among the generated ones
+    public static int getMoveKey(final int move) {
+        return move & MOVE_KEY_MASK;
+    }
+
+    public static int getOrigin(final int move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static int getDestination(final int move) {
+        return (move >>> DESTINATION_SHIFT) & SQUARE_MASK;
+    }
+
+    public static int getMoveType(final int move) {
+        return (move >>> MOVE_TYPE_SHIFT) & MOVE_TYPE_MASK;
+    }
+
+    public static PieceType getPromotedPieceType(final int move) {
+        return PIECE_TYPES[(move >>> PROMOTED_PIECE_SHIFT) & PIECE_TYPE_MASK];
+    }
+
+    public static PieceType getMovedPieceType(final int move) {
+        return PIECE_TYPES[(move >>> MOVED_PIECE_SHIFT) & PIECE_TYPE_MASK];
+    }
+
+    public static PieceType getCapturedPieceType(final int move) {
+        final int capturedPieceType = (move >>> CAPTURED_PIECE_SHIFT) & PIECE_TYPE_MASK;
+        return capturedPieceType == 0 ? null : PIECE_TYPES[capturedPieceType - 1];
+    }
+
+    public static boolean isCapturingMove(final int move) {
+        final int moveType = getMoveType(move);
+        return moveType == CAPTURING_MOVE || moveType == EN_PASSANT_CAPTURE;
+    }
+
+    //Neither a capture nor a promotion
+    public static boolean isQuietMove(final int move) {
+        return !isCapturingMove(move) && !isPawnPromotionMove(move);
+    }
+
+    public static boolean isCastlingMove(final int move) {
+        final int moveType = getMoveType(move);
+        return moveType == KINGS_SIDE_CASTLING || moveType == QUEENS_SIDE_CASTLING;
+    }
+
+    public static boolean isPawnPromotionMove(final int move) {
+        final int moveType = getMoveType(move);
+        return moveType == PAWN_PROMOTION || moveType == CAPTURING_PAWN_PROMOTION;
+    }
+
+    public static int encodeMove(final Move move) {
+        if (move == Move.MoveFactory.NULL_MOVE) {
+            return NULL_MOVE;
+        }
+        final int from = BoardUtils.getTileIndex(move.getMovedPiece().getLocation());
+        final int to = BoardUtils.getTileIndex(move.getDestination());
+        final PieceType movedPieceType = move.getMovedPiece().getPieceType();
+        if (move.isKingSideCastling()) {
+            return createMove(from, to, KINGS_SIDE_CASTLING, movedPieceType, null);
+        } else if (move.isQueenSideCastling()) {
+            return createMove(from, to, QUEENS_SIDE_CASTLING, movedPieceType, null);
+        } else if (move.isPawnPromotionMove()) {
+            final Piece capturedPiece = move.getBoard().getPiece(to);
+            return createPromotion(from, to, capturedPiece != null ? capturedPiece.getPieceType() : null,
+                    ((PawnPromotion) move).getPromotedPiece().getPieceType());
+        } else if (move.isEnPassantCapture()) {
+            return createMove(from, to, EN_PASSANT_CAPTURE, movedPieceType, PieceType.PAWN);
+        } else if (move.isCapturingMove()) {
+            return createMove(from, to, CAPTURING_MOVE, movedPieceType, move.getCapturedPiece().getPieceType());
+        } else if (move instanceof PawnJump) {
+            return createMove(from, to, PAWN_JUMP, movedPieceType, null);
+        }
+        return createMove(from, to, QUIET_MOVE, movedPieceType, null);
+    }
+
+    public static Move decodeMove(final Board board, final int move) {
+        final int moveKey = getMoveKey(move);
+        for (final Move candidate : board.getCurrentPlayer().getLegalMoves()) {
+            if (getMoveKey(encodeMove(candidate)) == moveKey) {
+                return candidate;
+            }
+        }
+        return Move.MoveFactory.NULL_MOVE;
+    }
+
+    //Coordinate notation such as e2e4 or e7e8q
+    public static String toString(final int move) {
+        if (move == NULL_MOVE) {
+            return "0000";
+        }
+        final String notation = BoardUtils.getAlgebraicNotationFromLocation(BoardUtils.getLocation(getOrigin(move)))
+                + BoardUtils.getAlgebraicNotationFromLocation(BoardUtils.getLocation(getDestination(move)));
+        return isPawnPromotionMove(move)
+                ? notation + getPromotedPieceType(move).getName()
+                : notation;
+    }
+
+    private void doMove(final int move) {
+        final int from = getOrigin(move);
+        final int to = getDestination(move);
+        final int moveType = getMoveType(move);
+        final Piece movedPiece = this.mailbox[from];
+        final int pieceIndex = BitBoards.pieceIndex(movedPiece.getPieceType(), this.sideToMove);
+        final Piece capturedPiece;
+        this.moveHistory[this.ply] = move;
+        this.movedPieceHistory[this.ply] = movedPiece;
+        this.enPassantHistory[this.ply] = this.enPassantSquare;
+        this.castlingRightsHistory[this.ply] = this.castlingRights;
+        this.zobristKeyHistory[this.ply] = this.zobristKey;
+        if (this.enPassantSquare != NO_SQUARE) {
+            this.zobristKey ^= Zobrist.getEnPassantKey(this.enPassantSquare);
+        }
+        switch (moveType) {
+            case KINGS_SIDE_CASTLING:
+            case QUEENS_SIDE_CASTLING:
+                final int rookStartSquare = getCastledRookStartSquare(move);
+                final int rookEndSquare = getCastledRookEndSquare(move);
+                capturedPiece = this.mailbox[rookStartSquare];
+                removePiece(from);
+                removePiece(rookStartSquare);
+                putPiece(MOVED_PIECES[pieceIndex][to], to);
+                putPiece(MOVED_PIECES[BitBoards.pieceIndex(PieceType.ROOK, this.sideToMove)][rookEndSquare],
+                        rookEndSquare);
+                break;
+            case EN_PASSANT_CAPTURE:
+                capturedPiece = this.mailbox[this.enPassantSquare];
+                removePiece(this.enPassantSquare);
+                removePiece(from);
+                putPiece(MOVED_PIECES[pieceIndex][to], to);
+                break;
+            case PAWN_PROMOTION:
+            case CAPTURING_PAWN_PROMOTION:
+                capturedPiece = this.mailbox[to];
+                if (capturedPiece != null) {
+                    removePiece(to);
+                }
+                removePiece(from);
+                putPiece(MOVED_PIECES[BitBoards.pieceIndex(getPromotedPieceType(move), this.sideToMove)][to], to);
+                break;
+            default:
+                capturedPiece = this.mailbox[to];
+                if (capturedPiece != null) {
+                    removePiece(to);
+                }
+                removePiece(from);
+                putPiece(MOVED_PIECES[pieceIndex][to], to);
+        }
+        this.capturedPieceHistory[this.ply] = capturedPiece;
+        this.enPassantSquare = moveType == PAWN_JUMP ? to : NO_SQUARE;
+        if (this.enPassantSquare != NO_SQUARE) {
+            this.zobristKey ^= Zobrist.getEnPassantKey(this.enPassantSquare);
+        }
+        final int updatedCastlingRights = Zobrist.updateCastlingRights(this.castlingRights, this.rootBoard,
+                movedPiece, from, to);
+        this.zobristKey ^= Zobrist.getCastlingRightsKey(this.castlingRights)
+                ^ Zobrist.getCastlingRightsKey(updatedCastlingRights)
+                ^ Zobrist.getSideToMoveKey();
+        this.castlingRights = updatedCastlingRights;
+        this.sideToMove = opposite(this.sideToMove);
+        ++this.ply;
+    }
+
+    private int getCastledRookStartSquare(final int move) {
+        final int backRank = BoardUtils.getTileY(getOrigin(move));
+        if (getMoveType(move) == KINGS_SIDE_CASTLING) {
+            return BoardUtils.getTileIndex(this.gameType.isClassicChess()
+                    ? BoardUtils.BOARD_SIZE - 1
+                    : this.kingsRookStartCoordinateX, backRank);
+        }
+        return BoardUtils.getTileIndex(this.gameType.isClassicChess() ? 0 : this.queensRookStartCoordinateX,
+                backRank);
+    }
+
+    private static int getCastledRookEndSquare(final int move) {
+        final int backRank = BoardUtils.getTileY(getOrigin(move));
+        return getMoveType(move) == KINGS_SIDE_CASTLING
+                ? BoardUtils.getTileIndex(KINGS_SIDE_ROOK_DESTINATION_X, backRank)
+                : BoardUtils.getTileIndex(QUEENS_SIDE_ROOK_DESTINATION_X, backRank);
+    }
+
+    private void putPiece(final Piece piece, final int tileIndex) {
+        final long mask = BitBoards.squareMask(tileIndex);
+        this.mailbox[tileIndex] = piece;
+        this.zobristKey ^= Zobrist.getPieceKey(piece.getPieceType(), piece.getAlliance(), tileIndex);
+        this.pieceBitBoards[BitBoards.pieceIndex(piece.getPieceType(), piece.getAlliance())] |= mask;
+        this.occupancy[piece.getAlliance().ordinal()] |= mask;
+        this.allOccupancy |= mask;
+        this.middleGameScores[piece.getAlliance().ordinal()] += piece.getMiddleGameValue();
+        this.endGameScores[piece.getAlliance().ordinal()] += piece.getEndGameValue();
+        this.phase += Board.getPhaseWeight(piece.getPieceType());
+    }
+
+    private void removePiece(final int tileIndex) {
+        final Piece piece = this.mailbox[tileIndex];
+        final long mask = ~BitBoards.squareMask(tileIndex);
+        this.mailbox[tileIndex] = null;
+        this.zobristKey ^= Zobrist.getPieceKey(piece.getPieceType(), piece.getAlliance(), tileIndex);
+        this.pieceBitBoards[BitBoards.pieceIndex(piece.getPieceType(), piece.getAlliance())] &= mask;
+        this.occupancy[piece.getAlliance().ordinal()] &= mask;
+        this.allOccupancy &= mask;
+        this.middleGameScores[piece.getAlliance().ordinal()] -= piece.getMiddleGameValue();
+        this.endGameScores[piece.getAlliance().ordinal()] -= piece.getEndGameValue();
+        this.phase -= Board.getPhaseWeight(piece.getPieceType());
+    }
+
+    private void addJumpingMoves(final int from, final PieceType pieceType, final long attacks,
+                                 final MoveList moves) {
+        for (long targets = attacks; targets != BitBoards.EMPTY; targets = BitBoards.clearFirst(targets)) {
+            moves.add(createPieceMove(from, BitBoards.firstIndex(targets), pieceType));
+        }
+    }
+
+    private void addSlidingMoves(final int from, final PieceType pieceType, final int[][] directions,
+                                 final long attacks, final MoveList moves) {
+        for (final int[] direction : directions) {
+            final boolean isAscending = direction[0] + direction[1] * BoardUtils.BOARD_SIZE > 0;
+            long rayTargets = attacks & BitBoards.ray(from, direction[0], direction[1]);
+            while (rayTargets != BitBoards.EMPTY) {
+                final int to = isAscending ? BitBoards.firstIndex(rayTargets) : BitBoards.lastIndex(rayTargets);
+                moves.add(createPieceMove(from, to, pieceType));
+                rayTargets &= ~BitBoards.squareMask(to);
+            }
+        }
+    }
+
+    private int createPieceMove(final int from, final int to, final PieceType pieceType) {
+        final Piece capturedPiece = this.mailbox[to];
+        return capturedPiece == null
+                ? createMove(from, to, QUIET_MOVE, pieceType, null)
+                : createMove(from, to, CAPTURING_MOVE, pieceType, capturedPiece.getPieceType());
+    }
+
+    private void addPawnMoves(final Piece pawn, final int from, final boolean isTactical, final boolean isQuiet,
+                              final MoveList moves) {
+        final int x = BoardUtils.getTileX(from);
+        final int destY = BoardUtils.getTileY(from) + this.sideToMove.getDirectionY();
+        if (!BoardUtils.isValidRank(destY)) {
+            return;
+        }
+        final boolean isPromotion = destY == (this.sideToMove.isWhite()
+                ? BoardUtils.EIGHTH_RANK
+                : BoardUtils.FIRST_RANK);
+        final int pushSquare = BoardUtils.getTileIndex(x, destY);
+        if (this.mailbox[pushSquare] == null) {
+            if (isPromotion) {
+                if (isTactical) {
+                    addPromotions(from, pushSquare, null, moves);
+                }
+            } else if (isQuiet) {
+                moves.add(createMove(from, pushSquare, QUIET_MOVE, PieceType.PAWN, null));
+                if (pawn.isFirstMove()) {
+                    final int jumpSquare = BoardUtils.getTileIndex(x, destY + this.sideToMove.getDirectionY());
+                    if (this.mailbox[jumpSquare] == null) {
+                        moves.add(createMove(from, jumpSquare, PAWN_JUMP, PieceType.PAWN, null));
+                    }
+                }
+            }
+        }
+        if (!isTactical) {
+            return;
+        }
+
+        for (long captures = BitBoards.pawnAttacks(this.sideToMove, from)
+                & this.occupancy[opposite(this.sideToMove).ordinal()];
+             captures != BitBoards.EMPTY; captures = BitBoards.clearFirst(captures)) {
+            final int to = BitBoards.firstIndex(captures);
+            final PieceType capturedPieceType = this.mailbox[to].getPieceType();
+            if (isPromotion) {
+                addPromotions(from, to, capturedPieceType, moves);
+            } else {
+                moves.add(createMove(from, to, CAPTURING_MOVE, PieceType.PAWN, capturedPieceType));
+            }
+        }
+
+        if (this.enPassantSquare != NO_SQUARE
+                && this.mailbox[this.enPassantSquare].getAlliance() != this.sideToMove
+                && BoardUtils.getTileY(this.enPassantSquare) == BoardUtils.getTileY(from)
+                && Math.abs(BoardUtils.getTileX(this.enPassantSquare) - x) == 1) {
+            final int to = BoardUtils.getTileIndex(BoardUtils.getTileX(this.enPassantSquare), destY);
+            if (this.mailbox[to] == null) {
+                moves.add(createMove(from, to, EN_PASSANT_CAPTURE, PieceType.PAWN, PieceType.PAWN));
+            }
+        }
+    }
+
+    private static void addPromotions(final int from, final int to, final PieceType capturedPieceType,
+                                      final MoveList moves) {
+        for (final PieceType promotedPieceType : PROMOTION_PIECE_TYPES) {
+            moves.add(createPromotion(from, to, capturedPieceType, promotedPieceType));
+        }
+    }
+
+    private void addCastles(final MoveList moves) {
+        final long kingBitBoard = this.pieceBitBoards[BitBoards.pieceIndex(PieceType.KING, this.sideToMove)];
+        if (kingBitBoard == BitBoards.EMPTY) {
+            return;
+        }
+        final int kingSquare = BitBoards.firstIndex(kingBitBoard);
+        final Piece king = this.mailbox[kingSquare];
+        final Alliance opponent = opposite(this.sideToMove);
+        if (!king.isFirstMove() || isTileAttacked(kingSquare, opponent)) {
+            return;
+        }
+        final int backRank = this.sideToMove.isWhite() ? BoardUtils.FIRST_RANK : BoardUtils.EIGHTH_RANK;
+        final int kingX = BoardUtils.getTileX(kingSquare);
+        final int kingsSideKingDestination = BoardUtils.getTileIndex(KINGS_SIDE_KING_DESTINATION_X, backRank);
+        final int kingsSideRookDestination = BoardUtils.getTileIndex(KINGS_SIDE_ROOK_DESTINATION_X, backRank);
+        final int queensSideKingDestination = BoardUtils.getTileIndex(QUEENS_SIDE_KING_DESTINATION_X, backRank);
+        final int queensSideRookDestination = BoardUtils.getTileIndex(QUEENS_SIDE_ROOK_DESTINATION_X, backRank);
+
+        if (this.gameType.isClassicChess()) {
+            if (this.mailbox[kingsSideRookDestination] == null && this.mailbox[kingsSideKingDestination] == null
+                    && isUnmovedRook(this.mailbox[BoardUtils.getTileIndex(BoardUtils.BOARD_SIZE - 1, backRank)])
+                    && !isTileAttacked(kingsSideRookDestination, opponent)
+                    && !isTileAttacked(kingsSideKingDestination, opponent)) {
+                moves.add(createCastling(kingSquare, kingsSideKingDestination, KINGS_SIDE_CASTLING));
+            }
+            if (this.mailbox[queensSideKingDestination] == null && this.mailbox[queensSideRookDestination] == null
+                    && this.mailbox[BoardUtils.getTileIndex(1, backRank)] == null
+                    && isUnmovedRook(this.mailbox[BoardUtils.getTileIndex(0, backRank)])
+                    && !isTileAttacked(queensSideKingDestination, opponent)
+                    && !isTileAttacked(queensSideRookDestination, opponent)) {
+                moves.add(createCastling(kingSquare, queensSideKingDestination, QUEENS_SIDE_CASTLING));
+            }
+            return;
+        }
+
+        final Piece kingsRook = this.mailbox[BoardUtils.getTileIndex(this.kingsRookStartCoordinateX, backRank)];
+        if (isUnmovedRook(kingsRook)
+                && isFreeForChess960Castling(kingsSideKingDestination, king, kingsRook)
+                && isFreeForChess960Castling(kingsSideRookDestination, king, kingsRook)) {
+            boolean isPathSafe = true;
+            for (int x = kingX + 1; x <= KINGS_SIDE_KING_DESTINATION_X && isPathSafe; ++x) {
+                isPathSafe = isSafeChess960PathTile(BoardUtils.getTileIndex(x, backRank), kingsRook, opponent);
+            }
+            if (isPathSafe) {
+                moves.add(createCastling(kingSquare, kingsSideKingDestination, KINGS_SIDE_CASTLING));
+            }
+        }
+
+        final Piece queensRook = this.mailbox[BoardUtils.getTileIndex(this.queensRookStartCoordinateX, backRank)];
+        if (isUnmovedRook(queensRook)
+                && isFreeForChess960Castling(queensSideKingDestination, king, queensRook)
+                && isFreeForChess960Castling(queensSideRookDestination, king, queensRook)) {
+            boolean isPathSafe = true;
+            for (int x = kingX - 1; x >= QUEENS_SIDE_KING_DESTINATION_X && isPathSafe; --x) {
+                isPathSafe = isSafeChess960PathTile(BoardUtils.getTileIndex(x, backRank), queensRook, opponent);
+            }
+            if (isPathSafe) {
+                moves.add(createCastling(kingSquare, queensSideKingDestination, QUEENS_SIDE_CASTLING));
+            }
+        }
+    }
+
+    private static int createCastling(final int kingSquare, final int kingDestination, final int moveType) {
+        return createMove(kingSquare, kingDestination, moveType, PieceType.KING, null);
+    }
+
+    private static boolean isUnmovedRook(final Piece piece) {
+        return piece != null && piece.getPieceType().isRook() && piece.isFirstMove();
+    }
+
+    private boolean isFreeForChess960Castling(final int tileIndex, final Piece king, final Piece castlingRook) {
+        final Piece occupant = this.mailbox[tileIndex];
+        return occupant == null || occupant.equals(king) || occupant.equals(castlingRook);
+    }
+
+    private boolean isSafeChess960PathTile(final int tileIndex, final Piece castlingRook, final Alliance opponent) {
+        final Piece occupant = this.mailbox[tileIndex];
+        return (occupant == null || occupant.equals(castlingRook)) && !isTileAttacked(tileIndex, opponent);
+    }
+
+    private static Alliance opposite(final Alliance alliance) {
+        return alliance.isWhite() ? Alliance.BLACK : Alliance.WHITE;
+    }
+
+    private static Piece[][] createMovedPieces() {
+        final Piece[][] pieces = new Piece[BitBoards.NUMBER_OF_PIECE_INDICES][BoardUtils.TOTAL_NUMBER_OF_TILES];
+        for (final Alliance alliance : Alliance.values()) {
+            for (int index = 0; index < BoardUtils.TOTAL_NUMBER_OF_TILES; ++index) {
+                final Location location = BoardUtils.getLocation(index);
+                pieces[BitBoards.pieceIndex(PieceType.KING, alliance)][index] =
+                        King.createKing(location, alliance, false);
+                pieces[BitBoards.pieceIndex(PieceType.QUEEN, alliance)][index] =
+                        Queen.createQueen(location, alliance, false);
+                pieces[BitBoards.pieceIndex(PieceType.BISHOP, alliance)][index] =
+                        Bishop.createBishop(location, alliance, false);
+                pieces[BitBoards.pieceIndex(PieceType.KNIGHT, alliance)][index] =
+                        Knight.createKnight(location, alliance, false);
+                pieces[BitBoards.pieceIndex(PieceType.ROOK, alliance)][index] =
+                        Rook.createRook(location, alliance, false);
+                pieces[BitBoards.pieceIndex(PieceType.PAWN, alliance)][index] =
+                        Pawn.createPawn(location, alliance, false);
+            }
+        }
+        return pieces;
+    }
+}
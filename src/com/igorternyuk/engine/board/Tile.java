@@ -1,10 +1,7 @@
 package com.igorternyuk.engine.board;
 
-import com.google.common.collect.ImmutableMap;
 import com.igorternyuk.engine.pieces.Piece;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -16,7 +13,7 @@ public abstract class Tile {
     protected final Location tileLocation;
     protected final boolean isLight;
 
-    private static final Map<Location, EmptyTile> EMPTY_TILES = createAllPossibleEmptyTiles();
+    private static final EmptyTile[] EMPTY_TILES = createAllPossibleEmptyTiles();
 
     private Tile(final Location tileLocation) {
 
@@ -24,18 +21,19 @@ public abstract class Tile {
         this.isLight = (this.tileLocation.getX() + this.tileLocation.getY()) % 2 == 0;
     }
 
-    private static Map<Location, EmptyTile> createAllPossibleEmptyTiles() {
-        final Map<Location, EmptyTile> emptyTilesMap = new HashMap<>();
+    private static EmptyTile[] createAllPossibleEmptyTiles() {
+        final EmptyTile[] emptyTiles = new EmptyTile[BoardUtils.TOTAL_NUMBER_OF_TILES];
         for(int y = 0; y < BoardUtils.BOARD_SIZE; ++y){
             for (int x = 0; x < BoardUtils.BOARD_SIZE; ++x){
-                emptyTilesMap.put(BoardUtils.getLocation(x, y), new EmptyTile(BoardUtils.getLocation(x, y)));
+                emptyTiles[BoardUtils.getTileIndex(x, y)] = new EmptyTile(BoardUtils.getLocation(x, y));
             }
         }
-        return ImmutableMap.copyOf(emptyTilesMap);
+        return emptyTiles;
     }
 
     public static Tile createTile(Location tileLocation, Piece piece) {
-        return piece != null ? new OccupiedTile(tileLocation, piece) : EMPTY_TILES.get(tileLocation);
+        return piece != null ? new OccupiedTile(tileLocation, piece) :
+                EMPTY_TILES[BoardUtils.getTileIndex(tileLocation)];
     }
 
     public Location getTileLocation() {
@@ -0,0 +1,162 @@
+package com.igorternyuk.engine.board;
+
+import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.pieces.Pawn;
+import com.igorternyuk.engine.pieces.Piece;
+import com.igorternyuk.engine.pieces.PieceType;
+
+import java.util.Random;
+
+/**
+ * Created by igor on 16.12.18.
+ *
+ * Zobrist keys of a position: pieces, side to move, castling rights, en passant file and the Chess960 rook files.
+ * A side keeps a castling right while its king and the rook on the corresponding start tile have not moved.
+ */
+public final class Zobrist {
+    public static final int NO_CASTLING_RIGHTS = 0;
+    public static final int WHITE_KINGS_SIDE_CASTLING = 1;
+    public static final int WHITE_QUEENS_SIDE_CASTLING = 2;
+    public static final int BLACK_KINGS_SIDE_CASTLING = 4;
+    public static final int BLACK_QUEENS_SIDE_CASTLING = 8;
+
+    private static final long SEED = 20181216L;
+    private static final Alliance[] ALLIANCES = Alliance.values();
+    private static final long[][] PIECE_KEYS = new long[BitBoards.NUMBER_OF_PIECE_INDICES]
+            [BoardUtils.TOTAL_NUMBER_OF_TILES];
+    private static final long[] CASTLING_RIGHTS_KEYS = new long[16];
+    private static final long[] EN_PASSANT_FILE_KEYS = new long[BoardUtils.BOARD_SIZE];
+    private static final long[] KINGS_ROOK_FILE_KEYS = new long[BoardUtils.BOARD_SIZE];
+    private static final long[] QUEENS_ROOK_FILE_KEYS = new long[BoardUtils.BOARD_SIZE];
+    private static final long BLACK_TO_MOVE_KEY;
+
+    static {
+        final Random random = new Random(SEED);
+        for (final long[] keys : PIECE_KEYS) {
+            fillKeys(keys, random);
+        }
+        fillKeys(CASTLING_RIGHTS_KEYS, random);
+        CASTLING_RIGHTS_KEYS[NO_CASTLING_RIGHTS] = 0L;
+        fillKeys(EN_PASSANT_FILE_KEYS, random);
+        fillKeys(KINGS_ROOK_FILE_KEYS, random);
+        fillKeys(QUEENS_ROOK_FILE_KEYS, random);
+        BLACK_TO_MOVE_KEY = random.nextLong();
+    }
+
+    public static long getPieceKey(final PieceType pieceType, final Alliance alliance, final int tileIndex) {
+        return PIECE_KEYS[BitBoards.pieceIndex(pieceType, alliance)][tileIndex];
+    }
+
+    public static long getPieceKey(final Piece piece) {
+        return getPieceKey(piece.getPieceType(), piece.getAlliance(), BoardUtils.getTileIndex(piece.getLocation()));
+    }
+
+    public static long getSideToMoveKey() {
+        return BLACK_TO_MOVE_KEY;
+    }
+
+    public static long getCastlingRightsKey(final int castlingRights) {
+        return CASTLING_RIGHTS_KEYS[castlingRights];
+    }
+
+    public static long getEnPassantKey(final int enPassantTileIndex) {
+        return EN_PASSANT_FILE_KEYS[BoardUtils.getTileX(enPassantTileIndex)];
+    }
+
+    public static long getEnPassantKey(final Pawn enPassantPawn) {
+        return enPassantPawn == null ? 0L : EN_PASSANT_FILE_KEYS[enPassantPawn.getLocation().getX()];
+    }
+
+    public static long calculateKey(final Board board) {
+        long key = KINGS_ROOK_FILE_KEYS[board.getKingsRookStartCoordinateX()]
+                ^ QUEENS_ROOK_FILE_KEYS[board.getQueensRookStartCoordinateX()];
+        for (long pieces = board.getAllOccupancy(); pieces != BitBoards.EMPTY; pieces = BitBoards.clearFirst(pieces)) {
+            final int tileIndex = BitBoards.firstIndex(pieces);
+            final Piece piece = board.getPiece(tileIndex);
+            key ^= getPieceKey(piece.getPieceType(), piece.getAlliance(), tileIndex);
+        }
+        if (board.getMoveMaker().isBlack()) {
+            key ^= BLACK_TO_MOVE_KEY;
+        }
+        return key ^ getCastlingRightsKey(calculateCastlingRights(board)) ^ getEnPassantKey(board.getEnPassantPawn());
+    }
+
+    public static int calculateCastlingRights(final Board board) {
+        int castlingRights = NO_CASTLING_RIGHTS;
+        for (final Alliance alliance : ALLIANCES) {
+            final long king = board.getPieceBitBoard(PieceType.KING, alliance);
+            if (king == BitBoards.EMPTY || !board.getPiece(BitBoards.firstIndex(king)).isFirstMove()) {
+                continue;
+            }
+            final int backRank = getBackRank(alliance);
+            final int kingsRookX = getKingsRookStartX(board);
+            final int queensRookX = getQueensRookStartX(board);
+            if (isUnmovedRook(board.getPiece(BoardUtils.getTileIndex(kingsRookX, backRank)), alliance)) {
+                castlingRights |= getKingsSideCastlingRight(alliance);
+            }
+            if (isUnmovedRook(board.getPiece(BoardUtils.getTileIndex(queensRookX, backRank)), alliance)) {
+                castlingRights |= getQueensSideCastlingRight(alliance);
+            }
+        }
+        return castlingRights;
+    }
+
+    public static int updateCastlingRights(final int castlingRights, final Board board, final Piece movedPiece,
+                                           final int from, final int to) {
+        if (castlingRights == NO_CASTLING_RIGHTS) {
+            return castlingRights;
+        }
+        final int kingsRookX = getKingsRookStartX(board);
+        final int queensRookX = getQueensRookStartX(board);
+        int updatedRights = castlingRights;
+        if (movedPiece.getPieceType().isKing()) {
+            updatedRights &= ~(getKingsSideCastlingRight(movedPiece.getAlliance())
+                    | getQueensSideCastlingRight(movedPiece.getAlliance()));
+        }
+        for (final Alliance alliance : ALLIANCES) {
+            final int backRank = getBackRank(alliance);
+            final int kingsRookTile = BoardUtils.getTileIndex(kingsRookX, backRank);
+            final int queensRookTile = BoardUtils.getTileIndex(queensRookX, backRank);
+            if (from == kingsRookTile || to == kingsRookTile) {
+                updatedRights &= ~getKingsSideCastlingRight(alliance);
+            }
+            if (from == queensRookTile || to == queensRookTile) {
+                updatedRights &= ~getQueensSideCastlingRight(alliance);
+            }
+        }
+        return updatedRights;
+    }
+
+    public static int getKingsRookStartX(final Board board) {
+        return board.getGameType().isClassicChess()
+                ? BoardUtils.BOARD_SIZE - 1
+                : board.getKingsRookStartCoordinateX();
+    }
+
+    public static int getQueensRookStartX(final Board board) {
+        return board.getGameType().isClassicChess() ? 0 : board.getQueensRookStartCoordinateX();
+    }
+
+    private static int getKingsSideCastlingRight(final Alliance alliance) {
+        return alliance.isWhite() ? WHITE_KINGS_SIDE_CASTLING : BLACK_KINGS_SIDE_CASTLING;
+    }
+
+    private static int getQueensSideCastlingRight(final Alliance alliance) {
+        return alliance.isWhite() ? WHITE_QUEENS_SIDE_CASTLING : BLACK_QUEENS_SIDE_CASTLING;
+    }
+
+    private static int getBackRank(final Alliance alliance) {
+        return alliance.isWhite() ? BoardUtils.FIRST_RANK : BoardUtils.EIGHTH_RANK;
+    }
+
+    private static boolean isUnmovedRook(final Piece piece, final Alliance alliance) {
+        return piece != null && piece.getPieceType().isRook() && piece.getAlliance() == alliance
+                && piece.isFirstMove();
+    }
+
+    private static void fillKeys(final long[] keys, final Random random) {
+        for (int i = 0; i < keys.length; ++i) {
+            keys[i] = random.nextLong();
+        }
+    }
+}
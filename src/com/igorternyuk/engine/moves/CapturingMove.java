@@ -3,6 +3,7 @@ package com.igorternyuk.engine.moves;
 import com.igorternyuk.engine.board.Board;
 import com.igorternyuk.engine.board.BoardUtils;
 import com.igorternyuk.engine.board.Location;
+import com.igorternyuk.engine.board.Zobrist;
 import com.igorternyuk.engine.pieces.Piece;
 
 import java.util.Objects;
@@ -32,7 +33,8 @@ public abstract class CapturingMove extends Move {
         builder.setQueensRookStartCoordinateX(this.board.getQueensRookStartCoordinateX());
         builder.setMoveMaker(this.board.getCurrentPlayer().getOpponentAlliance());
         builder.setTransitionMove(this);
-        builder.setCheckEndGamePhase(true);
+        builder.setZobristKey(calculateTransitedZobristKey(getMovedPieceKey()
+                ^ Zobrist.getPieceKey(this.capturedPiece), null));
         return builder.build();
     }
 
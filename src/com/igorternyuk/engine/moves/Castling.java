@@ -1,8 +1,11 @@
 package com.igorternyuk.engine.moves;
 
 import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.board.BoardUtils;
 import com.igorternyuk.engine.board.Location;
+import com.igorternyuk.engine.board.Zobrist;
 import com.igorternyuk.engine.pieces.Piece;
+import com.igorternyuk.engine.pieces.PieceType;
 import com.igorternyuk.engine.pieces.Rook;
 
 import java.util.Objects;
@@ -72,6 +75,11 @@ public abstract class Castling extends Move {
         builder.setQueensRookStartCoordinateX(this.board.getQueensRookStartCoordinateX());
         builder.setMoveMaker(this.board.getCurrentPlayer().getOpponentAlliance());
         builder.setTransitionMove(this);
+        builder.setZobristKey(calculateTransitedZobristKey(getMovedPieceKey()
+                ^ Zobrist.getPieceKey(PieceType.ROOK, this.castledRook.getAlliance(),
+                BoardUtils.getTileIndex(this.castledRookStartLocation))
+                ^ Zobrist.getPieceKey(PieceType.ROOK, this.castledRook.getAlliance(),
+                BoardUtils.getTileIndex(this.castledRookEndLocation)), null));
         return builder.build();
     }
 
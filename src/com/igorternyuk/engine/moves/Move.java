@@ -3,6 +3,8 @@ package com.igorternyuk.engine.moves;
 import com.igorternyuk.engine.board.Board;
 import com.igorternyuk.engine.board.BoardUtils;
 import com.igorternyuk.engine.board.Location;
+import com.igorternyuk.engine.board.Zobrist;
+import com.igorternyuk.engine.pieces.Pawn;
 import com.igorternyuk.engine.pieces.Piece;
 import com.igorternyuk.engine.pieces.Rook;
 
@@ -67,6 +69,24 @@ public abstract class Move {
         return this.board;
     }
 
+    protected long getMovedPieceKey() {
+        return Zobrist.getPieceKey(this.movedPiece) ^ Zobrist.getPieceKey(this.movedPiece.getPieceType(),
+                this.movedPiece.getAlliance(), BoardUtils.getTileIndex(this.destination));
+    }
+
+    protected long calculateTransitedZobristKey(final long changedPiecesKey, final Pawn enPassantPawn) {
+        final int castlingRights = this.board.getCastlingRights();
+        final int updatedCastlingRights = Zobrist.updateCastlingRights(castlingRights, this.board, this.movedPiece,
+                BoardUtils.getTileIndex(this.movedPiece.getLocation()), BoardUtils.getTileIndex(this.destination));
+        return this.board.getZobristKey()
+                ^ changedPiecesKey
+                ^ Zobrist.getSideToMoveKey()
+                ^ Zobrist.getEnPassantKey(this.board.getEnPassantPawn())
+                ^ Zobrist.getEnPassantKey(enPassantPawn)
+                ^ Zobrist.getCastlingRightsKey(castlingRights)
+                ^ Zobrist.getCastlingRightsKey(updatedCastlingRights);
+    }
+
 
     public static class MoveFactory {
 
@@ -76,6 +96,10 @@ public abstract class Move {
             NULL_MOVE = new NullMove();
         }
 
+        public static Move createNullMove(final Board board) {
+            return new NullMove(board);
+        }
+
         public static Move createMove(final Board board, final String from, final String to) {
             return createMove(board, BoardUtils.getLocation(from), BoardUtils.getLocation(to));
         }
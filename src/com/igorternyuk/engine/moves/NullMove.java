@@ -2,13 +2,21 @@ package com.igorternyuk.engine.moves;
 
 import com.igorternyuk.engine.board.Board;
 import com.igorternyuk.engine.board.BoardUtils;
+import com.igorternyuk.engine.board.Zobrist;
 
 /**
  * Created by igor on 09.12.18.
+ *
+ * Passes the turn: the pieces stay where they are, the opponent moves next and en passant is no longer possible.
+ * The shared MoveFactory.NULL_MOVE belongs to no board and only stands for the absence of a move.
  */
 public final class NullMove extends Move {
     NullMove() {
-        super(null, BoardUtils.NULL_LOCATION);
+        this(null);
+    }
+
+    NullMove(final Board board) {
+        super(board, BoardUtils.NULL_LOCATION);
     }
 
     @Override
@@ -43,6 +51,19 @@ public final class NullMove extends Move {
 
     @Override
     public Board execute() {
-        throw new RuntimeException("Could not execute the null move");
+        if (this.board == null) {
+            throw new RuntimeException("Could not execute the null move");
+        }
+        final Board.Builder builder = new Board.Builder();
+        this.board.getCurrentPlayer().getActivePieces().forEach(builder::setPiece);
+        this.board.getCurrentPlayer().getOpponent().getActivePieces().forEach(builder::setPiece);
+        builder.setGameType(this.board.getGameType());
+        builder.setKingsRookStartCoordinateX(this.board.getKingsRookStartCoordinateX());
+        builder.setQueensRookStartCoordinateX(this.board.getQueensRookStartCoordinateX());
+        builder.setMoveMaker(this.board.getCurrentPlayer().getOpponentAlliance());
+        builder.setTransitionMove(this);
+        builder.setZobristKey(this.board.getZobristKey() ^ Zobrist.getSideToMoveKey()
+                ^ Zobrist.getEnPassantKey(this.board.getEnPassantPawn()));
+        return builder.build();
     }
 }
@@ -27,6 +27,7 @@ public class PawnJump extends PawnMove {
         builder.setQueensRookStartCoordinateX(this.board.getQueensRookStartCoordinateX());
         builder.setMoveMaker(this.board.getCurrentPlayer().getOpponentAlliance());
         builder.setTransitionMove(this);
+        builder.setZobristKey(calculateTransitedZobristKey(getMovedPieceKey(), jumpedPawn));
         return builder.build();
     }
 
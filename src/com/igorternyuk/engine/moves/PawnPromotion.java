@@ -1,6 +1,8 @@
 package com.igorternyuk.engine.moves;
 
 import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.board.BoardUtils;
+import com.igorternyuk.engine.board.Zobrist;
 import com.igorternyuk.engine.pieces.Pawn;
 import com.igorternyuk.engine.pieces.Piece;
 
@@ -52,7 +54,10 @@ public class PawnPromotion extends PawnMove {
         builder.setQueensRookStartCoordinateX(this.board.getQueensRookStartCoordinateX());
         builder.setMoveMaker(this.board.getCurrentPlayer().getOpponentAlliance());
         builder.setTransitionMove(this);
-        builder.setCheckEndGamePhase(true);
+        final Piece capturedPiece = this.board.getPiece(BoardUtils.getTileIndex(this.destination));
+        builder.setZobristKey(calculateTransitedZobristKey(Zobrist.getPieceKey(this.promotedPawn)
+                ^ Zobrist.getPieceKey(this.promotedPiece)
+                ^ (capturedPiece != null ? Zobrist.getPieceKey(capturedPiece) : 0L), null));
         return builder.build();
     }
 
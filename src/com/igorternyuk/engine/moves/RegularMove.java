@@ -56,6 +56,7 @@ public class RegularMove extends Move {
         builder.setQueensRookStartCoordinateX(this.board.getQueensRookStartCoordinateX());
         builder.setMoveMaker(this.board.getCurrentPlayer().getOpponentAlliance());
         builder.setTransitionMove(this);
+        builder.setZobristKey(calculateTransitedZobristKey(getMovedPieceKey(), null));
         return builder.build();
     }
 
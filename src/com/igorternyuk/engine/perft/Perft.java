@@ -0,0 +1,180 @@
+package com.igorternyuk.engine.perft;
+
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.board.FenParser;
+import com.igorternyuk.engine.board.SearchBoard;
+import com.igorternyuk.engine.moves.Move;
+import com.igorternyuk.engine.moves.MoveTransition;
+import com.igorternyuk.engine.player.Player;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Created by igor on 17.12.18.
+ *
+ * Counts the leaf nodes of the legal move tree using Player.makeMove, the same path the game takes, so the counts
+ * can be compared with the published ones. With a parallelism above one the subtrees of the root moves are counted
+ * by a fork-join pool, and with a non-zero hash size subtree counts are reused for transposed positions.
+ */
+public class Perft {
+    private static final int DEFAULT_MAX_SUITE_DEPTH = 4;
+
+    private final ForkJoinPool pool;
+    private final PerftHashTable hashTable;
+
+    public Perft() {
+        this(1, 0);
+    }
+
+    public Perft(final int parallelism, final int hashSizeInMegabytes) {
+        this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        this.hashTable = hashSizeInMegabytes > 0 ? new PerftHashTable(hashSizeInMegabytes) : null;
+    }
+
+    public PerftResult perft(final Board board, final int depth) {
+        return run(board, depth, false);
+    }
+
+    public PerftResult divide(final Board board, final int depth) {
+        return run(board, depth, true);
+    }
+
+    public void shutdown() {
+        if (this.pool != null) {
+            this.pool.shutdown();
+        }
+    }
+
+    private PerftResult run(final Board board, final int depth, final boolean isDivide) {
+        final long startTime = System.nanoTime();
+        final Map<String, Long> nodesPerMove = new LinkedHashMap<>();
+        if (depth == 0) {
+            return new PerftResult(depth, 1, System.nanoTime() - startTime, nodesPerMove);
+        }
+        final Player player = board.getCurrentPlayer();
+        final List<Move> rootMoves = new ArrayList<>();
+        final List<PerftTask> tasks = new ArrayList<>();
+        for (final Move move : player.getLegalMoves()) {
+            final MoveTransition transition = player.makeMove(move);
+            if (transition.getMoveStatus().isDone()) {
+                rootMoves.add(move);
+                tasks.add(new PerftTask(transition.getTransitedBoard(), depth - 1));
+            }
+        }
+        if (this.pool != null) {
+            this.pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        } else {
+            tasks.forEach(PerftTask::invoke);
+        }
+        long nodes = 0;
+        for (int i = 0; i < tasks.size(); ++i) {
+            final long moveNodes = tasks.get(i).join();
+            nodes += moveNodes;
+            if (isDivide) {
+                nodesPerMove.put(SearchBoard.toString(SearchBoard.encodeMove(rootMoves.get(i))), moveNodes);
+            }
+        }
+        return new PerftResult(depth, nodes, System.nanoTime() - startTime, nodesPerMove);
+    }
+
+    private long countNodes(final Board board, final int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        final long key = board.getZobristKey();
+        if (this.hashTable != null && depth > 1) {
+            final long cachedNodes = this.hashTable.probe(key, depth);
+            if (cachedNodes != PerftHashTable.NO_ENTRY) {
+                return cachedNodes;
+            }
+        }
+        final Player player = board.getCurrentPlayer();
+        long nodes = 0;
+        for (final Move move : player.getLegalMoves()) {
+            final MoveTransition transition = player.makeMove(move);
+            if (transition.getMoveStatus().isDone()) {
+                nodes += depth == 1 ? 1 : countNodes(transition.getTransitedBoard(), depth - 1);
+            }
+        }
+        if (this.hashTable != null && depth > 1) {
+            this.hashTable.store(key, depth, nodes);
+        }
+        return nodes;
+    }
+
+    private final class PerftTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final Board board;
+        private final int depth;
+
+        private PerftTask(final Board board, final int depth) {
+            this.board = board;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            return countNodes(this.board, this.depth);
+        }
+    }
+
+    /*
+     * Runs the reference suite or, given a FEN and a depth, divides that position.
+     * Options: -threads N (fork-join parallelism at the root), -hash MB (perft hash size), -depth D (suite depth).
+     */
+    public static void main(final String[] args) {
+        int parallelism = 1;
+        int hashSizeInMegabytes = 0;
+        int maxDepth = DEFAULT_MAX_SUITE_DEPTH;
+        String fen = null;
+        int fenDepth = 0;
+        for (int i = 0; i < args.length; ++i) {
+            switch (args[i]) {
+                case "-threads":
+                    parallelism = Integer.parseInt(args[++i]);
+                    break;
+                case "-hash":
+                    hashSizeInMegabytes = Integer.parseInt(args[++i]);
+                    break;
+                case "-depth":
+                    maxDepth = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    fen = args[i];
+                    fenDepth = Integer.parseInt(args[++i]);
+            }
+        }
+        final Perft perft = new Perft(parallelism, hashSizeInMegabytes);
+        if (fen != null) {
+            final PerftResult result = perft.divide(FenParser.createBoard(fen), fenDepth);
+            result.getNodesPerMove().forEach((move, nodes) -> System.out.println(move + ": " + nodes));
+            System.out.println(result);
+        } else {
+            boolean isSuitePassed = true;
+            for (final PerftPosition position : PerftPosition.values()) {
+                final Board board = position.createBoard();
+                for (int depth = 1; depth <= Math.min(maxDepth, position.getMaxDepth()); ++depth) {
+                    final PerftResult result = perft.perft(board, depth);
+                    final boolean isPassed = result.getNodes() == position.getExpectedNodes(depth);
+                    isSuitePassed &= isPassed;
+                    System.out.println((isPassed ? "OK   " : "FAIL ") + position + " " + result
+                            + (isPassed ? "" : ", expected " + position.getExpectedNodes(depth)));
+                }
+            }
+            System.out.println(isSuitePassed ? "All reference counts match" : "Some reference counts differ");
+        }
+        perft.shutdown();
+    }
+}
@@ -0,0 +1,48 @@
+package com.igorternyuk.engine.perft;
+
+/**
+ * Created by igor on 17.12.18.
+ *
+ * Node counts of already visited subtrees indexed by the Zobrist key. Every slot is two longs: the key xor-ed with
+ * the data word and the data word itself, so concurrent root tasks can share the table without locks and a torn
+ * write reads as a miss. Data word layout: depth (bits 0-7) and node count (bits 8-63).
+ */
+final class PerftHashTable {
+    static final long NO_ENTRY = -1L;
+
+    private static final int DEPTH_MASK = 0xFF;
+    private static final int NODES_SHIFT = 8;
+    private static final int LONGS_PER_SLOT = 2;
+    private static final int BYTES_PER_SLOT = LONGS_PER_SLOT * Long.BYTES;
+
+    private final long[] table;
+    private final int slotMask;
+
+    PerftHashTable(final int sizeInMegabytes) {
+        final long requestedSlots = Math.max(1L, ((long) sizeInMegabytes << 20) / BYTES_PER_SLOT);
+        final int numSlots = Integer.highestOneBit((int) Math.min(requestedSlots,
+                Integer.MAX_VALUE / LONGS_PER_SLOT));
+        this.table = new long[numSlots * LONGS_PER_SLOT];
+        this.slotMask = numSlots - 1;
+    }
+
+    long probe(final long key, final int depth) {
+        final int slot = getSlot(key);
+        final long data = this.table[slot + 1];
+        if (data != 0L && (this.table[slot] ^ data) == key && (data & DEPTH_MASK) == depth) {
+            return data >>> NODES_SHIFT;
+        }
+        return NO_ENTRY;
+    }
+
+    void store(final long key, final int depth, final long nodes) {
+        final int slot = getSlot(key);
+        final long data = (nodes << NODES_SHIFT) | depth;
+        this.table[slot] = key ^ data;
+        this.table[slot + 1] = data;
+    }
+
+    private int getSlot(final long key) {
+        return ((int) key & this.slotMask) * LONGS_PER_SLOT;
+    }
+}
@@ -0,0 +1,72 @@
+package com.igorternyuk.engine.perft;
+
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.board.FenParser;
+
+/**
+ * Created by igor on 17.12.18.
+ *
+ * Reference positions with their published leaf counts, starting at depth one.
+ */
+public enum PerftPosition {
+    INITIAL("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            20, 400, 8902, 197281, 4865609),
+    KIWIPETE("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            48, 2039, 97862, 4085603),
+    ROOK_ENDGAME("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            14, 191, 2812, 43238, 674624),
+    PROMOTIONS("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            6, 264, 9467, 422333),
+    DISCOVERED_PROMOTION("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            44, 1486, 62379, 2103487),
+    MIDDLEGAME("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            46, 2079, 89890, 3894594),
+    EN_PASSANT_DISCOVERED_CHECK("8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1",
+            15, 126, 1928, 13931, 206379, 1440467),
+    EN_PASSANT_PINNED_PAWN("3k4/3p4/8/K1P4r/8/8/8/8 b - - 0 1",
+            18, 92, 1670, 10138, 185429, 1134888),
+    SHORT_CASTLING_GIVES_CHECK("5k2/8/8/8/8/8/8/4K2R w K - 0 1",
+            15, 66, 1198, 6399, 120330, 661072),
+    LONG_CASTLING_GIVES_CHECK("3k4/8/8/8/8/8/8/R3K3 w Q - 0 1",
+            16, 71, 1286, 7418, 141077, 803711),
+    CASTLING_PREVENTED("r3k2r/8/3Q4/8/8/5q2/8/R3K2R b KQkq - 0 1",
+            44, 1494, 50509, 1720476),
+    PROMOTION_OUT_OF_CHECK("2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1",
+            11, 133, 1442, 19174, 266199, 3821001),
+    UNDERPROMOTION_GIVES_CHECK("8/P1k5/K7/8/8/8/8/8 w - - 0 1",
+            6, 27, 273, 1329, 18135, 92683),
+    SELF_STALEMATE("K1k5/8/P7/8/8/8/8/8 w - - 0 1",
+            2, 6, 13, 63, 382, 2217),
+    CHESS960_FIRST("bqnb1rkr/pp3ppp/3ppn2/2p5/5P2/P2P4/NPP1P1PP/BQ1BNRKR w HFhf - 2 9",
+            21, 528, 12189, 326672),
+    CHESS960_SECOND("2nnrbkr/p1qppppp/8/1ppb4/6PP/3PP3/PPP2P2/BQNNRBKR w HEhe - 1 9",
+            21, 807, 18002, 667366),
+    CHESS960_THIRD("b1q1rrkb/pppppppp/3nn3/8/P7/1PPP4/4PPPP/BQNNRKRB w GE - 1 9",
+            20, 479, 10471, 273318),
+    CHESS960_FOURTH("qbbnnrkr/2pp2pp/p7/1p2pp2/8/P3PP2/1PPP1KPP/QBBNNR1R w hf - 0 9",
+            22, 593, 13440, 382958);
+
+    private final String fen;
+    private final long[] expectedNodes;
+
+    PerftPosition(final String fen, final long... expectedNodes) {
+        this.fen = fen;
+        this.expectedNodes = expectedNodes;
+    }
+
+    public String getFen() {
+        return this.fen;
+    }
+
+    public Board createBoard() {
+        return FenParser.createBoard(this.fen);
+    }
+
+    public int getMaxDepth() {
+        return this.expectedNodes.length;
+    }
+
+    public long getExpectedNodes(final int depth) {
+        return this.expectedNodes[depth - 1];
+    }
+}
@@ -0,0 +1,49 @@
+package com.igorternyuk.engine.perft;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Created by igor on 17.12.18.
+ */
+public final class PerftResult {
+    private final int depth;
+    private final long nodes;
+    private final long timeInNanoseconds;
+    private final Map<String, Long> nodesPerMove;
+
+    PerftResult(final int depth, final long nodes, final long timeInNanoseconds,
+                final Map<String, Long> nodesPerMove) {
+        this.depth = depth;
+        this.nodes = nodes;
+        this.timeInNanoseconds = timeInNanoseconds;
+        this.nodesPerMove = Collections.unmodifiableMap(nodesPerMove);
+    }
+
+    public int getDepth() {
+        return this.depth;
+    }
+
+    public long getNodes() {
+        return this.nodes;
+    }
+
+    public long getTimeInMilliseconds() {
+        return this.timeInNanoseconds / 1000000;
+    }
+
+    public long getNodesPerSecond() {
+        return this.timeInNanoseconds == 0 ? 0 : this.nodes * 1000000000L / this.timeInNanoseconds;
+    }
+
+    //Leaf counts below every root move in coordinate notation, filled by divide only
+    public Map<String, Long> getNodesPerMove() {
+        return this.nodesPerMove;
+    }
+
+    @Override
+    public String toString() {
+        return "perft(" + this.depth + ") = " + this.nodes + ", t: " + getTimeInMilliseconds() + " ms, nps: "
+                + getNodesPerSecond();
+    }
+}
@@ -3,6 +3,7 @@ package com.igorternyuk.engine.pieces;
 import com.google.common.collect.ImmutableTable;
 import com.google.common.collect.Table;
 import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.board.BitBoards;
 import com.igorternyuk.engine.board.Board;
 import com.igorternyuk.engine.board.BoardUtils;
 import com.igorternyuk.engine.board.Location;
@@ -95,7 +96,8 @@ public class Bishop extends Piece {
 
     @Override
     public Collection<Move> getLegalMoves(final Board board) {
-        return getSlidingPieceLegalMoves(board);
+        return getSlidingPieceLegalMoves(board, BitBoards.bishopAttacks(BoardUtils.getTileIndex(this.location),
+                board.getAllOccupancy()));
     }
 
     @Override
@@ -3,12 +3,12 @@ package com.igorternyuk.engine.pieces;
 import com.google.common.collect.ImmutableTable;
 import com.google.common.collect.Table;
 import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.board.BitBoards;
 import com.igorternyuk.engine.board.Board;
 import com.igorternyuk.engine.board.BoardUtils;
 import com.igorternyuk.engine.board.Location;
 import com.igorternyuk.engine.moves.Move;
 
-import java.awt.*;
 import java.util.Collection;
 
 /**
@@ -19,7 +19,8 @@ public class King extends Piece {
 
     private static final Table<Location, Alliance, King> ALL_KINGS = createAllPossibleKings(true);
     private static final Table<Location, Alliance, King> ALL_MOVED_KINGS = createAllPossibleKings(false);
-    private int value;
+    private final int value;
+    private final int endGameValue;
 
     private static Table<Location, Alliance, King> createAllPossibleKings(final boolean isFirstMove) {
         final ImmutableTable.Builder<Location, Alliance, King> kings = ImmutableTable.builder();
@@ -72,44 +73,24 @@ public class King extends Piece {
     private King(final Location pieceLocation, final Alliance pieceAlliance, final boolean isFirstMove) {
         super(PieceType.KING, pieceLocation, pieceAlliance, isFirstMove);
         final int index = pieceLocation.getY() * BoardUtils.BOARD_SIZE + pieceLocation.getX();
-        this.value = super.getValue();
-        if (pieceAlliance.isWhite()) {
-            this.value += PieceSquareTables.WHITE_KING_MIDDLE_GAME[index];
-        } else if (pieceAlliance.isBlack()) {
-            this.value += PieceSquareTables.WHITE_KING_MIDDLE_GAME[index];
-        }
-    }
-
-    public void setEndGameValue() {
-        final int index = getLocation().getY() * BoardUtils.BOARD_SIZE + getLocation().getX();
-        if (getAlliance().isWhite()) {
-            this.value -= PieceSquareTables.WHITE_KING_MIDDLE_GAME[index];
-            this.value += PieceSquareTables.WHITE_KING_ENDGAME[index];
-        } else if (getAlliance().isBlack()) {
-            this.value -= PieceSquareTables.WHITE_KING_MIDDLE_GAME[index];
-            this.value += PieceSquareTables.WHITE_KING_ENDGAME[index];
-        }
+        this.value = super.getValue() + PieceSquareTables.WHITE_KING_MIDDLE_GAME[index];
+        this.endGameValue = super.getValue() + PieceSquareTables.WHITE_KING_ENDGAME[index];
     }
 
     @Override
     public int getValue() {
         return this.value;
     }
+
     @Override
-    public void setPossibleOffsets() {
-        this.moveVectors.add(new Point(-1, -1));
-        this.moveVectors.add(new Point(-1, 1));
-        this.moveVectors.add(new Point(1, -1));
-        this.moveVectors.add(new Point(1, 1));
-        this.moveVectors.add(new Point(-1, 0));
-        this.moveVectors.add(new Point(0, 1));
-        this.moveVectors.add(new Point(1, 0));
-        this.moveVectors.add(new Point(0, -1));
+    public int getEndGameValue() {
+        return this.endGameValue;
     }
 
     @Override
     public Collection<Move> getLegalMoves(final Board board) {
-        return this.getJumpingPieceLegalMoves(board);
+        return this.getJumpingPieceLegalMoves(board,
+                BitBoards.KING_ATTACKS[BoardUtils.getTileIndex(this.location)]);
     }
 
     @Override
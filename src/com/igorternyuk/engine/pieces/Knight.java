@@ -4,12 +4,12 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableTable;
 import com.google.common.collect.Table;
 import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.board.BitBoards;
 import com.igorternyuk.engine.board.Board;
 import com.igorternyuk.engine.board.BoardUtils;
 import com.igorternyuk.engine.board.Location;
 import com.igorternyuk.engine.moves.Move;
 
-import java.awt.*;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
@@ -88,22 +88,10 @@ public class Knight extends Piece {
         return this.value;
     }
 
-    @Override
-    public void setPossibleOffsets() {
-
-        this.moveVectors.add(new Point(-2, -1));
-        this.moveVectors.add(new Point(-2, 1));
-        this.moveVectors.add(new Point(-1, -2));
-        this.moveVectors.add(new Point(-1, 2));
-        this.moveVectors.add(new Point(1, -2));
-        this.moveVectors.add(new Point(1, 2));
-        this.moveVectors.add(new Point(2, -1));
-        this.moveVectors.add(new Point(2, 1));
-    }
-
     @Override
     public Collection<Move> getLegalMoves(final Board board) {
-        return this.getJumpingPieceLegalMoves(board);
+        return this.getJumpingPieceLegalMoves(board,
+                BitBoards.KNIGHT_ATTACKS[BoardUtils.getTileIndex(this.location)]);
     }
 
     @Override
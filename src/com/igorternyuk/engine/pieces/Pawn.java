@@ -4,13 +4,12 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableTable;
 import com.google.common.collect.Table;
 import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.board.BitBoards;
 import com.igorternyuk.engine.board.Board;
 import com.igorternyuk.engine.board.BoardUtils;
 import com.igorternyuk.engine.board.Location;
-import com.igorternyuk.engine.board.Tile;
 import com.igorternyuk.engine.moves.*;
 
-import java.awt.*;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -90,71 +89,61 @@ public class Pawn extends Piece {
         return this.value;
     }
 
-    @Override
-    public void setPossibleOffsets() {
-        this.moveVectors.add(new Point(-1, this.getAlliance().getDirectionY()));
-        this.moveVectors.add(new Point(0, this.getAlliance().getDirectionY()));
-        this.moveVectors.add(new Point(1, this.getAlliance().getDirectionY()));
-    }
-
     @Override
     public Collection<Move> getLegalMoves(final Board board) {
-        List<Move> legalMoves = new ArrayList<>();
-        this.moveVectors.forEach(offset -> {
-
-            final int destX = this.location.getX() + offset.x;
-            final int destY = this.location.getY() + offset.y;
-
-            if (!BoardUtils.isValidLocation(destX, destY)) {
-                return;
+        final int destY = this.location.getY() + this.alliance.getDirectionY();
+        if (!BoardUtils.isValidRank(destY)) {
+            return ImmutableList.of();
+        }
+        final List<Move> legalMoves = new ArrayList<>();
+        final int index = BoardUtils.getTileIndex(this.location);
+        final int pushIndex = BoardUtils.getTileIndex(this.location.getX(), destY);
+        if (!BitBoards.isSet(board.getAllOccupancy(), pushIndex)) {
+            //Regular move
+            final Location candidateDestination = BoardUtils.getLocation(pushIndex);
+            if (this.getAlliance().isPawnPromotionSquare(candidateDestination)) {
+                addAllPossiblePawnPromotions(board, candidateDestination, legalMoves);
+            } else {
+                legalMoves.add(new PawnMove(board, this, candidateDestination));
             }
 
-            final Location candidateDestination = BoardUtils.getLocation(destX, destY);
-            if (offset.x == 0) {
-                if (!board.getTile(candidateDestination).isOccupied()) {
-                    //Regular move
-                    if (this.getAlliance().isPawnPromotionSquare(candidateDestination)) {
-                        addAllPossiblePawnPromotions(board, candidateDestination, legalMoves);
-                    } else {
-                        legalMoves.add(new PawnMove(board, this, candidateDestination));
-                    }
-
-                    if (this.isFirstMove) {
-                        //Pawn jump
-                        final int jumpDestY = candidateDestination.getY() + this.getAlliance().getDirectionY();
-                        if (!board.getTile(destX, jumpDestY).isOccupied()) {
-                            legalMoves.add(new PawnJump(board, this, BoardUtils.getLocation(destX, jumpDestY)));
-                        }
-                    }
+            if (this.isFirstMove) {
+                //Pawn jump
+                final int jumpIndex = BoardUtils.getTileIndex(this.location.getX(),
+                        destY + this.alliance.getDirectionY());
+                if (!BitBoards.isSet(board.getAllOccupancy(), jumpIndex)) {
+                    legalMoves.add(new PawnJump(board, this, BoardUtils.getLocation(jumpIndex)));
                 }
+            }
+        }
+
+        // Diagonal capture
+        final long opponentOccupancy = board.getAllOccupancy() & ~board.getOccupancy(this.alliance);
+        long captures = BitBoards.pawnAttacks(this.alliance, index) & opponentOccupancy;
+        while (captures != BitBoards.EMPTY) {
+            final int captureIndex = BitBoards.firstIndex(captures);
+            final Location candidateDestination = BoardUtils.getLocation(captureIndex);
+            // Pawn promotion by capturing
+            if (this.getAlliance().isPawnPromotionSquare(candidateDestination)) {
+                addAllPossiblePawnPromotions(board, candidateDestination, legalMoves);
             } else {
-                // Diagonal capture
-                final Tile destinationTile = board.getTile(candidateDestination);
-                if (destinationTile.isOccupied()) {
-                    final Piece capturedPiece = destinationTile.getPiece();
-                    if (capturedPiece.getAlliance() != this.alliance) {
-                        // Pawn promotion by capturing
-                        if (this.getAlliance().isPawnPromotionSquare(candidateDestination)) {
-                            addAllPossiblePawnPromotions(board, candidateDestination, legalMoves);
-                        } else {
-                            legalMoves.add(new PawnCapturingMove(board, this, candidateDestination,
-                                    capturedPiece));
-                        }
-                    }
-                } else {
-                    //En passant capture
-                    final Pawn enPassantPawn = board.getEnPassantPawn();
-                    if (enPassantPawn != null && !enPassantPawn.getAlliance().equals(this.alliance) &&
-                            enPassantPawn.getAlliance().getDirectionY() == this.alliance.getOppositeDirectionY() &&
-                            enPassantPawn.getLocation().getY() == this.location.getY()) {
-                        if (enPassantPawn.getLocation().getX() - this.location.getX() == offset.x) {
-                            legalMoves.add(new PawnEnPassantCapture(board, this, candidateDestination,
-                                    enPassantPawn));
-                        }
-                    }
-                }
+                legalMoves.add(new PawnCapturingMove(board, this, candidateDestination,
+                        board.getPiece(captureIndex)));
             }
-        });
+            captures = BitBoards.clearFirst(captures);
+        }
+
+        //En passant capture
+        final Pawn enPassantPawn = board.getEnPassantPawn();
+        if (enPassantPawn != null && !enPassantPawn.getAlliance().equals(this.alliance) &&
+                enPassantPawn.getLocation().getY() == this.location.getY() &&
+                Math.abs(enPassantPawn.getLocation().getX() - this.location.getX()) == 1) {
+            final int enPassantIndex = BoardUtils.getTileIndex(enPassantPawn.getLocation().getX(), destY);
+            if (!BitBoards.isSet(board.getAllOccupancy(), enPassantIndex)) {
+                legalMoves.add(new PawnEnPassantCapture(board, this, BoardUtils.getLocation(enPassantIndex),
+                        enPassantPawn));
+            }
+        }
 
         return ImmutableList.copyOf(legalMoves);
     }
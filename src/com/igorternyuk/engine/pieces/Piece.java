@@ -2,10 +2,10 @@ package com.igorternyuk.engine.pieces;
 
 import com.google.common.collect.ImmutableList;
 import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.board.BitBoards;
 import com.igorternyuk.engine.board.Board;
 import com.igorternyuk.engine.board.BoardUtils;
 import com.igorternyuk.engine.board.Location;
-import com.igorternyuk.engine.board.Tile;
 import com.igorternyuk.engine.moves.Move;
 import com.igorternyuk.engine.moves.PieceCapturingMove;
 import com.igorternyuk.engine.moves.RegularMove;
@@ -48,7 +48,8 @@ public abstract class Piece {
         this(pieceType, BoardUtils.getLocation(x, y), alliance);
     }
 
-    public abstract void setPossibleOffsets();
+    public void setPossibleOffsets() {
+    }
 
     public abstract Collection<Move> getLegalMoves(final Board board);
 
@@ -62,6 +63,16 @@ public abstract class Piece {
         return this.pieceType.getValue();
     }
 
+    //Material plus the piece-square bonus while the middlegame lasts
+    public int getMiddleGameValue() {
+        return getValue();
+    }
+
+    //Material plus the piece-square bonus once the endgame is reached
+    public int getEndGameValue() {
+        return getValue();
+    }
+
     public Location getLocation() {
         return this.location;
     }
@@ -74,68 +85,46 @@ public abstract class Piece {
         return this.isFirstMove;
     }
 
-    protected final Collection<Move> getSlidingPieceLegalMoves(final Board board) {
-        List<Move> legalMoves = new ArrayList<>();
-        this.moveVectors.forEach(offset -> {
-            int destX = this.location.getX() + offset.x;
-            int destY = this.location.getY() + offset.y;
-            if (BoardUtils.isValidLocation(destX, destY)) {
-                Location candidateDestination = BoardUtils.getLocation(destX, destY);
-                while (true) {
-                    Move move = getNextMove(board, candidateDestination);
-                    if (move.equals(Move.MoveFactory.NULL_MOVE)) {
-                        break;
-                    } else {
-                        legalMoves.add(move);
-                        if (move.isCapturingMove()) {
-                            break;
-                        } else {
-                            destX += offset.x;
-                            destY += offset.y;
-                            if (BoardUtils.isValidLocation(destX, destY)) {
-                                candidateDestination = BoardUtils.getLocation(destX, destY);
-                            } else {
-                                break;
-                            }
-                        }
-
-                    }
+    //Walks the attacked tiles ray by ray in the order of moveVectors, nearest tiles first
+    protected final Collection<Move> getSlidingPieceLegalMoves(final Board board, final long attacks) {
+        final List<Move> legalMoves = new ArrayList<>();
+        final int index = BoardUtils.getTileIndex(this.location);
+        final long targets = attacks & ~board.getOccupancy(this.alliance);
+        for (final Point offset : this.moveVectors) {
+            final boolean isAscending = offset.x + offset.y * BoardUtils.BOARD_SIZE > 0;
+            long rayTargets = targets & BitBoards.ray(index, offset.x, offset.y);
+            while (rayTargets != BitBoards.EMPTY) {
+                final int destinationIndex = isAscending
+                        ? BitBoards.firstIndex(rayTargets)
+                        : BitBoards.lastIndex(rayTargets);
+                final Location destination = BoardUtils.getLocation(destinationIndex);
+                final Piece capturedPiece = board.getPiece(destinationIndex);
+                if (capturedPiece == null) {
+                    legalMoves.add(new RegularMove(board, this, destination));
+                } else {
+                    legalMoves.add(new PieceCapturingMove(board, this, destination, capturedPiece));
                 }
+                rayTargets &= ~BitBoards.squareMask(destinationIndex);
             }
-        });
-        return ImmutableList.copyOf(legalMoves);
-    }
-
-    protected final Collection<Move> getJumpingPieceLegalMoves(final Board board) {
-        List<Move> legalMoves = new ArrayList<>();
-        this.moveVectors.forEach(offset -> {
-            int destX = this.location.getX() + offset.x;
-            int destY = this.location.getY() + offset.y;
-            if (BoardUtils.isValidLocation(destX, destY)) {
-                final Location candidateDestination = BoardUtils.getLocation(destX, destY);
-                Move move = getNextMove(board, candidateDestination);
-                if (!move.equals(Move.MoveFactory.NULL_MOVE)) {
-                    legalMoves.add(move);
-                }
-            }
-        });
+        }
         return ImmutableList.copyOf(legalMoves);
     }
 
-    private Move getNextMove(final Board board, final Location candidateDestination) {
-        if (BoardUtils.isValidLocation(candidateDestination)) {
-            final Tile destinationTile = board.getTile(candidateDestination);
-            if (destinationTile.isOccupied()) {
-                final Piece capturedPiece = destinationTile.getPiece();
-                if (!this.getAlliance().equals(capturedPiece.getAlliance())) {
-                    return new PieceCapturingMove(board, this, candidateDestination,
-                            capturedPiece);
-                }
+    protected final Collection<Move> getJumpingPieceLegalMoves(final Board board, final long attacks) {
+        final List<Move> legalMoves = new ArrayList<>();
+        long targets = attacks & ~board.getOccupancy(this.alliance);
+        while (targets != BitBoards.EMPTY) {
+            final int destinationIndex = BitBoards.firstIndex(targets);
+            final Location destination = BoardUtils.getLocation(destinationIndex);
+            final Piece capturedPiece = board.getPiece(destinationIndex);
+            if (capturedPiece == null) {
+                legalMoves.add(new RegularMove(board, this, destination));
             } else {
-                return new RegularMove(board, this, candidateDestination);
+                legalMoves.add(new PieceCapturingMove(board, this, destination, capturedPiece));
             }
+            targets = BitBoards.clearFirst(targets);
         }
-        return Move.MoveFactory.NULL_MOVE;
+        return ImmutableList.copyOf(legalMoves);
     }
 
     @Override
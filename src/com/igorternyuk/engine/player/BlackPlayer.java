@@ -2,7 +2,6 @@ package com.igorternyuk.engine.player;
 
 import com.igorternyuk.engine.Alliance;
 import com.igorternyuk.engine.board.Board;
-import com.igorternyuk.engine.moves.Move;
 import com.igorternyuk.engine.pieces.Piece;
 
 import java.util.Collection;
@@ -11,9 +10,8 @@ import java.util.Collection;
  * Created by igor on 03.12.17.
  */
 public class BlackPlayer extends Player {
-    public BlackPlayer(final Board board, final Collection<Move> legalMovesBlackPieces,
-                       final Collection<Move> legalMovesWhitePieces) {
-        super(board, legalMovesBlackPieces, legalMovesWhitePieces);
+    public BlackPlayer(final Board board) {
+        super(board);
     }
 
     @Override
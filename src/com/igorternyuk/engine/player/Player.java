@@ -3,6 +3,7 @@ package com.igorternyuk.engine.player;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.board.BitBoards;
 import com.igorternyuk.engine.board.Board;
 import com.igorternyuk.engine.board.BoardUtils;
 import com.igorternyuk.engine.board.Location;
@@ -10,6 +11,7 @@ import com.igorternyuk.engine.board.Tile;
 import com.igorternyuk.engine.moves.*;
 import com.igorternyuk.engine.pieces.King;
 import com.igorternyuk.engine.pieces.Piece;
+import com.igorternyuk.engine.pieces.PieceType;
 import com.igorternyuk.engine.pieces.Rook;
 
 import java.util.ArrayList;
@@ -24,31 +26,16 @@ import java.util.stream.Collectors;
 public abstract class Player {
     protected final Board board;
     private final King king;
-    private final Collection<Move> legalMoves;
-    private final Collection<Move> opponentLegalMoves;
     private final boolean isInCheck;
-    private final boolean kingSideCastlingCapable;
-    private final boolean queenSideCastlingCapable;
+    private Collection<Move> legalMoves;
+    private boolean kingSideCastlingCapable;
+    private boolean queenSideCastlingCapable;
 
-    protected Player(final Board board, final Collection<Move> legalMoves, final Collection<Move> opponentMoves) {
+    //Moves and castles are generated on first access, the check is answered from the attack tables
+    protected Player(final Board board) {
         this.board = board;
         this.king = establishKing();
-        this.opponentLegalMoves = opponentMoves;
-        this.isInCheck = !Player.calculateAttacksOnTile(this.king.getLocation(), opponentMoves).isEmpty();
-        if (!this.isCastled()) {
-            final Collection<Move> castles = this.calculateCastles(legalMoves, opponentMoves);
-            this.kingSideCastlingCapable = castles.stream().anyMatch(move -> move.isKingSideCastling());
-            this.queenSideCastlingCapable = castles.stream().anyMatch(move -> move.isQueenSideCastling());
-            /*System.out.println((this.getAlliance().isWhite() ? "White king" : "Black king") +
-                    " has castles = " + castles.size());*/
-            //System.out.println("Size of legal moves collection before adding the castles = " + legalMoves.size());
-            this.legalMoves = ImmutableList.copyOf(Iterables.concat(legalMoves, castles));
-        } else {
-            this.legalMoves = ImmutableList.copyOf(legalMoves);
-            this.kingSideCastlingCapable = false;
-            this.queenSideCastlingCapable = false;
-        }
-        //System.out.println("Size of legal moves collection after adding the castles = " + this.legalMoves.size());
+        this.isInCheck = board.isInCheck(getAlliance());
     }
 
     public Board getBoard() {
@@ -60,35 +47,51 @@ public abstract class Player {
     }
 
     public Collection<Move> getLegalMoves(){
+        if (this.legalMoves == null) {
+            this.legalMoves = calculateLegalMoves();
+        }
         return this.legalMoves;
     }
 
     public Collection<Move> getOpponentLegalMoves(){
-        return this.opponentLegalMoves;
+        return this.board.getPieceLegalMoves(getOpponentAlliance());
     }
 
     public boolean canCastleKingSide() {
-        return this.legalMoves.stream().anyMatch(Move::isKingSideCastling);
+        return getLegalMoves().stream().anyMatch(Move::isKingSideCastling);
     }
 
     public boolean canCastleQueenSide() {
-        return this.legalMoves.stream().anyMatch(Move::isQueenSideCastling);
+        return getLegalMoves().stream().anyMatch(Move::isQueenSideCastling);
     }
 
     public boolean canCastle() {
-        return this.kingSideCastlingCapable || this.queenSideCastlingCapable;
+        return isKingSideCastlingCapable() || isQueenSideCastlingCapable();
     }
 
     public boolean isKingSideCastlingCapable() {
+        getLegalMoves();
         return this.kingSideCastlingCapable;
     }
 
     public boolean isQueenSideCastlingCapable() {
+        getLegalMoves();
         return this.queenSideCastlingCapable;
     }
 
     private boolean isMoveLegal(final Move move) {
-        return this.legalMoves.contains(move);
+        return getLegalMoves().contains(move);
+    }
+
+    private Collection<Move> calculateLegalMoves() {
+        final Collection<Move> pieceLegalMoves = this.board.getPieceLegalMoves(getAlliance());
+        if (this.isCastled()) {
+            return ImmutableList.copyOf(pieceLegalMoves);
+        }
+        final Collection<Move> castles = this.calculateCastles();
+        this.kingSideCastlingCapable = castles.stream().anyMatch(Move::isKingSideCastling);
+        this.queenSideCastlingCapable = castles.stream().anyMatch(Move::isQueenSideCastling);
+        return ImmutableList.copyOf(Iterables.concat(pieceLegalMoves, castles));
     }
 
     public boolean isUnderCheck(){
@@ -113,12 +116,7 @@ public abstract class Player {
             return new MoveTransition(this.board, move, MoveStatus.ILLEGAL_MOVE);
         }
         final Board transitedBoard = move.execute(); //This method transfers the turn to the opponent
-        final Player playerWhoseMoveIsGoingToBeChecked = transitedBoard.getCurrentPlayer().getOpponent();
-        final Location currentPlayerLocation = playerWhoseMoveIsGoingToBeChecked.getPlayerKing().getLocation();
-        final Collection<Move> opponentLegalMoves = playerWhoseMoveIsGoingToBeChecked.getOpponentLegalMoves();
-        final Collection<Move> kingAttacks = Player.calculateAttacksOnTile(currentPlayerLocation, opponentLegalMoves);
-
-        if(!kingAttacks.isEmpty()){
+        if(transitedBoard.isInCheck(getAlliance())){
             return new MoveTransition(transitedBoard, move, MoveStatus.KING_IS_UNDER_CHECK);
         }
         return new MoveTransition(transitedBoard, move, MoveStatus.DONE);
@@ -130,8 +128,7 @@ public abstract class Player {
     public abstract Collection<Piece> getOpponentActivePieces();
     public abstract Alliance getOpponentAlliance();
 
-    private Collection<Move> calculateCastles(final Collection<Move> playerLegalMoves,
-                                              final Collection<Move> opponentLegalMoves) {
+    private Collection<Move> calculateCastles() {
         List<Move> castles = new ArrayList<>();
         if(this.king.isFirstMove() && !this.isUnderCheck()){
             final int lastRank = this.getAlliance().isWhite() ?
@@ -148,10 +145,8 @@ public abstract class Player {
                     final Tile kingsRookStartTile = this.board.getTile('h', lastRank);
                     if (kingsRookStartTile.isOccupied() && kingsRookStartTile.getPiece().getPieceType().isRook() &&
                             kingsRookStartTile.getPiece().isFirstMove()) {
-                        if (Player.calculateAttacksOnTile(kingsRookDestinationTile.getTileLocation(),
-                                opponentLegalMoves).isEmpty() &&
-                                Player.calculateAttacksOnTile(kingsSideKingsDestinationTile.getTileLocation(),
-                                        opponentLegalMoves).isEmpty()) {
+                        if (!isTileAttackedByOpponent(kingsRookDestinationTile) &&
+                                !isTileAttackedByOpponent(kingsSideKingsDestinationTile)) {
                             castles.add(new KingsSideCastling(this.board, this.king,
                                     kingsSideKingsDestinationTile.getTileLocation(),
                                     (Rook) kingsRookStartTile.getPiece(),
@@ -192,9 +187,7 @@ public abstract class Player {
                                 //System.out.println("Checking between tile x = " + x);
                                 final boolean isCurrentTileOccupiedNotByCastlingRook = currentTile.isOccupied() &&
                                         !currentTile.getPiece().equals(castlingRook);
-                                final boolean isCurrentTileUnderCheck =
-                                        !Player.calculateAttacksOnTile(currentTile.getTileLocation(),
-                                        opponentLegalMoves).isEmpty();
+                                final boolean isCurrentTileUnderCheck = isTileAttackedByOpponent(currentTile);
                                 //System.out.println("isCurrentTileOccupiedNotByCastlingRook = " +
                                         //isCurrentTileOccupiedNotByCastlingRook);
                                 //System.out.println("isCurrentTileUnderCheck = " + isCurrentTileUnderCheck);
@@ -228,10 +221,8 @@ public abstract class Player {
                     if(queensSideKnightsTile.isEmpty() && queensRookStartTile.isOccupied() &&
                             queensRookStartTile.getPiece().getPieceType().isRook() &&
                             queensRookStartTile.getPiece().isFirstMove()) {
-                        if (Player.calculateAttacksOnTile(queensSideKingsDestinationTile.getTileLocation(),
-                                this.getOpponentLegalMoves()).isEmpty() &&
-                                Player.calculateAttacksOnTile(queensRookDestinationTile.getTileLocation(),
-                                        this.getOpponentLegalMoves()).isEmpty()) {
+                        if (!isTileAttackedByOpponent(queensSideKingsDestinationTile) &&
+                                !isTileAttackedByOpponent(queensRookDestinationTile)) {
                             castles.add(new QueensSideCastling(this.board, this.king,
                                     queensSideKingsDestinationTile.getTileLocation(),
                                     (Rook) queensRookStartTile.getPiece(),
@@ -275,9 +266,7 @@ public abstract class Player {
                                 final boolean isCurrentTileOccupiedNotByCastlingRook = currentTile.isOccupied() &&
                                         !currentTile.getPiece().equals(castlingRook);
                                 //System.out.println("isCurrentTileOccupiedByCastlingRook = " + isCurrentTileOccupiedNotByCastlingRook);
-                                final boolean isCurrentTileUnderCheck =
-                                        !Player.calculateAttacksOnTile(currentTile.getTileLocation(),
-                                        opponentLegalMoves).isEmpty();
+                                final boolean isCurrentTileUnderCheck = isTileAttackedByOpponent(currentTile);
                                 //System.out.println("isCurrentTileUnderCheck = " + isCurrentTileUnderCheck);
                                 if(isCurrentTileOccupiedNotByCastlingRook || isCurrentTileUnderCheck){
                                     isAllBetweenTilesOK = false;
@@ -301,11 +290,19 @@ public abstract class Player {
         return ImmutableList.copyOf(castles);
     }
 
+    /*
+     * A tile is attacked if an opponent's piece could capture on it, whether the tile is empty or not.
+     * Looking at the opponent's move destinations instead gets pawns wrong: a pawn pushing to an empty tile
+     * does not attack it, while a pawn attacks the empty tiles diagonally in front of it.
+     */
+    private boolean isTileAttackedByOpponent(final Tile tile) {
+        return this.board.isTileAttacked(BoardUtils.getTileIndex(tile.getTileLocation()), getOpponentAlliance());
+    }
+
     private King establishKing() throws RuntimeException {
-        for (Piece piece : this.getActivePieces()) {
-            if (piece.getPieceType().isKing()) {
-                return (King) piece;
-            }
+        final long kingBitBoard = this.board.getPieceBitBoard(PieceType.KING, this.getAlliance());
+        if (kingBitBoard != BitBoards.EMPTY) {
+            return (King) this.board.getPiece(BitBoards.firstIndex(kingBitBoard));
         }
         throw new RuntimeException("\nPlayer should have the king!\n");
     }
@@ -318,7 +315,7 @@ public abstract class Player {
     }
 
     public List<Move> calcEscapeMoves() {
-        return this.legalMoves.stream().filter(move -> {
+        return getLegalMoves().stream().filter(move -> {
             final MoveTransition transition = makeMove(move);
             return transition.getMoveStatus().isDone();
         }).collect(Collectors.toList());
@@ -2,7 +2,6 @@ package com.igorternyuk.engine.player;
 
 import com.igorternyuk.engine.Alliance;
 import com.igorternyuk.engine.board.Board;
-import com.igorternyuk.engine.moves.Move;
 import com.igorternyuk.engine.pieces.Piece;
 
 import java.util.Collection;
@@ -12,9 +11,8 @@ import java.util.Collection;
  */
 
 public class WhitePlayer extends Player{
-    public WhitePlayer(final Board board, final Collection<Move> legalMovesWhitePieces,
-                       final Collection<Move> legalMovesBlackPieces) {
-        super(board, legalMovesWhitePieces, legalMovesBlackPieces);
+    public WhitePlayer(final Board board) {
+        super(board);
     }
 
     @Override
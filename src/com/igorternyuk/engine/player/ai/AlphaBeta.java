@@ -1,216 +1,827 @@
 package com.igorternyuk.engine.player.ai;
 
-import com.igorternyuk.engine.Alliance;
 import com.igorternyuk.engine.board.Board;
-import com.igorternyuk.engine.board.BoardUtils;
+import com.igorternyuk.engine.board.MoveList;
+import com.igorternyuk.engine.board.SearchBoard;
 import com.igorternyuk.engine.moves.Move;
-import com.igorternyuk.engine.moves.MoveTransition;
-import com.igorternyuk.engine.player.Player;
+import com.igorternyuk.engine.pieces.PieceType;
 
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 
 /**
  * Created by igor on 09.12.18.
+ *
+ * Fail-soft principal variation search in negamax form: every score is from the side to move's point of view.
+ * The first move of a node is searched with the full window and the others with a null window, which is widened
+ * again for a move that fails high. The root searches a narrow aspiration window around the score of the previous
+ * iteration and widens it on failure.
+ * Away from the principal variation a node whose static evaluation beats beta first lets the opponent move twice:
+ * if a reduced search still fails high, the node is cut off (null move pruning).
+ * Late quiet moves are searched to a reduced depth first and again to the full depth only if they beat alpha
+ * (late move reductions), and near the horizon they are not searched at all (late move pruning).
+ * At the frontier nodes the static evaluation decides alone when it is far outside the window: the node is cut off
+ * (reverse futility pruning), its quiet moves are skipped (futility pruning) or it drops into quiescence (razoring).
+ * Checks, recaptures and a hash move that is much better than every other move (a singular move) are searched
+ * deeper. Extensions are counted in fractions of a ply, and no path is extended by more plies than the iteration's
+ * depth.
+ * A node without a hash move first searches itself to a reduced depth to find one (internal iterative deepening),
+ * and a node away from the principal variation is cut off early when a capture beats beta by a margin in a shallow
+ * search (ProbCut).
  */
 public class AlphaBeta implements MoveStrategy {
-    private final BoardEvaluator boardEvaluator;
-    private final int searchDepth;
+    //Mating at the root; mating in n plies scores MATE_SCORE - n
+    public static final int MATE_SCORE = 1000000;
+    public static final int INFINITE_SCORE = MATE_SCORE + 1;
+    public static final int DRAW_SCORE = 0;
+    //Scores beyond this bound are mates found by the search
+    private static final int MATE_BOUND = MATE_SCORE - SearchBoard.MAX_SEARCH_PLY;
+    private static final int ASPIRATION_WINDOW = 50;
+    private static final int MIN_ASPIRATION_DEPTH = 4;
+    //A capture that cannot bring the score this close to alpha even with a positional gain is not searched
+    private static final int DELTA_MARGIN = 200;
+    private static final int NULL_MOVE_MIN_DEPTH = 2;
+    private static final int NULL_MOVE_REDUCTION = 3;
+    //Every this much of static evaluation above beta reduces the null move search one ply more, up to three plies
+    private static final int NULL_MOVE_EVALUATION_MARGIN = 200;
+    private static final int MAX_NULL_MOVE_EVALUATION_REDUCTION = 3;
+    //From this depth on a null move cutoff is verified by a reduced search without null moves
+    private static final int NULL_MOVE_VERIFICATION_DEPTH = 8;
+    //Quiet moves after this many moves are reduced from this depth on
+    private static final int LATE_MOVE_REDUCTION_MIN_MOVES = 3;
+    private static final int LATE_MOVE_REDUCTION_MIN_DEPTH = 3;
+    private static final int[][] LATE_MOVE_REDUCTIONS = createLateMoveReductions();
+    //Up to this depth, the quiet moves after the given number of them are pruned
+    private static final int LATE_MOVE_PRUNING_MAX_DEPTH = 3;
+    private static final int[] LATE_MOVE_PRUNING_COUNTS = {0, 4, 7, 12};
+    //The reduced depth search for a hash move: depth - 2 at PV nodes, depth / 2 elsewhere
+    private static final int PV_INTERNAL_ITERATIVE_DEEPENING_MIN_DEPTH = 5;
+    private static final int INTERNAL_ITERATIVE_DEEPENING_MIN_DEPTH = 8;
+    private static final int PV_INTERNAL_ITERATIVE_DEEPENING_REDUCTION = 2;
+    private static final int PROB_CUT_MIN_DEPTH = 5;
+    private static final int PROB_CUT_REDUCTION = 4;
+    private static final int PROB_CUT_MARGIN = 200;
+    //Extensions are counted in quarter plies
+    private static final int ONE_PLY = 4;
+    private static final int CHECK_EXTENSION = ONE_PLY;
+    private static final int RECAPTURE_EXTENSION = ONE_PLY / 2;
+    private static final int SINGULAR_EXTENSION = ONE_PLY;
+    //The hash move is tested for singularity from this depth on, if its entry is at most this much shallower
+    private static final int SINGULAR_EXTENSION_MIN_DEPTH = 8;
+    private static final int SINGULAR_EXTENSION_DEPTH_MARGIN = 3;
+    private static final int SINGULAR_EXTENSION_MARGIN_PER_PLY = 2;
+    //The clock and the stop flag are looked at once per this many nodes
+    private static final int ABORT_CHECK_INTERVAL_MASK = 255;
+    private static final BooleanSupplier NOT_CANCELLED = () -> false;
+    private final SinglePassBoardEvaluator boardEvaluator;
+    private final SearchLimits searchLimits;
+    private final PruningMargins pruningMargins;
     private long boardsEvaluated;
     private long cutsOffProduced;
-    private int quiescenceCount;
-    private Map<String, Integer> tt = new HashMap<>();
-    private static final int MAX_QUIESCENCE = 5000;
+    private long nodesSearched;
+    private long quiescenceNodes;
+    private final TranspositionTable transpositionTable;
+    private final MovePicker[] movePickers = createMovePickers();
+    private final MoveList[] failedQuietMoveLists = MoveList.createPlyMoveLists();
+    private final SearchHistory searchHistory = new SearchHistory();
+    //The extension of the path to each ply in quarter plies, and the move left out of the singularity test
+    private final int[] pathExtensions = new int[SearchBoard.MAX_SEARCH_PLY];
+    private final int[] excludedMoves = new int[SearchBoard.MAX_SEARCH_PLY];
+    private int extensionBudget;
+    private final int[][] pvTable = new int[SearchBoard.MAX_SEARCH_PLY][SearchBoard.MAX_SEARCH_PLY];
+    private final int[] pvLength = new int[SearchBoard.MAX_SEARCH_PLY];
+    private final int[] previousPv = new int[SearchBoard.MAX_SEARCH_PLY];
+    private int previousPvLength;
+    private int pvFollowPly;
+    private long hardDeadline;
+    private volatile boolean isStopRequested;
+    private BooleanSupplier isCancelled = NOT_CANCELLED;
+    private boolean isAborted;
+    //No null moves are made above this ply while a null move cutoff is being verified
+    private int nullMoveMinPly;
+    private int completedDepth;
+    private int rootScore;
+    private int bestScore;
+    private final int threadIndex;
+    private final Random rootMoveShuffler;
 
     //private Map<Board, Integer> tt = new HashMap<>();
     public AlphaBeta(int depth) {
-        this.boardEvaluator = new StandardBoardEvaluator();
-        this.searchDepth = depth;
+        this(depth, new TranspositionTable());
+    }
+
+    public AlphaBeta(final int depth, final TranspositionTable transpositionTable) {
+        this(SearchLimits.fixedDepth(depth), transpositionTable);
+    }
+
+    public AlphaBeta(final SearchLimits searchLimits, final TranspositionTable transpositionTable) {
+        this(searchLimits, transpositionTable, PruningMargins.DEFAULT);
+    }
+
+    public AlphaBeta(final SearchLimits searchLimits, final TranspositionTable transpositionTable,
+                     final PruningMargins pruningMargins) {
+        this(searchLimits, transpositionTable, pruningMargins, 0);
+    }
+
+    AlphaBeta(final SearchLimits searchLimits, final TranspositionTable transpositionTable, final int threadIndex) {
+        this(searchLimits, transpositionTable, PruningMargins.DEFAULT, threadIndex);
+    }
+
+    //Searches with a non-zero thread index are Lazy SMP helpers, they differ in depths and root move order
+    AlphaBeta(final SearchLimits searchLimits, final TranspositionTable transpositionTable,
+              final PruningMargins pruningMargins, final int threadIndex) {
+        this.boardEvaluator = new SinglePassBoardEvaluator();
+        this.transpositionTable = transpositionTable;
+        this.searchLimits = searchLimits;
+        this.pruningMargins = pruningMargins;
+        this.threadIndex = threadIndex;
+        this.rootMoveShuffler = new Random(threadIndex);
         this.boardsEvaluated = 0;
         this.cutsOffProduced = 0;
-        this.quiescenceCount = 0;
+        this.quiescenceNodes = 0;
     }
 
-    private int alphaBeta(final Board board, int depth, int alpha, int beta, Alliance alliance) {
-        System.out.println(" alpha = " + alpha + " beta = " + beta + " depth = " + depth);
-        if (depth == 0 || board.isEndGameScenario()) {
-            ++this.boardsEvaluated;
-            return this.boardEvaluator.evaluate(board, depth);
-        }
+    @Override
+    public Move execute(final Board board) {
+        resetStop();
+        return deepenIteratively(board);
+    }
 
-        Collection<Move> sortedMoves = MoveSorter.STANDARD.sort(board.getCurrentPlayer().getLegalMoves());
-        int current;
+    //Lazy SMP resets all its searches before it starts any thread, so that a stop of a search that has not yet
+    //begun is not lost
+    void resetStop() {
+        this.isStopRequested = false;
+    }
 
-        if (alliance.isWhite()) {
-            current = alpha;
-            for (final Move move : sortedMoves) {
-                final MoveTransition moveTransition = board.getCurrentPlayer().makeMove(move);
-                if (moveTransition.getMoveStatus().isDone()) {
-                    current = Math.max(current, alphaBeta(moveTransition.getTransitedBoard(),
-                            calculateQuiescenceDepth(moveTransition, depth), current, beta, Alliance.BLACK));
-                    if (current > beta) {
-                        ++this.cutsOffProduced;
-                        System.out.println("//////////////////////////////////////////////////////////");
-                        return beta;
-                        /*calculateQuiescenceDepth(moveTransition, depth), current*/
-                    }
-                }
+    //Runs the search without touching a stop request, which may already have come from another thread
+    Move deepenIteratively(final Board board) {
+        final long startTime = System.nanoTime();
+        this.hardDeadline = this.searchLimits.hasTimeLimit()
+                ? startTime + TimeUnit.MILLISECONDS.toNanos(this.searchLimits.getHardTimeLimit())
+                : Long.MAX_VALUE;
+        this.isAborted = false;
+        this.nullMoveMinPly = 0;
+        this.nodesSearched = 0;
+        this.boardsEvaluated = 0;
+        this.cutsOffProduced = 0;
+        this.quiescenceNodes = 0;
+        this.previousPvLength = 0;
+        this.completedDepth = 0;
+        this.bestScore = 0;
+        this.searchHistory.newSearch();
+        if (isMainThread()) {
+            this.transpositionTable.newSearch();
+        }
+        final SearchBoard searchBoard = new SearchBoard(board);
+        final MoveList rootMoves = createRootMoves(searchBoard);
+        if (isMainThread()) {
+            System.out.println(board.getCurrentPlayer() + " THINKING with " + this.searchLimits);
+        }
+        if (rootMoves.isEmpty()) {
+            return Move.MoveFactory.NULL_MOVE;
+        }
+        int bestMove = rootMoves.get(0);
+        //With a single legal move there is nothing to think about
+        final int maxDepth = rootMoves.size() == 1 ? 1 : this.searchLimits.getMaxDepth();
+        //Every other helper runs one ply ahead of the main thread
+        for (int depth = 1 + this.threadIndex % 2; depth <= maxDepth; ++depth) {
+            if (!isMainThread()) {
+                shuffleRootMoves(rootMoves);
             }
-        } else {
-            current = beta;
-            for (final Move move : sortedMoves) {
-                final MoveTransition moveTransition = board.getCurrentPlayer().makeMove(move);
-                if (moveTransition.getMoveStatus().isDone()) {
-                    current = Math.min(current, alphaBeta(moveTransition.getTransitedBoard(),
-                            calculateQuiescenceDepth(moveTransition, depth), alpha, current, Alliance.WHITE));
-                    if (current < alpha) {
-                        ++this.cutsOffProduced;
-                        System.out.println("//////////////////////////////////////////////////////////");
-                        return alpha;
-                    }
+            rootMoves.moveToFront(bestMove);
+            final int iterationBestMove = searchAspirationWindow(searchBoard, rootMoves, depth);
+            if (this.isAborted) {
+                //A partial iteration is only trusted when nothing has been completed yet
+                if (this.completedDepth == 0 && iterationBestMove != SearchBoard.NULL_MOVE) {
+                    bestMove = iterationBestMove;
+                    this.bestScore = this.rootScore;
                 }
+                break;
+            }
+            bestMove = iterationBestMove;
+            this.bestScore = this.rootScore;
+            this.completedDepth = depth;
+            this.previousPvLength = this.pvLength[0];
+            System.arraycopy(this.pvTable[0], 0, this.previousPv, 0, this.previousPvLength);
+            final long elapsedTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            if (isMainThread()) {
+                System.out.println("\t" + toString() + " depth " + depth + " score " + this.bestScore + " nodes "
+                        + this.nodesSearched + " time " + elapsedTime + " ms pv " + getPrincipalVariation());
+            }
+            if (elapsedTime >= this.searchLimits.getSoftTimeLimit()) {
+                break;
             }
         }
-        return current;
+
+        final Move bestBoardMove = SearchBoard.decodeMove(board, bestMove);
+        if (isMainThread()) {
+            System.out.println("Board evaluated = " + this.boardsEvaluated);
+            System.out.println("this.cutsOffProduced = " + this.cutsOffProduced);
+            System.out.println("Quiescence nodes = " + this.quiescenceNodes);
+            System.out.println("TT hit rate = " + String.format("%.1f", 100 * this.transpositionTable.getHitRate())
+                    + "%, fill = " + this.transpositionTable.getFillPermille() / 10.0 + "%");
+            System.out.println("Best move = " + bestBoardMove + " (depth " + this.completedDepth + ")");
+            System.out.println("Move time = " + calculateTimeTaken(startTime, System.nanoTime()));
+        }
+        return bestBoardMove;
+    }
+
+    //Makes the search in progress return the best move of its last completed iteration as soon as possible
+    public void stop() {
+        this.isStopRequested = true;
     }
 
+    public int getCompletedDepth() {
+        return this.completedDepth;
+    }
 
+    //From the point of view of the side to move at the root, like every score of this search
+    public int getBestScore() {
+        return this.bestScore;
+    }
 
-    @Override
-    public Move execute(final Board board) {
-        final long startTime = System.currentTimeMillis();
-        final Player currentPlayer = board.getCurrentPlayer();
-        Move bestMove = Move.MoveFactory.NULL_MOVE;
-        int highestSeenValue = Integer.MIN_VALUE;
-        int lowestSeenValue = Integer.MAX_VALUE;
-        int currentValue;
-        int moveCounter = 0;
-        final Collection<Move> legalMoves = MoveSorter.SMART.sort((board.getCurrentPlayer().getLegalMoves()));
-        final int numMoves = legalMoves.size();
-        System.out.println(board.getCurrentPlayer() + " THINKING with depth = " + this.searchDepth);
-        String s = "";
-        for (final Move move : legalMoves) {
-            final long candidateMoveStartTime = System.nanoTime();
-            ++moveCounter;
-            final MoveTransition moveTransition = board.getCurrentPlayer().makeMove(move);
-            this.quiescenceCount = 0;
-            if (moveTransition.getMoveStatus().isDone()) {
-                //final long candidateMoveStartTime = System.nanoTime();
-                currentValue = currentPlayer.getAlliance().isWhite() ?
-                        min(moveTransition.getTransitedBoard(), this.searchDepth - 1, highestSeenValue, lowestSeenValue) :
-                        max(moveTransition.getTransitedBoard(), this.searchDepth - 1, highestSeenValue, lowestSeenValue);
-                if (currentPlayer.getAlliance().isWhite() && currentValue > highestSeenValue) {
-                    highestSeenValue = currentValue;
+    public long getNodesSearched() {
+        return this.nodesSearched;
+    }
+
+    public MoveList getPrincipalVariation() {
+        final MoveList principalVariation = new MoveList(Math.max(1, this.previousPvLength));
+        for (int i = 0; i < this.previousPvLength; ++i) {
+            principalVariation.add(this.previousPv[i]);
+        }
+        return principalVariation;
+    }
+
+    //Entry point for parallel searches that split the tree themselves, the search gives up once it is cancelled
+    int searchSubtree(final SearchBoard board, final int depth, final int alpha, final int beta,
+                      final long hardDeadline, final BooleanSupplier isCancelled) {
+        this.hardDeadline = hardDeadline;
+        this.isCancelled = isCancelled;
+        this.isAborted = false;
+        this.nullMoveMinPly = 0;
+        this.previousPvLength = 0;
+        this.pvFollowPly = 0;
+        this.extensionBudget = depth * ONE_PLY;
+        this.pathExtensions[board.getPly()] = 0;
+        return search(board, depth, alpha, beta);
+    }
+
+    boolean isAborted() {
+        return this.isAborted;
+    }
+
+    private boolean isMainThread() {
+        return this.threadIndex == 0;
+    }
+
+    private void shuffleRootMoves(final MoveList rootMoves) {
+        for (int i = rootMoves.size() - 1; i > 0; --i) {
+            rootMoves.swap(i, this.rootMoveShuffler.nextInt(i + 1));
+        }
+    }
+
+    private MoveList createRootMoves(final SearchBoard board) {
+        final MoveList pseudoLegalMoves = new MoveList();
+        board.generateMoves(pseudoLegalMoves);
+        MoveSorter.SMART.sort(board, pseudoLegalMoves);
+        final MoveList rootMoves = new MoveList();
+        for (int i = 0; i < pseudoLegalMoves.size(); ++i) {
+            if (board.makeMove(pseudoLegalMoves.get(i)).isDone()) {
+                board.unmakeMove();
+                rootMoves.add(pseudoLegalMoves.get(i));
+            }
+        }
+        return rootMoves;
+    }
+
+    //Returns the best root move found at the given depth, the window starts around the previous iteration's score
+    private int searchAspirationWindow(final SearchBoard board, final MoveList rootMoves, final int depth) {
+        int alpha = -INFINITE_SCORE;
+        int beta = INFINITE_SCORE;
+        int delta = ASPIRATION_WINDOW;
+        if (depth >= MIN_ASPIRATION_DEPTH && !isMateScore(this.bestScore)) {
+            alpha = Math.max(this.bestScore - delta, -INFINITE_SCORE);
+            beta = Math.min(this.bestScore + delta, INFINITE_SCORE);
+        }
+        int bestMove = SearchBoard.NULL_MOVE;
+        while (true) {
+            final int move = searchRoot(board, rootMoves, depth, alpha, beta);
+            if (this.isAborted) {
+                return move != SearchBoard.NULL_MOVE ? move : bestMove;
+            }
+            if (move != SearchBoard.NULL_MOVE) {
+                bestMove = move;
+                rootMoves.moveToFront(move);
+            }
+            //Only a score inside the window is exact, otherwise the failing side of the window is widened
+            if (this.rootScore <= alpha) {
+                alpha = Math.max(this.rootScore - delta, -INFINITE_SCORE);
+            } else if (this.rootScore >= beta) {
+                beta = Math.min(this.rootScore + delta, INFINITE_SCORE);
+            } else {
+                return bestMove;
+            }
+            delta += delta;
+        }
+    }
+
+    //Returns the root move that raised alpha, the score of the root is left in rootScore
+    private int searchRoot(final SearchBoard board, final MoveList rootMoves, final int depth, int alpha,
+                           final int beta) {
+        int bestScore = -INFINITE_SCORE;
+        int bestMove = SearchBoard.NULL_MOVE;
+        this.pvLength[0] = 0;
+        this.pvFollowPly = 0;
+        this.extensionBudget = depth * ONE_PLY;
+        this.pathExtensions[1] = 0;
+        for (int i = 0; i < rootMoves.size(); ++i) {
+            final int move = rootMoves.get(i);
+            board.makeMove(move);
+            followPrincipalVariation(0, move);
+            final int score = searchChild(board, depth - 1, alpha, beta, i == 0);
+            board.unmakeMove();
+            leavePrincipalVariation(0);
+            if (this.isAborted) {
+                break;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
                     bestMove = move;
-                    if (moveTransition.getTransitedBoard().getBlackPlayer().isCheckMate()) {
+                    updatePrincipalVariation(0, move);
+                    if (score >= beta) {
                         break;
                     }
-                } else if (currentPlayer.getAlliance().isBlack() && currentValue < lowestSeenValue) {
-                    lowestSeenValue = currentValue;
+                }
+            }
+        }
+        this.rootScore = bestScore;
+        return bestMove;
+    }
+
+    //Searches the position after a move: the first move with the full window, the later ones with a null window
+    private int searchChild(final SearchBoard board, final int depth, final int alpha, final int beta,
+                            final boolean isFirstMove) {
+        if (isFirstMove) {
+            return -search(board, depth, -beta, -alpha);
+        }
+        final int score = -search(board, depth, -alpha - 1, -alpha);
+        //A move that beats the first one inside the window is searched again to get its exact score
+        if (score > alpha && score < beta && !this.isAborted) {
+            return -search(board, depth, -beta, -alpha);
+        }
+        return score;
+    }
+
+    private int search(final SearchBoard board, final int depth, int alpha, int beta) {
+        final int ply = board.getPly();
+        this.pvLength[ply] = ply;
+        if (checkAbort()) {
+            return 0;
+        }
+        if (board.isInsufficientMaterial()) {
+            return DRAW_SCORE;
+        }
+        //Mate distance pruning: a shorter mate has been found already
+        alpha = Math.max(alpha, -MATE_SCORE + ply);
+        beta = Math.min(beta, MATE_SCORE - ply - 1);
+        if (alpha >= beta) {
+            return alpha;
+        }
+        if (depth <= 0 || ply >= SearchBoard.MAX_SEARCH_PLY - 1) {
+            return quiescence(board, alpha, beta);
+        }
+        final long key = board.getZobristKey();
+        final long entry = this.transpositionTable.probe(key);
+        //The singularity test searches the node again without the hash move, its score is not the node's score
+        final int excludedMove = this.excludedMoves[ply];
+        final boolean isSingularityTest = excludedMove != SearchBoard.NULL_MOVE;
+        if (!isSingularityTest && isUsableEntry(entry, depth, alpha, beta, ply)) {
+            return scoreFromTable(TranspositionTable.getScore(entry), ply);
+        }
+        final boolean isInCheck = board.isInCheck();
+        final boolean isPvNode = beta - alpha > 1;
+        //Only the nodes away from the principal variation and out of check are pruned by their static evaluation
+        final boolean canPrune = !isPvNode && !isInCheck && !isSingularityTest;
+        final int staticEvaluation = canPrune ? evaluate(board) : -INFINITE_SCORE;
+        if (canPrune && !isMateScore(beta) && this.pruningMargins.isReverseFutilityPruningAllowed(depth)
+                && staticEvaluation - this.pruningMargins.getReverseFutilityMargin(depth) >= beta) {
+            return staticEvaluation - this.pruningMargins.getReverseFutilityMargin(depth);
+        }
+        if (canPrune && !isMateScore(alpha) && this.pruningMargins.isRazoringAllowed(depth)
+                && staticEvaluation + this.pruningMargins.getRazoringMargin(depth) <= alpha) {
+            final int score = quiescence(board, alpha, beta);
+            if (this.isAborted || depth == 1 || score <= alpha) {
+                return score;
+            }
+        }
+        if (canPrune && isNullMoveAllowed(board, depth)) {
+            final int score = searchNullMove(board, depth, beta, staticEvaluation);
+            if (this.isAborted) {
+                return 0;
+            }
+            if (score >= beta) {
+                return score;
+            }
+        }
+        if (canPrune && depth >= PROB_CUT_MIN_DEPTH && !isMateScore(beta)) {
+            final int score = searchProbCut(board, depth, beta, staticEvaluation);
+            if (this.isAborted) {
+                return 0;
+            }
+            if (score >= beta) {
+                return score;
+            }
+        }
+        int hashMove = isFollowingPrincipalVariation(ply)
+                ? this.previousPv[ply]
+                : TranspositionTable.getMove(entry);
+        if (hashMove == SearchBoard.NULL_MOVE && !isSingularityTest && (isPvNode
+                ? depth >= PV_INTERNAL_ITERATIVE_DEEPENING_MIN_DEPTH
+                : depth >= INTERNAL_ITERATIVE_DEEPENING_MIN_DEPTH)) {
+            search(board, isPvNode ? depth - PV_INTERNAL_ITERATIVE_DEEPENING_REDUCTION : depth / 2, alpha, beta);
+            if (this.isAborted) {
+                return 0;
+            }
+            hashMove = TranspositionTable.getMove(this.transpositionTable.probe(key));
+        }
+        final int singularMove = !isSingularityTest && isSingularExtensionAllowed(entry, depth, ply)
+                && isSingularMove(board, entry, depth)
+                ? TranspositionTable.getMove(entry)
+                : SearchBoard.NULL_MOVE;
+        if (this.isAborted) {
+            return 0;
+        }
+        final int lastMove = board.getLastMove();
+        final MovePicker movePicker = this.movePickers[ply];
+        movePicker.init(board, hashMove, this.searchHistory);
+        final MoveList failedQuietMoves = this.failedQuietMoveLists[ply];
+        failedQuietMoves.clear();
+        final int originalAlpha = alpha;
+        int bestScore = -INFINITE_SCORE;
+        int bestMove = SearchBoard.NULL_MOVE;
+        int legalMoves = 0;
+        final boolean canPruneLateMoves = canPrune && depth <= LATE_MOVE_PRUNING_MAX_DEPTH;
+        final int futilityScore = canPrune && !isMateScore(alpha)
+                && this.pruningMargins.isFutilityPruningAllowed(depth)
+                ? staticEvaluation + this.pruningMargins.getFutilityMargin(depth)
+                : INFINITE_SCORE;
+        for (int move = movePicker.next(); move != SearchBoard.NULL_MOVE; move = movePicker.next()) {
+            if (isSingularityTest && SearchBoard.getMoveKey(move) == SearchBoard.getMoveKey(excludedMove)) {
+                continue;
+            }
+            final boolean isQuietMove = SearchBoard.isQuietMove(move) && !this.searchHistory.isKiller(ply, move);
+            if (canPruneLateMoves && isQuietMove && legalMoves > 0 && !isMateScore(bestScore)
+                    && failedQuietMoves.size() >= LATE_MOVE_PRUNING_COUNTS[depth]) {
+                continue;
+            }
+            if (!board.makeMove(move).isDone()) {
+                continue;
+            }
+            followPrincipalVariation(ply, move);
+            ++legalMoves;
+            final boolean givesCheck = board.isInCheck();
+            //A futile quiet move still counts as legal, so the node is never taken for a mate or a stalemate.
+            //It also counts as a failed quiet move, for late move pruning and for the history malus
+            if (futilityScore <= alpha && legalMoves > 1 && SearchBoard.isQuietMove(move) && !givesCheck) {
+                board.unmakeMove();
+                leavePrincipalVariation(ply);
+                bestScore = Math.max(bestScore, futilityScore);
+                failedQuietMoves.add(move);
+                continue;
+            }
+            final int newDepth = depth - 1 + extend(ply, calculateExtension(move, lastMove, givesCheck, singularMove));
+            final int reduction = isQuietMove && !isInCheck && !givesCheck
+                    ? calculateLateMoveReduction(depth, legalMoves, isPvNode)
+                    : 0;
+            int score;
+            if (reduction > 0) {
+                score = -search(board, newDepth - reduction, -alpha - 1, -alpha);
+                if (score > alpha && !this.isAborted) {
+                    score = searchChild(board, newDepth, alpha, beta, false);
+                }
+            } else {
+                score = searchChild(board, newDepth, alpha, beta, legalMoves == 1);
+            }
+            board.unmakeMove();
+            leavePrincipalVariation(ply);
+            if (this.isAborted) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
                     bestMove = move;
-                    if (moveTransition.getTransitedBoard().getWhitePlayer().isCheckMate()) {
+                    updatePrincipalVariation(ply, move);
+                    if (score >= beta) {
+                        ++this.cutsOffProduced;
+                        if (SearchBoard.isQuietMove(move)) {
+                            this.searchHistory.update(board, move, depth, failedQuietMoves);
+                        }
                         break;
                     }
                 }
+            }
+            if (SearchBoard.isQuietMove(move)) {
+                failedQuietMoves.add(move);
+            }
+        }
+        if (isSingularityTest) {
+            return legalMoves == 0 ? alpha : bestScore;
+        }
+        //Checkmate or stalemate
+        if (legalMoves == 0) {
+            final int score = isInCheck ? -MATE_SCORE + ply : DRAW_SCORE;
+            this.transpositionTable.store(key, depth, TranspositionTable.EXACT, scoreToTable(score, ply),
+                    SearchBoard.NULL_MOVE);
+            return score;
+        }
+        final int bound = bestScore >= beta
+                ? TranspositionTable.LOWER_BOUND
+                : bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+        this.transpositionTable.store(key, depth, bound, scoreToTable(bestScore, ply), bestMove);
+        return bestScore;
+    }
 
-                final String quiescenceInfo = " " + score(currentPlayer, highestSeenValue, lowestSeenValue) + " q: " + this.quiescenceCount;
-                s = "\t" + toString() + "(" + this.searchDepth + "), m: (" + moveCounter + "/" + numMoves + ") " + move + ", best:  " + bestMove
+    //Grows with the logarithms of both the depth and the move number, the reduced search keeps at least one ply
+    private static int calculateLateMoveReduction(final int depth, final int moveNumber, final boolean isPvNode) {
+        if (depth < LATE_MOVE_REDUCTION_MIN_DEPTH || moveNumber <= LATE_MOVE_REDUCTION_MIN_MOVES) {
+            return 0;
+        }
+        final int reduction = LATE_MOVE_REDUCTIONS[Math.min(depth, SearchLimits.MAX_SEARCH_DEPTH)]
+                [Math.min(moveNumber, SearchBoard.MAX_MOVES - 1)] - (isPvNode ? 1 : 0);
+        return Math.max(0, Math.min(reduction, depth - 2));
+    }
 
-                        + quiescenceInfo + ", t: " + calculateTimeTaken(candidateMoveStartTime, System.nanoTime());
+    private static int[][] createLateMoveReductions() {
+        final int[][] reductions = new int[SearchLimits.MAX_SEARCH_DEPTH + 1][SearchBoard.MAX_MOVES];
+        for (int depth = 1; depth < reductions.length; ++depth) {
+            for (int moveNumber = 1; moveNumber < SearchBoard.MAX_MOVES; ++moveNumber) {
+                reductions[depth][moveNumber] = (int) (0.75 + Math.log(depth) * Math.log(moveNumber) / 2.25);
             }
-            System.out.println(s);
         }
-
-        System.out.println("Board evaluated = " + this.boardsEvaluated);
-        System.out.println("this.cutsOffProduced = " + this.cutsOffProduced);
-        System.out.println("Best move = " + bestMove);
-        System.out.println("Move time = " + (System.currentTimeMillis() - startTime) / 1000 + " seconds");
-        return bestMove;
+        return reductions;
     }
 
-    private static String score(final Player currentPlayer,
-                                final int highestSeenValue,
-                                final int lowestSeenValue) {
+    //Returns a score of at least beta if a capture that wins enough material beats beta by the margin in a reduced
+    //search: a full depth search would then very likely beat beta too
+    private int searchProbCut(final SearchBoard board, final int depth, final int beta, final int staticEvaluation) {
+        final int ply = board.getPly();
+        final int probCutBeta = beta + PROB_CUT_MARGIN;
+        final MovePicker movePicker = this.movePickers[ply];
+        movePicker.initQuiescence(board);
+        for (int move = movePicker.next(); move != SearchBoard.NULL_MOVE; move = movePicker.next()) {
+            if (board.evaluateExchange(move) < probCutBeta - staticEvaluation || !board.makeMove(move).isDone()) {
+                continue;
+            }
+            followPrincipalVariation(ply, move);
+            this.pathExtensions[ply + 1] = this.pathExtensions[ply];
+            //The quiescence search weeds out most of the captures that fail cheaply
+            int score = -quiescence(board, -probCutBeta, -probCutBeta + 1);
+            if (score >= probCutBeta && !this.isAborted) {
+                score = -search(board, depth - PROB_CUT_REDUCTION, -probCutBeta, -probCutBeta + 1);
+            }
+            board.unmakeMove();
+            leavePrincipalVariation(ply);
+            if (this.isAborted) {
+                return 0;
+            }
+            if (score >= probCutBeta) {
+                this.transpositionTable.store(board.getZobristKey(), depth - PROB_CUT_REDUCTION + 1,
+                        TranspositionTable.LOWER_BOUND, scoreToTable(score, ply), move);
+                return score;
+            }
+        }
+        return -INFINITE_SCORE;
+    }
 
-        if (currentPlayer.getAlliance().isWhite()) {
-            return "[score: " + highestSeenValue + "]";
-        } else if (currentPlayer.getAlliance().isBlack()) {
-            return "[score: " + lowestSeenValue + "]";
+    //In quarter plies, a move earns one extension at most
+    private static int calculateExtension(final int move, final int lastMove, final boolean givesCheck,
+                                          final int singularMove) {
+        if (givesCheck) {
+            return CHECK_EXTENSION;
         }
-        throw new RuntimeException("Eso tiene mala pinta hijo mio!");
+        if (singularMove != SearchBoard.NULL_MOVE
+                && SearchBoard.getMoveKey(move) == SearchBoard.getMoveKey(singularMove)) {
+            return SINGULAR_EXTENSION;
+        }
+        final boolean isRecapture = SearchBoard.isCapturingMove(move) && lastMove != SearchBoard.NULL_MOVE
+                && SearchBoard.isCapturingMove(lastMove)
+                && SearchBoard.getDestination(move) == SearchBoard.getDestination(lastMove);
+        return isRecapture ? RECAPTURE_EXTENSION : 0;
+    }
+
+    //Adds the extension to the path within the budget and returns the whole plies the child is searched deeper
+    private int extend(final int ply, final int extension) {
+        final int pathExtension = Math.min(this.pathExtensions[ply] + extension,
+                Math.max(this.extensionBudget, this.pathExtensions[ply]));
+        this.pathExtensions[ply + 1] = pathExtension;
+        return pathExtension / ONE_PLY - this.pathExtensions[ply] / ONE_PLY;
+    }
+
+    private static boolean isSingularExtensionAllowed(final long entry, final int depth, final int ply) {
+        return depth >= SINGULAR_EXTENSION_MIN_DEPTH && entry != TranspositionTable.NO_ENTRY
+                && TranspositionTable.getMove(entry) != SearchBoard.NULL_MOVE
+                && TranspositionTable.getBound(entry) != TranspositionTable.UPPER_BOUND
+                && TranspositionTable.getDepth(entry) >= depth - SINGULAR_EXTENSION_DEPTH_MARGIN
+                && !isMateScore(scoreFromTable(TranspositionTable.getScore(entry), ply));
     }
 
+    //The hash move is singular when every other move fails low against a bound somewhat below its score
+    private boolean isSingularMove(final SearchBoard board, final long entry, final int depth) {
+        final int ply = board.getPly();
+        final int singularBeta = scoreFromTable(TranspositionTable.getScore(entry), ply)
+                - SINGULAR_EXTENSION_MARGIN_PER_PLY * depth;
+        this.excludedMoves[ply] = TranspositionTable.getMove(entry);
+        final int score = search(board, depth / 2, singularBeta - 1, singularBeta);
+        this.excludedMoves[ply] = SearchBoard.NULL_MOVE;
+        return score < singularBeta;
+    }
+
+    //Not twice in a row, and not with pawns and king only, where being forced to move is often what loses
+    private boolean isNullMoveAllowed(final SearchBoard board, final int depth) {
+        return depth >= NULL_MOVE_MIN_DEPTH && board.getPly() >= this.nullMoveMinPly
+                && board.getLastMove() != SearchBoard.NULL_MOVE
+                && board.hasNonPawnMaterial(board.getSideToMove());
+    }
+
+    //Returns a score of at least beta if the node can be cut off without searching its moves
+    private int searchNullMove(final SearchBoard board, final int depth, final int beta,
+                               final int staticEvaluation) {
+        if (staticEvaluation < beta || isMateScore(beta)) {
+            return staticEvaluation;
+        }
+        final int reduction = NULL_MOVE_REDUCTION + depth / 6 + Math.min(
+                (staticEvaluation - beta) / NULL_MOVE_EVALUATION_MARGIN, MAX_NULL_MOVE_EVALUATION_REDUCTION);
+        this.pathExtensions[board.getPly() + 1] = this.pathExtensions[board.getPly()];
+        board.makeNullMove();
+        int score = -search(board, depth - 1 - reduction, -beta, -beta + 1);
+        board.unmakeNullMove();
+        if (this.isAborted || score < beta) {
+            return score;
+        }
+        //Passing the turn proves no mate
+        if (isMateScore(score)) {
+            score = beta;
+        }
+        if (depth < NULL_MOVE_VERIFICATION_DEPTH) {
+            return score;
+        }
+        final int ply = board.getPly();
+        final int previousNullMoveMinPly = this.nullMoveMinPly;
+        this.nullMoveMinPly = ply + 3 * (depth - reduction) / 4;
+        final int verificationScore = search(board, depth - reduction, beta - 1, beta);
+        this.nullMoveMinPly = previousNullMoveMinPly;
+        return verificationScore >= beta ? score : verificationScore;
+    }
 
-    private int max(final Board board,
-                    final int depth,
-                    final int highest,
-                    final int lowest) {
-        if (depth == 0 || board.isEndGameScenario()) {
-            this.boardsEvaluated++;
-            return this.boardEvaluator.evaluate(board, depth);
+    //Resolves the captures and promotions left at the horizon, so that only quiet positions are evaluated.
+    //The side to move may stand pat instead of capturing, except in check, where every evasion is searched.
+    private int quiescence(final SearchBoard board, int alpha, final int beta) {
+        final int ply = board.getPly();
+        this.pvLength[ply] = ply;
+        ++this.quiescenceNodes;
+        if (checkAbort()) {
+            return 0;
+        }
+        if (board.isInsufficientMaterial()) {
+            return DRAW_SCORE;
+        }
+        final boolean isInCheck = board.isInCheck();
+        if (ply >= SearchBoard.MAX_SEARCH_PLY - 1) {
+            return isInCheck ? DRAW_SCORE : evaluate(board);
         }
-        int currentHighest = highest;
-        for (final Move move : MoveSorter.SMART.sort((board.getCurrentPlayer().getLegalMoves()))) {
-            final MoveTransition moveTransition = board.getCurrentPlayer().makeMove(move);
-            if (moveTransition.getMoveStatus().isDone()) {
-                currentHighest = Math.max(currentHighest, min(moveTransition.getTransitedBoard(),
-                        calculateQuiescenceDepth(moveTransition, depth), currentHighest, lowest));
-                if (currentHighest >= lowest) {
-                    ++this.cutsOffProduced;
-                    //return lowest;
-                    break;
+        final MovePicker movePicker = this.movePickers[ply];
+        int bestScore;
+        int standPat = 0;
+        if (isInCheck) {
+            bestScore = -MATE_SCORE + ply;
+            movePicker.init(board, SearchBoard.NULL_MOVE, this.searchHistory);
+        } else {
+            standPat = evaluate(board);
+            if (standPat >= beta) {
+                return standPat;
+            }
+            alpha = Math.max(alpha, standPat);
+            bestScore = standPat;
+            movePicker.initQuiescence(board);
+        }
+        for (int move = movePicker.next(); move != SearchBoard.NULL_MOVE; move = movePicker.next()) {
+            //Delta pruning: even winning the captured piece for free leaves the score below alpha
+            if (!isInCheck && !SearchBoard.isPawnPromotionMove(move)
+                    && standPat + getCapturedValue(move) + DELTA_MARGIN <= alpha) {
+                continue;
+            }
+            //A capture that loses material in the exchange cannot do better than standing pat
+            if (!isInCheck && MoveSorter.isLosingCapture(board, move)) {
+                continue;
+            }
+            if (!board.makeMove(move).isDone()) {
+                continue;
+            }
+            final int score = -quiescence(board, -beta, -alpha);
+            board.unmakeMove();
+            if (this.isAborted) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (score >= beta) {
+                        ++this.cutsOffProduced;
+                        break;
+                    }
                 }
             }
         }
-        return currentHighest;
+        return bestScore;
     }
 
+    private static int getCapturedValue(final int move) {
+        final PieceType capturedPieceType = SearchBoard.getCapturedPieceType(move);
+        return capturedPieceType == null ? 0 : capturedPieceType.getValue();
+    }
 
-    private int min(final Board board,
-                    final int depth,
-                    final int highest,
-                    final int lowest) {
-        if (depth == 0 || board.isEndGameScenario()) {
-            this.boardsEvaluated++;
-            return this.boardEvaluator.evaluate(board, depth);
+    private static MovePicker[] createMovePickers() {
+        final MovePicker[] movePickers = new MovePicker[SearchBoard.MAX_SEARCH_PLY];
+        for (int ply = 0; ply < movePickers.length; ++ply) {
+            movePickers[ply] = new MovePicker();
         }
-        int currentLowest = lowest;
-        for (final Move move : MoveSorter.SMART.sort((board.getCurrentPlayer().getLegalMoves()))) {
-            final MoveTransition moveTransition = board.getCurrentPlayer().makeMove(move);
-            if (moveTransition.getMoveStatus().isDone()) {
-                currentLowest = Math.min(currentLowest, max(moveTransition.getTransitedBoard(),
-                        calculateQuiescenceDepth(moveTransition, depth), highest, currentLowest));
-                if (currentLowest <= highest) {
-                    ++this.cutsOffProduced;
-                    //return highest;
-                    break;
-                }
-            }
+        return movePickers;
+    }
+
+    private int evaluate(final SearchBoard board) {
+        ++this.boardsEvaluated;
+        final int score = this.boardEvaluator.evaluate(board, 0);
+        return board.getSideToMove().isWhite() ? score : -score;
+    }
+
+    private boolean checkAbort() {
+        if ((++this.nodesSearched & ABORT_CHECK_INTERVAL_MASK) == 0 && !this.isAborted) {
+            this.isAborted = this.isStopRequested || System.nanoTime() >= this.hardDeadline
+                    || this.isCancelled.getAsBoolean();
         }
-        return currentLowest;
+        return this.isAborted;
     }
 
-    private int calculateQuiescenceDepth(final MoveTransition moveTransition, int depth) {
-        if (depth == 1 && this.quiescenceCount < MAX_QUIESCENCE) {
-            int activityMeasure = 0;
-            if (moveTransition.getTransitedBoard().getCurrentPlayer().isUnderCheck()) {
-                activityMeasure += 2;
-            }
-            final Collection<Move> history = BoardUtils.getMoveHistory(moveTransition.getTransitedBoard(), 4);
+    //The moves made so far all lie on the principal variation of the previous iteration
+    private boolean isFollowingPrincipalVariation(final int ply) {
+        return this.pvFollowPly == ply && ply < this.previousPvLength;
+    }
 
-            for (final Move move : history) {
-                if (move.isCapturingMove()) {
-                    ++activityMeasure;
-                }
-            }
+    private void followPrincipalVariation(final int ply, final int move) {
+        if (isFollowingPrincipalVariation(ply)
+                && SearchBoard.getMoveKey(move) == SearchBoard.getMoveKey(this.previousPv[ply])) {
+            this.pvFollowPly = ply + 1;
+        }
+    }
 
-            if (activityMeasure > 3) {
-                ++this.quiescenceCount;
-                return 2;
-            }
+    private void leavePrincipalVariation(final int ply) {
+        this.pvFollowPly = Math.min(this.pvFollowPly, ply);
+    }
+
+    //The best line from this ply is the move followed by the best line of the child
+    private void updatePrincipalVariation(final int ply, final int move) {
+        final int[] line = this.pvTable[ply];
+        line[ply] = move;
+        final int childLength = Math.max(this.pvLength[ply + 1], ply + 1);
+        System.arraycopy(this.pvTable[ply + 1], ply + 1, line, ply + 1, childLength - ply - 1);
+        this.pvLength[ply] = childLength;
+    }
+
+    private static boolean isUsableEntry(final long entry, final int depth, final int alpha, final int beta,
+                                         final int ply) {
+        if (entry == TranspositionTable.NO_ENTRY || TranspositionTable.getDepth(entry) < depth) {
+            return false;
         }
-        return depth - 1;
+        final int score = scoreFromTable(TranspositionTable.getScore(entry), ply);
+        switch (TranspositionTable.getBound(entry)) {
+            case TranspositionTable.EXACT:
+                return true;
+            case TranspositionTable.LOWER_BOUND:
+                return score >= beta;
+            case TranspositionTable.UPPER_BOUND:
+                return score <= alpha;
+            default:
+                return false;
+        }
+    }
+
+    static boolean isMateScore(final int score) {
+        return Math.abs(score) > MATE_BOUND;
+    }
+
+    //Mate scores are stored as the distance from the stored node, not from the root, so they stay valid elsewhere
+    static int scoreToTable(final int score, final int ply) {
+        return score > MATE_BOUND ? score + ply : score < -MATE_BOUND ? score - ply : score;
+    }
+
+    static int scoreFromTable(final int score, final int ply) {
+        return score > MATE_BOUND ? score - ply : score < -MATE_BOUND ? score + ply : score;
     }
 
     private static String calculateTimeTaken(final long start, final long end) {
@@ -0,0 +1,162 @@
+package com.igorternyuk.engine.player.ai;
+
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.moves.Move;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by igor on 18.12.18.
+ *
+ * Lazy SMP: the main search and its helpers search the same root in parallel and share nothing but the
+ * transposition table, so the helpers speed the main search up by filling the table ahead of it. Every other
+ * helper runs one ply ahead and each helper searches the root moves in its own order. The first search to finish
+ * stops the others, and the move of the search that completed the deepest iteration is played.
+ */
+public class LazySmp implements MoveStrategy {
+    private final SearchLimits searchLimits;
+    private final SearchLimits helperSearchLimits;
+    private final TranspositionTable transpositionTable;
+    private final AlphaBeta[] searches;
+    private final long[] nodesSearched;
+    private final int[] completedDepths;
+    private long searchTime;
+    private int bestThread;
+
+    public LazySmp(final SearchLimits searchLimits, final TranspositionTable transpositionTable,
+                   final int numberOfThreads) {
+        this(searchLimits, searchLimits, transpositionTable, numberOfThreads);
+    }
+
+    //The helpers may get other limits than the main search, whichever search finishes first still stops them all
+    public LazySmp(final SearchLimits searchLimits, final SearchLimits helperSearchLimits,
+                   final TranspositionTable transpositionTable, final int numberOfThreads) {
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException("Lazy SMP needs at least one thread");
+        }
+        this.searchLimits = searchLimits;
+        this.helperSearchLimits = helperSearchLimits;
+        this.transpositionTable = transpositionTable;
+        this.searches = new AlphaBeta[numberOfThreads];
+        this.nodesSearched = new long[numberOfThreads];
+        this.completedDepths = new int[numberOfThreads];
+    }
+
+    @Override
+    public Move execute(final Board board) {
+        final long startTime = System.nanoTime();
+        //Boards fill their caches lazily, so the shared root board is filled before the helpers see it
+        board.getCurrentPlayer().getLegalMoves();
+        for (int i = 0; i < this.searches.length; ++i) {
+            this.searches[i] = new AlphaBeta(i == 0 ? this.searchLimits : this.helperSearchLimits,
+                    this.transpositionTable, i);
+            this.searches[i].resetStop();
+        }
+        final Move[] bestMoves = new Move[this.searches.length];
+        final Thread[] helpers = new Thread[this.searches.length];
+        for (int i = 1; i < this.searches.length; ++i) {
+            final int threadIndex = i;
+            helpers[i] = new Thread(() -> bestMoves[threadIndex] = search(board, threadIndex),
+                    "Lazy SMP helper " + i);
+            helpers[i].setDaemon(true);
+            helpers[i].start();
+        }
+        bestMoves[0] = search(board, 0);
+        for (int i = 1; i < helpers.length; ++i) {
+            try {
+                helpers[i].join();
+            } catch (InterruptedException e) {
+                stop();
+                Thread.currentThread().interrupt();
+            }
+        }
+        this.searchTime = System.nanoTime() - startTime;
+        this.bestThread = 0;
+        for (int i = 0; i < this.searches.length; ++i) {
+            this.nodesSearched[i] = this.searches[i].getNodesSearched();
+            this.completedDepths[i] = bestMoves[i] != null ? this.searches[i].getCompletedDepth() : -1;
+            if (this.completedDepths[i] > this.completedDepths[this.bestThread]) {
+                this.bestThread = i;
+            }
+        }
+        System.out.println(createReport());
+        return bestMoves[this.bestThread];
+    }
+
+    public void stop() {
+        for (final AlphaBeta search : this.searches) {
+            if (search != null) {
+                search.stop();
+            }
+        }
+    }
+
+    public int getNumberOfThreads() {
+        return this.searches.length;
+    }
+
+    public int getBestThread() {
+        return this.bestThread;
+    }
+
+    public int getCompletedDepth(final int thread) {
+        return this.completedDepths[thread];
+    }
+
+    public long getNodesSearched(final int thread) {
+        return this.nodesSearched[thread];
+    }
+
+    public long getNodesSearched() {
+        long nodes = 0;
+        for (final long threadNodes : this.nodesSearched) {
+            nodes += threadNodes;
+        }
+        return nodes;
+    }
+
+    public long getSearchTimeInMilliseconds() {
+        return TimeUnit.NANOSECONDS.toMillis(this.searchTime);
+    }
+
+    public long getNodesPerSecond(final int thread) {
+        return calculateNodesPerSecond(this.nodesSearched[thread]);
+    }
+
+    public long getNodesPerSecond() {
+        return calculateNodesPerSecond(getNodesSearched());
+    }
+
+    //The first search to finish, by reaching its depth or its soft time limit, ends the others
+    private Move search(final Board board, final int threadIndex) {
+        try {
+            return this.searches[threadIndex].deepenIteratively(board);
+        } finally {
+            stop();
+        }
+    }
+
+    private long calculateNodesPerSecond(final long nodes) {
+        return this.searchTime == 0 ? 0 : nodes * TimeUnit.SECONDS.toNanos(1) / this.searchTime;
+    }
+
+    private String createReport() {
+        final StringBuilder report = new StringBuilder(toString()).append(": ")
+                .append(this.searches.length).append(" threads, ")
+                .append(getNodesSearched()).append(" nodes, ")
+                .append(getNodesPerSecond()).append(" nps, ")
+                .append(getSearchTimeInMilliseconds()).append(" ms, move of thread ").append(this.bestThread);
+        for (int i = 0; i < this.searches.length; ++i) {
+            report.append("\n\tthread ").append(i)
+                    .append(": depth ").append(this.completedDepths[i])
+                    .append(", nodes ").append(this.nodesSearched[i])
+                    .append(", nps ").append(getNodesPerSecond(i));
+        }
+        return report.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "LazySmp";
+    }
+}
@@ -1,8 +1,9 @@
 package com.igorternyuk.engine.player.ai;
 
 import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.board.MoveList;
+import com.igorternyuk.engine.board.SearchBoard;
 import com.igorternyuk.engine.moves.Move;
-import com.igorternyuk.engine.moves.MoveTransition;
 
 import java.util.Collection;
 
@@ -12,6 +13,7 @@ import java.util.Collection;
 public class MiniMax implements MoveStrategy {
     private final BoardEvaluator boardEvaluator;
     private int searchDepth;
+    private final MoveList[] moveLists = MoveList.createPlyMoveLists();
 
     public MiniMax(int searchDepth) {
         this.boardEvaluator = new StandardBoardEvaluator();
@@ -38,14 +40,15 @@ public class MiniMax implements MoveStrategy {
             }
             return false;
         }));
+        final SearchBoard searchBoard = new SearchBoard(board);
         for (final Move move : legalMoves) {
-            MoveTransition moveTransition = board.getCurrentPlayer().makeMove(move);
-            if (moveTransition.getMoveStatus().isDone()) {
+            if (searchBoard.makeMove(SearchBoard.encodeMove(move)).isDone()) {
                 if (board.getCurrentPlayer().getAlliance().isWhite()) {
-                    currentValue = min(moveTransition.getTransitedBoard(), searchDepth - 1);
+                    currentValue = min(searchBoard, searchDepth - 1);
                 } else {
-                    currentValue = max(moveTransition.getTransitedBoard(), searchDepth - 1);
+                    currentValue = max(searchBoard, searchDepth - 1);
                 }
+                searchBoard.unmakeMove();
 
                 if (board.getCurrentPlayer().getAlliance().isWhite()) {
                     if (highestDetectedValue < currentValue) {
@@ -66,53 +69,61 @@ public class MiniMax implements MoveStrategy {
         return bestMove;
     }
 
-    public int min(final Board board, int depth) {
+    public int min(final SearchBoard board, int depth) {
 
         //If we are on the leaf level of the tree we can evaluate the current position
-        if (depth == 0 || isGameOver(board)) {
-            return this.boardEvaluator.evaluate(board, depth);
+        if (depth == 0 || board.isInsufficientMaterial()) {
+            return this.boardEvaluator.evaluate(board.toBoard(), depth);
         }
+        boolean hasLegalMoves = false;
         int lowestDetectedValue = Integer.MAX_VALUE;
-        Collection<Move> legalMoves = board.getCurrentPlayer().getLegalMoves();
-        for (final Move move : legalMoves) {
-            final MoveTransition moveTransition = board.getCurrentPlayer().makeMove(move);
-            if (moveTransition.getMoveStatus().isDone()) {
-                final int currentValue = max(moveTransition.getTransitedBoard(), depth - 1);
+        final MoveList legalMoves = this.moveLists[board.getPly()];
+        board.generateMoves(legalMoves);
+        for (int i = 0; i < legalMoves.size(); ++i) {
+            if (board.makeMove(legalMoves.get(i)).isDone()) {
+                hasLegalMoves = true;
+                final int currentValue = max(board, depth - 1);
+                board.unmakeMove();
                 if (currentValue < lowestDetectedValue) {
                     lowestDetectedValue = currentValue;
                 }
             }
         }
+        //Checkmate or stalemate
+        if (!hasLegalMoves) {
+            return this.boardEvaluator.evaluate(board.toBoard(), depth);
+        }
         return lowestDetectedValue;
     }
 
-    public int max(final Board board, int depth) {
+    public int max(final SearchBoard board, int depth) {
 
         //If we are on the leaf level of the tree we can evaluate the current position
-        if (depth == 0 || isGameOver(board)) {
-            return this.boardEvaluator.evaluate(board, depth);
+        if (depth == 0 || board.isInsufficientMaterial()) {
+            return this.boardEvaluator.evaluate(board.toBoard(), depth);
         }
 
+        boolean hasLegalMoves = false;
         int highestDetectedValue = Integer.MIN_VALUE;
-        Collection<Move> legalMoves = board.getCurrentPlayer().getLegalMoves();
-        for (final Move move : legalMoves) {
-            final MoveTransition moveTransition = board.getCurrentPlayer().makeMove(move);
-            if (moveTransition.getMoveStatus().isDone()) {
-                final int currentValue = min(moveTransition.getTransitedBoard(), depth - 1);
+        final MoveList legalMoves = this.moveLists[board.getPly()];
+        board.generateMoves(legalMoves);
+        for (int i = 0; i < legalMoves.size(); ++i) {
+            if (board.makeMove(legalMoves.get(i)).isDone()) {
+                hasLegalMoves = true;
+                final int currentValue = min(board, depth - 1);
+                board.unmakeMove();
                 if (currentValue > highestDetectedValue) {
                     highestDetectedValue = currentValue;
                 }
             }
         }
+        //Checkmate or stalemate
+        if (!hasLegalMoves) {
+            return this.boardEvaluator.evaluate(board.toBoard(), depth);
+        }
         return highestDetectedValue;
     }
 
-    private static boolean isGameOver(final Board board) {
-        return board.getCurrentPlayer().isCheckMate()
-                || board.getCurrentPlayer().isInStalemate()
-                || board.isInsufficientMaterial();
-    }
-
     @Override
     public String toString() {
         return "MiniMax";
@@ -0,0 +1,189 @@
+package com.igorternyuk.engine.player.ai;
+
+import com.igorternyuk.engine.board.BoardUtils;
+import com.igorternyuk.engine.board.MoveList;
+import com.igorternyuk.engine.board.SearchBoard;
+
+/**
+ * Created by igor on 18.12.18.
+ *
+ * Hands the pseudo-legal moves of a node out one at a time in stages: the hash move, the captures that do not lose
+ * material, the killers and the counter move, the other quiet moves by history score and finally the losing
+ * captures. A stage is generated only when the ones before it have not produced a cutoff, and the next move is
+ * found by selecting the best remaining one instead of sorting the whole stage.
+ * The search keeps one picker per ply.
+ */
+public final class MovePicker {
+    private enum Stage {
+        HASH_MOVE,
+        GENERATE_CAPTURES,
+        WINNING_CAPTURES,
+        FIRST_KILLER,
+        SECOND_KILLER,
+        COUNTER_MOVE,
+        GENERATE_QUIET_MOVES,
+        QUIET_MOVES,
+        LOSING_CAPTURES,
+        DONE
+    }
+
+    private final MoveList captures = new MoveList();
+    private final int[] captureScores = new int[SearchBoard.MAX_MOVES];
+    private final MoveList losingCaptures = new MoveList();
+    private final MoveList quietMoves = new MoveList();
+    private final int[] quietMoveScores = new int[SearchBoard.MAX_MOVES];
+    private SearchBoard board;
+    private SearchHistory searchHistory;
+    private Stage stage;
+    private boolean isQuiescence;
+    private int hashMove;
+    private int firstKiller;
+    private int secondKiller;
+    private int counterMove;
+    private int nextCapture;
+    private int nextQuietMove;
+    private int nextLosingCapture;
+
+    //Every move of the node, the hash move first if it is a move of this position
+    public void init(final SearchBoard board, final int hashMove, final SearchHistory searchHistory) {
+        this.board = board;
+        this.searchHistory = searchHistory;
+        this.isQuiescence = false;
+        this.hashMove = board.findMove(hashMove);
+        this.firstKiller = SearchBoard.NULL_MOVE;
+        this.secondKiller = SearchBoard.NULL_MOVE;
+        this.counterMove = SearchBoard.NULL_MOVE;
+        this.stage = Stage.HASH_MOVE;
+    }
+
+    //Captures and promotions only, most valuable victim first, none of them held back as losing
+    public void initQuiescence(final SearchBoard board) {
+        this.board = board;
+        this.searchHistory = null;
+        this.isQuiescence = true;
+        this.hashMove = SearchBoard.NULL_MOVE;
+        this.stage = Stage.GENERATE_CAPTURES;
+    }
+
+    //Returns the null move once every move has been handed out
+    public int next() {
+        while (true) {
+            switch (this.stage) {
+                case HASH_MOVE:
+                    this.stage = Stage.GENERATE_CAPTURES;
+                    if (this.hashMove != SearchBoard.NULL_MOVE) {
+                        return this.hashMove;
+                    }
+                    break;
+                case GENERATE_CAPTURES:
+                    this.board.generateTacticalMoves(this.captures);
+                    for (int i = 0; i < this.captures.size(); ++i) {
+                        this.captureScores[i] = BoardUtils.mvvlva(this.board, this.captures.get(i));
+                    }
+                    this.nextCapture = 0;
+                    this.losingCaptures.clear();
+                    this.stage = Stage.WINNING_CAPTURES;
+                    break;
+                case WINNING_CAPTURES:
+                    while (this.nextCapture < this.captures.size()) {
+                        final int move = selectBest(this.captures, this.captureScores, this.nextCapture++);
+                        if (isHashMove(move)) {
+                            continue;
+                        }
+                        if (!this.isQuiescence && MoveSorter.isLosingCapture(this.board, move)) {
+                            this.losingCaptures.add(move);
+                            continue;
+                        }
+                        return move;
+                    }
+                    this.stage = this.isQuiescence ? Stage.DONE : Stage.FIRST_KILLER;
+                    break;
+                case FIRST_KILLER:
+                    this.stage = Stage.SECOND_KILLER;
+                    this.firstKiller = findQuietMove(this.searchHistory.getKiller(this.board.getPly(), 0));
+                    if (this.firstKiller != SearchBoard.NULL_MOVE) {
+                        return this.firstKiller;
+                    }
+                    break;
+                case SECOND_KILLER:
+                    this.stage = Stage.COUNTER_MOVE;
+                    this.secondKiller = findQuietMove(this.searchHistory.getKiller(this.board.getPly(), 1));
+                    if (this.secondKiller != SearchBoard.NULL_MOVE) {
+                        return this.secondKiller;
+                    }
+                    break;
+                case COUNTER_MOVE:
+                    this.stage = Stage.GENERATE_QUIET_MOVES;
+                    this.counterMove = findQuietMove(this.searchHistory.getCounterMove(this.board));
+                    if (this.counterMove != SearchBoard.NULL_MOVE) {
+                        return this.counterMove;
+                    }
+                    break;
+                case GENERATE_QUIET_MOVES:
+                    this.board.generateQuietMoves(this.quietMoves);
+                    for (int i = 0; i < this.quietMoves.size(); ++i) {
+                        this.quietMoveScores[i] = this.searchHistory.getHistoryScore(this.board.getSideToMove(),
+                                this.quietMoves.get(i));
+                    }
+                    this.nextQuietMove = 0;
+                    this.stage = Stage.QUIET_MOVES;
+                    break;
+                case QUIET_MOVES:
+                    while (this.nextQuietMove < this.quietMoves.size()) {
+                        final int move = selectBest(this.quietMoves, this.quietMoveScores, this.nextQuietMove++);
+                        if (!isHashMove(move) && !isSameMove(move, this.firstKiller)
+                                && !isSameMove(move, this.secondKiller) && !isSameMove(move, this.counterMove)) {
+                            return move;
+                        }
+                    }
+                    this.nextLosingCapture = 0;
+                    this.stage = Stage.LOSING_CAPTURES;
+                    break;
+                case LOSING_CAPTURES:
+                    if (this.nextLosingCapture < this.losingCaptures.size()) {
+                        return this.losingCaptures.get(this.nextLosingCapture++);
+                    }
+                    this.stage = Stage.DONE;
+                    break;
+                default:
+                    return SearchBoard.NULL_MOVE;
+            }
+        }
+    }
+
+    //Killers and counter moves come from other positions: they are played only if they are quiet moves here
+    //and have not been handed out already
+    private int findQuietMove(final int move) {
+        final int quietMove = this.board.findMove(move);
+        if (quietMove == SearchBoard.NULL_MOVE || !SearchBoard.isQuietMove(quietMove) || isHashMove(quietMove)
+                || isSameMove(quietMove, this.firstKiller) || isSameMove(quietMove, this.secondKiller)) {
+            return SearchBoard.NULL_MOVE;
+        }
+        return quietMove;
+    }
+
+    private boolean isHashMove(final int move) {
+        return isSameMove(move, this.hashMove);
+    }
+
+    private static boolean isSameMove(final int first, final int second) {
+        return second != SearchBoard.NULL_MOVE && SearchBoard.getMoveKey(first) == SearchBoard.getMoveKey(second);
+    }
+
+    //One step of selection sort: brings the best scored of the remaining moves to the given index
+    private static int selectBest(final MoveList moves, final int[] scores, final int index) {
+        int best = index;
+        for (int i = index + 1; i < moves.size(); ++i) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        if (best != index) {
+            moves.swap(index, best);
+            final int score = scores[index];
+            scores[index] = scores[best];
+            scores[best] = score;
+        }
+        return moves.get(index);
+    }
+}
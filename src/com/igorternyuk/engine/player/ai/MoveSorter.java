@@ -3,6 +3,8 @@ package com.igorternyuk.engine.player.ai;
 import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.Ordering;
 import com.igorternyuk.engine.board.BoardUtils;
+import com.igorternyuk.engine.board.MoveList;
+import com.igorternyuk.engine.board.SearchBoard;
 import com.igorternyuk.engine.moves.Move;
 
 import java.util.Collection;
@@ -20,6 +22,14 @@ public enum MoveSorter {
                     .compare(BoardUtils.mvvlva(second), BoardUtils.mvvlva(first))
                     .result()).immutableSortedCopy(moves);
         }
+
+        @Override
+        protected int compare(final SearchBoard board, final int first, final int second) {
+            return ComparisonChain.start()
+                    .compareTrueFirst(SearchBoard.isCastlingMove(first), SearchBoard.isCastlingMove(second))
+                    .compare(BoardUtils.mvvlva(board, second), BoardUtils.mvvlva(board, first))
+                    .result();
+        }
     },
     EXPENSIVE {
         @Override
@@ -30,6 +40,15 @@ public enum MoveSorter {
                     .compare(BoardUtils.mvvlva(second), BoardUtils.mvvlva(first))
                     .result()).immutableSortedCopy(moves);
         }
+
+        @Override
+        protected int compare(final SearchBoard board, final int first, final int second) {
+            return ComparisonChain.start()
+                    .compareTrueFirst(BoardUtils.kingThreat(board, first), BoardUtils.kingThreat(board, second))
+                    .compareTrueFirst(SearchBoard.isCastlingMove(first), SearchBoard.isCastlingMove(second))
+                    .compare(BoardUtils.mvvlva(board, second), BoardUtils.mvvlva(board, first))
+                    .result();
+        }
     },
     SMART {
         @Override
@@ -43,7 +62,49 @@ public enum MoveSorter {
                     .compare(first.getMovedPiece().getValue(), second.getMovedPiece().getValue())
                     .result()).immutableSortedCopy(moves);
         }
+
+        //All moves are made on the same board here, so there is no board threat to compare.
+        //Captures that do not lose material come first and captures that do come after the quiet moves.
+        @Override
+        protected int compare(final SearchBoard board, final int first, final int second) {
+            return ComparisonChain.start()
+                    .compare(getCaptureOrder(board, first), getCaptureOrder(board, second))
+                    .compareTrueFirst(SearchBoard.isCastlingMove(first), SearchBoard.isCastlingMove(second))
+                    .compare(BoardUtils.mvvlva(board, second), BoardUtils.mvvlva(board, first))
+                    .compare(board.getMovedPiece(first).getValue(), board.getMovedPiece(second).getValue())
+                    .result();
+        }
     };
 
+    private static final int WINNING_CAPTURE = 0;
+    private static final int NO_CAPTURE = 1;
+    private static final int LOSING_CAPTURE = 2;
+
     public abstract Collection<Move> sort(final Collection<Move> moves);
+
+    protected abstract int compare(final SearchBoard board, final int first, final int second);
+
+    public static boolean isLosingCapture(final SearchBoard board, final int move) {
+        return SearchBoard.isCapturingMove(move) && board.evaluateExchange(move) < 0;
+    }
+
+    private static int getCaptureOrder(final SearchBoard board, final int move) {
+        if (!SearchBoard.isCapturingMove(move)) {
+            return NO_CAPTURE;
+        }
+        return board.evaluateExchange(move) < 0 ? LOSING_CAPTURE : WINNING_CAPTURE;
+    }
+
+    //Stable insertion sort, so equal moves keep the generation order just like Ordering.immutableSortedCopy
+    public void sort(final SearchBoard board, final MoveList moves) {
+        for (int i = 1; i < moves.size(); ++i) {
+            final int move = moves.get(i);
+            int j = i - 1;
+            while (j >= 0 && compare(board, moves.get(j), move) > 0) {
+                moves.set(j + 1, moves.get(j));
+                --j;
+            }
+            moves.set(j + 1, move);
+        }
+    }
 }
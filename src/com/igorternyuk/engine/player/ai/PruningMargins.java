@@ -0,0 +1,95 @@
+package com.igorternyuk.engine.player.ai;
+
+import java.util.Arrays;
+
+/**
+ * Created by igor on 18.12.18.
+ *
+ * The centipawn margins of the frontier node pruning, indexed by the remaining depth. A node is pruned only up to
+ * the last depth that has a margin, so a shorter array switches the pruning off at higher depths and an array
+ * holding the unused depth 0 entry alone switches it off completely.
+ */
+public final class PruningMargins {
+    public static final PruningMargins DEFAULT = new Builder().build();
+
+    private final int[] futilityMargins;
+    private final int[] reverseFutilityMargins;
+    private final int[] razoringMargins;
+
+    private PruningMargins(final Builder builder) {
+        this.futilityMargins = builder.futilityMargins;
+        this.reverseFutilityMargins = builder.reverseFutilityMargins;
+        this.razoringMargins = builder.razoringMargins;
+    }
+
+    //Quiet moves are skipped when the static evaluation plus the margin does not reach alpha
+    public boolean isFutilityPruningAllowed(final int depth) {
+        return depth < this.futilityMargins.length;
+    }
+
+    public int getFutilityMargin(final int depth) {
+        return this.futilityMargins[depth];
+    }
+
+    //The node is cut off when the static evaluation minus the margin still beats beta
+    public boolean isReverseFutilityPruningAllowed(final int depth) {
+        return depth < this.reverseFutilityMargins.length;
+    }
+
+    public int getReverseFutilityMargin(final int depth) {
+        return this.reverseFutilityMargins[depth];
+    }
+
+    //The node drops into quiescence when the static evaluation plus the margin does not reach alpha
+    public boolean isRazoringAllowed(final int depth) {
+        return depth < this.razoringMargins.length;
+    }
+
+    public int getRazoringMargin(final int depth) {
+        return this.razoringMargins[depth];
+    }
+
+    @Override
+    public String toString() {
+        return "futility " + Arrays.toString(this.futilityMargins)
+                + ", reverse futility " + Arrays.toString(this.reverseFutilityMargins)
+                + ", razoring " + Arrays.toString(this.razoringMargins);
+    }
+
+    public static class Builder {
+        private int[] futilityMargins = {0, 200, 300, 500};
+        private int[] reverseFutilityMargins = {0, 120, 240, 360};
+        private int[] razoringMargins = {0, 300, 500};
+
+        public Builder setFutilityMargins(final int... futilityMargins) {
+            this.futilityMargins = checkMargins(futilityMargins);
+            return this;
+        }
+
+        public Builder setReverseFutilityMargins(final int... reverseFutilityMargins) {
+            this.reverseFutilityMargins = checkMargins(reverseFutilityMargins);
+            return this;
+        }
+
+        public Builder setRazoringMargins(final int... razoringMargins) {
+            this.razoringMargins = checkMargins(razoringMargins);
+            return this;
+        }
+
+        public PruningMargins build() {
+            return new PruningMargins(this);
+        }
+
+        private static int[] checkMargins(final int[] margins) {
+            if (margins.length == 0) {
+                throw new IllegalArgumentException("Margins start with the one of depth 0");
+            }
+            for (final int margin : margins) {
+                if (margin < 0) {
+                    throw new IllegalArgumentException("Pruning margins cannot be negative");
+                }
+            }
+            return margins.clone();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.igorternyuk.engine.player.ai;
+
+import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.board.BitBoards;
+import com.igorternyuk.engine.board.BoardUtils;
+import com.igorternyuk.engine.board.MoveList;
+import com.igorternyuk.engine.board.SearchBoard;
+
+import java.util.Arrays;
+
+/**
+ * Created by igor on 18.12.18.
+ *
+ * What the search has learned about quiet moves: two killer moves per ply, a butterfly history table indexed by
+ * [side][from][to] and a counter move for every piece and destination of the opponent's last move. All of them
+ * are updated when a quiet move produces a beta cutoff. History scores follow the gravity formula, so they stay
+ * within MAX_HISTORY_SCORE and a new cutoff counts more than many old ones.
+ */
+public final class SearchHistory {
+    public static final int MAX_HISTORY_SCORE = 16384;
+    private static final int KILLERS_PER_PLY = 2;
+    private static final int MAX_HISTORY_BONUS = 1024;
+
+    private final int[][] killers = new int[SearchBoard.MAX_SEARCH_PLY][KILLERS_PER_PLY];
+    private final int[][][] history =
+            new int[Alliance.values().length][BoardUtils.TOTAL_NUMBER_OF_TILES][BoardUtils.TOTAL_NUMBER_OF_TILES];
+    private final int[][] counterMoves = new int[BitBoards.NUMBER_OF_PIECE_INDICES][BoardUtils.TOTAL_NUMBER_OF_TILES];
+
+    public void clear() {
+        for (final int[] plyKillers : this.killers) {
+            Arrays.fill(plyKillers, SearchBoard.NULL_MOVE);
+        }
+        for (final int[][] sideHistory : this.history) {
+            for (final int[] fromHistory : sideHistory) {
+                Arrays.fill(fromHistory, 0);
+            }
+        }
+        for (final int[] pieceCounterMoves : this.counterMoves) {
+            Arrays.fill(pieceCounterMoves, SearchBoard.NULL_MOVE);
+        }
+    }
+
+    //Killers belong to the positions of the last search, the history only fades
+    public void newSearch() {
+        for (final int[] plyKillers : this.killers) {
+            Arrays.fill(plyKillers, SearchBoard.NULL_MOVE);
+        }
+        for (final int[][] sideHistory : this.history) {
+            for (final int[] fromHistory : sideHistory) {
+                for (int to = 0; to < fromHistory.length; ++to) {
+                    fromHistory[to] /= 2;
+                }
+            }
+        }
+    }
+
+    //The quiet move cut off at the given depth, the quiet moves searched before it did not
+    public void update(final SearchBoard board, final int move, final int depth, final MoveList failedQuietMoves) {
+        final int ply = board.getPly();
+        final int[] plyKillers = this.killers[ply];
+        if (SearchBoard.getMoveKey(plyKillers[0]) != SearchBoard.getMoveKey(move)) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+        final int lastMove = board.getLastMove();
+        if (lastMove != SearchBoard.NULL_MOVE) {
+            this.counterMoves[getPieceIndex(board, lastMove)][SearchBoard.getDestination(lastMove)] = move;
+        }
+        final int bonus = Math.min(depth * depth, MAX_HISTORY_BONUS);
+        final int side = board.getSideToMove().ordinal();
+        addHistory(side, move, bonus);
+        for (int i = 0; i < failedQuietMoves.size(); ++i) {
+            addHistory(side, failedQuietMoves.get(i), -bonus);
+        }
+    }
+
+    public int getKiller(final int ply, final int slot) {
+        return this.killers[ply][slot];
+    }
+
+    //The move that last refuted the opponent's last move, or the null move
+    public int getCounterMove(final SearchBoard board) {
+        final int lastMove = board.getLastMove();
+        return lastMove == SearchBoard.NULL_MOVE
+                ? SearchBoard.NULL_MOVE
+                : this.counterMoves[getPieceIndex(board, lastMove)][SearchBoard.getDestination(lastMove)];
+    }
+
+    public int getHistoryScore(final Alliance side, final int move) {
+        return this.history[side.ordinal()][SearchBoard.getOrigin(move)][SearchBoard.getDestination(move)];
+    }
+
+    public boolean isKiller(final int ply, final int move) {
+        final int moveKey = SearchBoard.getMoveKey(move);
+        return SearchBoard.getMoveKey(this.killers[ply][0]) == moveKey
+                || SearchBoard.getMoveKey(this.killers[ply][1]) == moveKey;
+    }
+
+    private void addHistory(final int side, final int move, final int bonus) {
+        final int[] fromHistory = this.history[side][SearchBoard.getOrigin(move)];
+        final int to = SearchBoard.getDestination(move);
+        fromHistory[to] += bonus - fromHistory[to] * Math.abs(bonus) / MAX_HISTORY_SCORE;
+    }
+
+    //The opponent made the last move
+    private static int getPieceIndex(final SearchBoard board, final int lastMove) {
+        final Alliance opponent = board.getSideToMove().isWhite() ? Alliance.BLACK : Alliance.WHITE;
+        return BitBoards.pieceIndex(SearchBoard.getMovedPieceType(lastMove), opponent);
+    }
+}
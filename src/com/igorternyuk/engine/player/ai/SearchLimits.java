@@ -0,0 +1,85 @@
+package com.igorternyuk.engine.player.ai;
+
+/**
+ * Created by igor on 18.12.18.
+ *
+ * Limits of an iterative deepening search. No new iteration is started once the soft time limit has passed,
+ * and the running one is abandoned when the hard time limit is reached. Both limits are in milliseconds.
+ */
+public final class SearchLimits {
+    public static final int MAX_SEARCH_DEPTH = 64;
+    public static final long NO_TIME_LIMIT = Long.MAX_VALUE;
+
+    private final int maxDepth;
+    private final long softTimeLimit;
+    private final long hardTimeLimit;
+
+    private SearchLimits(final Builder builder) {
+        this.maxDepth = builder.maxDepth;
+        this.softTimeLimit = builder.softTimeLimit;
+        this.hardTimeLimit = builder.hardTimeLimit;
+    }
+
+    public static SearchLimits fixedDepth(final int depth) {
+        return new Builder().setMaxDepth(depth).build();
+    }
+
+    //Half of the move time is the soft limit: the next iteration usually takes longer than all previous ones
+    public static SearchLimits moveTime(final int maxDepth, final long moveTime) {
+        return new Builder().setMaxDepth(maxDepth).setSoftTimeLimit(moveTime / 2).setHardTimeLimit(moveTime).build();
+    }
+
+    public int getMaxDepth() {
+        return this.maxDepth;
+    }
+
+    public long getSoftTimeLimit() {
+        return this.softTimeLimit;
+    }
+
+    public long getHardTimeLimit() {
+        return this.hardTimeLimit;
+    }
+
+    public boolean hasTimeLimit() {
+        return this.hardTimeLimit != NO_TIME_LIMIT;
+    }
+
+    @Override
+    public String toString() {
+        return "depth " + this.maxDepth + (hasTimeLimit()
+                ? ", time " + this.softTimeLimit + "/" + this.hardTimeLimit + " ms"
+                : "");
+    }
+
+    public static class Builder {
+        private int maxDepth = MAX_SEARCH_DEPTH;
+        private long softTimeLimit = NO_TIME_LIMIT;
+        private long hardTimeLimit = NO_TIME_LIMIT;
+
+        public Builder setMaxDepth(final int maxDepth) {
+            if (maxDepth < 1 || maxDepth > MAX_SEARCH_DEPTH) {
+                throw new IllegalArgumentException("Search depth must be between 1 and " + MAX_SEARCH_DEPTH);
+            }
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        public Builder setSoftTimeLimit(final long softTimeLimit) {
+            this.softTimeLimit = softTimeLimit;
+            return this;
+        }
+
+        public Builder setHardTimeLimit(final long hardTimeLimit) {
+            this.hardTimeLimit = hardTimeLimit;
+            return this;
+        }
+
+        public SearchLimits build() {
+            if (this.softTimeLimit > this.hardTimeLimit) {
+                this.softTimeLimit = this.hardTimeLimit;
+            }
+            return new SearchLimits(this);
+        }
+    }
+}
@@ -0,0 +1,516 @@
+package com.igorternyuk.engine.player.ai;
+
+import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.board.BitBoards;
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.board.BoardUtils;
+import com.igorternyuk.engine.board.Position;
+import com.igorternyuk.engine.pieces.Pawn;
+import com.igorternyuk.engine.pieces.Piece;
+import com.igorternyuk.engine.pieces.PieceType;
+
+/**
+ * Created by igor on 18.12.18.
+ *
+ * Scores exactly like StandardBoardEvaluator without building players, move lists or analyzers: the moves of both
+ * sides are counted in a single pass over the pieces, straight from the attack bitboards, and every other term is
+ * read from the piece bitboards. Any Position can be scored, so the search evaluates its SearchBoard in place.
+ * Nothing is allocated per call, so one instance must not be shared by threads.
+ * The terms are kept as the analyzers compute them, quirks included: an isolated pawn is never penalized, the open
+ * file test looks at the king's file and the file to its left only, promotions are never counted as captures and
+ * a pawn move into the king zone is counted as an attack on it.
+ * Development, castling and king safety only count while there is material to attack the king with: they are
+ * blended out along with the middlegame piece-square tables as the phase of the board drops.
+ */
+public final class SinglePassBoardEvaluator implements BoardEvaluator {
+    private static final int CHECK_BONUS = 30;
+    private static final int CASTLE_BONUS = 100;
+    private static final int CASTLE_CAPABLE_BONUS = 500;
+    private static final int CHECKMATE_BONUS = 20000;
+    private static final int DEPTH_BONUS = 100;
+    private static final double MOBILITY_MULTIPLIER = 2;
+    private static final int ATTACK_MULTIPLIER = 2;
+    private static final int MOVED_PIECE_BONUS = 20;
+    private static final int PAWN_PROMOTIONS = 4;
+    private static final int BISHOP_PAIR_BONUS = 50;
+    private static final int BISHOP_PAWN_COLOR_BONUS = 5;
+    private static final int OPEN_COLUMN_ROOK_BONUS = 25;
+    private static final int ROOK_AGAINST_ENEMY_QUEEN_BONUS = 20;
+    private static final int ROOK_AGAINST_ENEMY_KING_BONUS = 20;
+    private static final int ROOKS_CONNECTED_VERTICALLY_BONUS = 40;
+    private static final int ROOKS_CONNECTED_HORIZONTALLY_BONUS = 30;
+    private static final int FIRST_SHIELD_RANK_BONUS = 20;
+    private static final int SECOND_SHIELD_RANK_BONUS = 10;
+    private static final int STORMING_ENEMY_PAWN_PENALTY = -20;
+    private static final int OPEN_FILE_AGAINST_KING_PENALTY = -40;
+    private static final int SEMIOPEN_FILE_AGAINST_KING_PENALTY = -30;
+    private static final int[] ATTACK_WEIGHTS = {0, 0, 50, 75, 88, 94, 97, 99};
+    private static final int MAX_ATTACK_WEIGHT = 100;
+    private static final int[] ATTACK_VALUES = createAttackValues();
+    private static final Alliance[] ALLIANCES = Alliance.values();
+
+    //Filled by the pass over the pieces, indexed by the ordinal of the side that makes the moves
+    private final long[] kingZones = new long[Alliance.values().length];
+    private final int[] pieceMoves = new int[Alliance.values().length];
+    private final int[] favourableCaptures = new int[Alliance.values().length];
+    private final int[] kingZoneAttackers = new int[Alliance.values().length];
+    private final int[] kingZoneAttackValues = new int[Alliance.values().length];
+
+    @Override
+    public int evaluate(final Board board, final int depth) {
+        return evaluate((Position) board, depth);
+    }
+
+    public int evaluate(final Position board, final int depth) {
+        for (final Alliance alliance : ALLIANCES) {
+            final int side = alliance.ordinal();
+            this.kingZones[side] = calculateKingZone(board, alliance);
+            this.pieceMoves[side] = 0;
+            this.favourableCaptures[side] = 0;
+            this.kingZoneAttackers[side] = 0;
+            this.kingZoneAttackValues[side] = 0;
+        }
+        for (long pieces = board.getAllOccupancy(); pieces != BitBoards.EMPTY; pieces = BitBoards.clearFirst(pieces)) {
+            countMoves(board, BitBoards.firstIndex(pieces));
+        }
+        return scorePlayer(board, Alliance.WHITE, depth) - scorePlayer(board, Alliance.BLACK, depth);
+    }
+
+    private int scorePlayer(final Position board, final Alliance alliance, final int depth) {
+        final Alliance opponent = getOpponent(alliance);
+        final boolean isCastled = !board.getPiece(getKingIndex(board, alliance)).isFirstMove();
+        final int castles = isCastled ? 0 : countCastles(board, alliance);
+        final int legalMoves = this.pieceMoves[alliance.ordinal()] + castles;
+        final int mobilityRatio = (int) (100.f * legalMoves / this.pieceMoves[opponent.ordinal()]);
+        final int middleGameScore = board.getMiddleGameScore(alliance) + movedPiecesBonus(board, alliance)
+                + (castles > 0 ? CASTLE_CAPABLE_BONUS : 0) + (isCastled ? CASTLE_BONUS : 0)
+                + scoreKingSafety(board, alliance);
+        return board.blendScores(middleGameScore, board.getEndGameScore(alliance))
+                + (int) (mobilityRatio * MOBILITY_MULTIPLIER) + kingThreats(board, opponent, depth)
+                + this.favourableCaptures[alliance.ordinal()] * ATTACK_MULTIPLIER
+                + doubledPawnsPenalty(board, alliance)
+                + scoreBishops(board, alliance)
+                + scoreRooks(board, alliance);
+    }
+
+    private static int movedPiecesBonus(final Position board, final Alliance alliance) {
+        int value = 0;
+        for (long pieces = board.getOccupancy(alliance); pieces != BitBoards.EMPTY;
+             pieces = BitBoards.clearFirst(pieces)) {
+            if (!board.getPiece(BitBoards.firstIndex(pieces)).isFirstMove()) {
+                value += MOVED_PIECE_BONUS;
+            }
+        }
+        return value;
+    }
+
+    private static int kingThreats(final Position board, final Alliance opponent, final int depth) {
+        if (!board.isInCheck(opponent)) {
+            return 0;
+        }
+        return hasEscapeMove(board, opponent)
+                ? CHECK_BONUS
+                : CHECKMATE_BONUS * (depth == 0 ? 1 : DEPTH_BONUS * depth);
+    }
+
+    //Counts the pseudo-legal moves of the piece the way Board generates them, with every promotion as four moves
+    private void countMoves(final Position board, final int index) {
+        final Piece piece = board.getPiece(index);
+        final Alliance alliance = piece.getAlliance();
+        final int side = alliance.ordinal();
+        final long opponentOccupancy = board.getOccupancy(getOpponent(alliance));
+        final long opponentKingZone = this.kingZones[getOpponent(alliance).ordinal()];
+        final PieceType pieceType = piece.getPieceType();
+        int moves = 0;
+        int kingZoneMoves = 0;
+        if (pieceType.isPawn()) {
+            final int destinationY = BoardUtils.getLocation(index).getY() + alliance.getDirectionY();
+            if (!BoardUtils.isValidRank(destinationY)) {
+                return;
+            }
+            final int x = index % BoardUtils.BOARD_SIZE;
+            final int promotionFactor = isPromotionRank(alliance, destinationY) ? PAWN_PROMOTIONS : 1;
+            final int pushIndex = BoardUtils.getTileIndex(x, destinationY);
+            if (!BitBoards.isSet(board.getAllOccupancy(), pushIndex)) {
+                moves += promotionFactor;
+                kingZoneMoves += BitBoards.isSet(opponentKingZone, pushIndex) ? promotionFactor : 0;
+                if (piece.isFirstMove()) {
+                    final int jumpIndex = BoardUtils.getTileIndex(x, destinationY + alliance.getDirectionY());
+                    if (!BitBoards.isSet(board.getAllOccupancy(), jumpIndex)) {
+                        ++moves;
+                        kingZoneMoves += BitBoards.isSet(opponentKingZone, jumpIndex) ? 1 : 0;
+                    }
+                }
+            }
+            final long captures = BitBoards.pawnAttacks(alliance, index) & opponentOccupancy;
+            moves += BitBoards.count(captures) * promotionFactor;
+            kingZoneMoves += BitBoards.count(captures & opponentKingZone) * promotionFactor;
+            if (promotionFactor == 1) {
+                this.favourableCaptures[side] += countFavourableCaptures(board, piece, captures);
+            }
+            final int enPassantIndex = getEnPassantIndex(board, piece, destinationY);
+            if (enPassantIndex != -1) {
+                ++moves;
+                kingZoneMoves += BitBoards.isSet(opponentKingZone, enPassantIndex) ? 1 : 0;
+                if (piece.getValue() <= board.getEnPassantPawn().getValue()) {
+                    ++this.favourableCaptures[side];
+                }
+            }
+        } else {
+            final long targets = getAttacks(pieceType, index, board.getAllOccupancy())
+                    & ~board.getOccupancy(alliance);
+            moves = BitBoards.count(targets);
+            kingZoneMoves = BitBoards.count(targets & opponentKingZone);
+            this.favourableCaptures[side] += countFavourableCaptures(board, piece, targets & opponentOccupancy);
+        }
+        this.pieceMoves[side] += moves;
+        if (kingZoneMoves > 0) {
+            ++this.kingZoneAttackers[side];
+            this.kingZoneAttackValues[side] += kingZoneMoves * ATTACK_VALUES[pieceType.ordinal()];
+        }
+    }
+
+    //Captures of a piece worth at least the capturing one, both valued with their piece-square bonus
+    private static int countFavourableCaptures(final Position board, final Piece piece, final long captures) {
+        int count = 0;
+        for (long targets = captures; targets != BitBoards.EMPTY; targets = BitBoards.clearFirst(targets)) {
+            if (piece.getValue() <= board.getPiece(BitBoards.firstIndex(targets)).getValue()) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    //The tile the pawn lands on when it captures en passant, -1 if it cannot
+    private static int getEnPassantIndex(final Position board, final Piece pawn, final int destinationY) {
+        final Pawn enPassantPawn = board.getEnPassantPawn();
+        if (enPassantPawn == null || enPassantPawn.getAlliance() == pawn.getAlliance()
+                || enPassantPawn.getLocation().getY() != pawn.getLocation().getY()
+                || Math.abs(enPassantPawn.getLocation().getX() - pawn.getLocation().getX()) != 1) {
+            return -1;
+        }
+        final int enPassantIndex = BoardUtils.getTileIndex(enPassantPawn.getLocation().getX(), destinationY);
+        return BitBoards.isSet(board.getAllOccupancy(), enPassantIndex) ? -1 : enPassantIndex;
+    }
+
+    //Whether any pseudo-legal move of the side in check leaves its king safe
+    private static boolean hasEscapeMove(final Position board, final Alliance alliance) {
+        final long ownOccupancy = board.getOccupancy(alliance);
+        final long opponentOccupancy = board.getOccupancy(getOpponent(alliance));
+        for (long pieces = ownOccupancy; pieces != BitBoards.EMPTY; pieces = BitBoards.clearFirst(pieces)) {
+            final int index = BitBoards.firstIndex(pieces);
+            final Piece piece = board.getPiece(index);
+            long targets;
+            if (piece.getPieceType().isPawn()) {
+                final int destinationY = piece.getLocation().getY() + alliance.getDirectionY();
+                if (!BoardUtils.isValidRank(destinationY)) {
+                    continue;
+                }
+                targets = BitBoards.pawnAttacks(alliance, index) & opponentOccupancy;
+                final int pushIndex = BoardUtils.getTileIndex(piece.getLocation().getX(), destinationY);
+                if (!BitBoards.isSet(board.getAllOccupancy(), pushIndex)) {
+                    targets |= BitBoards.squareMask(pushIndex);
+                    if (piece.isFirstMove()) {
+                        final int jumpIndex = BoardUtils.getTileIndex(piece.getLocation().getX(),
+                                destinationY + alliance.getDirectionY());
+                        if (!BitBoards.isSet(board.getAllOccupancy(), jumpIndex)) {
+                            targets |= BitBoards.squareMask(jumpIndex);
+                        }
+                    }
+                }
+                final int enPassantIndex = getEnPassantIndex(board, piece, destinationY);
+                if (enPassantIndex != -1 && isKingSafeAfterMove(board, alliance, index, enPassantIndex,
+                        BitBoards.squareMask(enPassantIndex)
+                                | BitBoards.squareMask(board.getEnPassantPawn().getLocation()))) {
+                    return true;
+                }
+            } else {
+                targets = getAttacks(piece.getPieceType(), index, board.getAllOccupancy()) & ~ownOccupancy;
+            }
+            for (; targets != BitBoards.EMPTY; targets = BitBoards.clearFirst(targets)) {
+                final int destination = BitBoards.firstIndex(targets);
+                if (isKingSafeAfterMove(board, alliance, index, destination, BitBoards.squareMask(destination))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    //Moves the piece on the bitboards alone, the tiles in capturedTiles lose the opponent's pieces on them
+    private static boolean isKingSafeAfterMove(final Position board, final Alliance alliance, final int origin,
+                                               final int destination, final long capturedTiles) {
+        final Alliance attacker = getOpponent(alliance);
+        final long occupancy = (board.getAllOccupancy() & ~BitBoards.squareMask(origin) & ~capturedTiles)
+                | BitBoards.squareMask(destination);
+        final int kingIndex = origin == getKingIndex(board, alliance) ? destination : getKingIndex(board, alliance);
+        final long remaining = ~capturedTiles;
+        final long queens = board.getPieceBitBoard(PieceType.QUEEN, attacker) & remaining;
+        return (BitBoards.pawnAttacks(alliance, kingIndex)
+                & board.getPieceBitBoard(PieceType.PAWN, attacker) & remaining) == BitBoards.EMPTY
+                && (BitBoards.KNIGHT_ATTACKS[kingIndex]
+                & board.getPieceBitBoard(PieceType.KNIGHT, attacker) & remaining) == BitBoards.EMPTY
+                && (BitBoards.KING_ATTACKS[kingIndex]
+                & board.getPieceBitBoard(PieceType.KING, attacker) & remaining) == BitBoards.EMPTY
+                && (BitBoards.bishopAttacks(kingIndex, occupancy)
+                & ((board.getPieceBitBoard(PieceType.BISHOP, attacker) & remaining) | queens)) == BitBoards.EMPTY
+                && (BitBoards.rookAttacks(kingIndex, occupancy)
+                & ((board.getPieceBitBoard(PieceType.ROOK, attacker) & remaining) | queens)) == BitBoards.EMPTY;
+    }
+
+    private static int countCastles(final Position board, final Alliance alliance) {
+        if (board.isInCheck(alliance)) {
+            return 0;
+        }
+        final int kingIndex = getKingIndex(board, alliance);
+        final int backRank = alliance.isWhite() ? BoardUtils.FIRST_RANK : BoardUtils.EIGHTH_RANK;
+        final int kingsSideCastles = board.getGameType().isClassicChess()
+                ? countClassicCastling(board, alliance, backRank, 5, 6, BoardUtils.BOARD_SIZE - 1, -1)
+                : board.getGameType().isRandomFisherChess()
+                ? countRandomFisherCastling(board, alliance, kingIndex, backRank,
+                board.getKingsRookStartCoordinateX(), 6, 5, 1)
+                : 0;
+        final int queensSideCastles = board.getGameType().isClassicChess()
+                ? countClassicCastling(board, alliance, backRank, 3, 2, 0, 1)
+                : countRandomFisherCastling(board, alliance, kingIndex, backRank,
+                board.getQueensRookStartCoordinateX(), 2, 3, -1);
+        return kingsSideCastles + queensSideCastles;
+    }
+
+    //The king and rook destinations must be empty and safe, and so must the knight's tile on the queen's side
+    private static int countClassicCastling(final Position board, final Alliance alliance, final int backRank,
+                                            final int rookDestinationX, final int kingDestinationX,
+                                            final int rookX, final int knightX) {
+        final int rookDestination = BoardUtils.getTileIndex(rookDestinationX, backRank);
+        final int kingDestination = BoardUtils.getTileIndex(kingDestinationX, backRank);
+        final Piece rook = board.getPiece(BoardUtils.getTileIndex(rookX, backRank));
+        final long occupancy = board.getAllOccupancy();
+        if (BitBoards.isSet(occupancy, rookDestination) || BitBoards.isSet(occupancy, kingDestination)
+                || (knightX != -1 && BitBoards.isSet(occupancy, BoardUtils.getTileIndex(knightX, backRank)))
+                || !isUnmovedRook(rook)) {
+            return 0;
+        }
+        final Alliance opponent = getOpponent(alliance);
+        return board.isTileAttacked(rookDestination, opponent) || board.isTileAttacked(kingDestination, opponent)
+                ? 0
+                : 1;
+    }
+
+    //In Chess960 the king and the rook may stand on each other's destinations, and every tile the king crosses
+    //must be free of other pieces and safe
+    private static int countRandomFisherCastling(final Position board, final Alliance alliance, final int kingIndex,
+                                                 final int backRank, final int rookX, final int kingDestinationX,
+                                                 final int rookDestinationX, final int step) {
+        final int rookIndex = BoardUtils.getTileIndex(rookX, backRank);
+        if (!isUnmovedRook(board.getPiece(rookIndex))
+                || !isFreeForCastling(board, BoardUtils.getTileIndex(kingDestinationX, backRank), kingIndex,
+                rookIndex)
+                || !isFreeForCastling(board, BoardUtils.getTileIndex(rookDestinationX, backRank), kingIndex,
+                rookIndex)) {
+            return 0;
+        }
+        final Alliance opponent = getOpponent(alliance);
+        final int kingX = kingIndex % BoardUtils.BOARD_SIZE;
+        for (int x = kingX + step; step * x <= step * kingDestinationX; x += step) {
+            final int index = BoardUtils.getTileIndex(x, backRank);
+            if ((BitBoards.isSet(board.getAllOccupancy(), index) && index != rookIndex)
+                    || board.isTileAttacked(index, opponent)) {
+                return 0;
+            }
+        }
+        return 1;
+    }
+
+    private static boolean isFreeForCastling(final Position board, final int index, final int kingIndex,
+                                             final int rookIndex) {
+        return !BitBoards.isSet(board.getAllOccupancy(), index) || index == kingIndex || index == rookIndex;
+    }
+
+    private static boolean isUnmovedRook(final Piece piece) {
+        return piece != null && piece.getPieceType().isRook() && piece.isFirstMove();
+    }
+
+    private static int doubledPawnsPenalty(final Position board, final Alliance alliance) {
+        final long pawns = board.getPieceBitBoard(PieceType.PAWN, alliance);
+        int stackedPawns = 0;
+        for (final long file : BitBoards.FILES) {
+            final int pawnsOnFile = BitBoards.count(pawns & file);
+            if (pawnsOnFile > 1) {
+                stackedPawns += pawnsOnFile;
+            }
+        }
+        return stackedPawns * PawnStructureAnalyzer.DOUBLED_PAWN_PENALTY;
+    }
+
+    private static int scoreBishops(final Position board, final Alliance alliance) {
+        final long pawns = board.getPieceBitBoard(PieceType.PAWN, alliance);
+        final long bishops = board.getPieceBitBoard(PieceType.BISHOP, alliance);
+        final boolean hasLightSquareBishop = (bishops & BitBoards.LIGHT_TILES) != BitBoards.EMPTY;
+        final boolean hasDarkSquareBishop = (bishops & BitBoards.DARK_TILES) != BitBoards.EMPTY;
+        int value = 0;
+        if (hasDarkSquareBishop) {
+            value += BISHOP_PAWN_COLOR_BONUS * BitBoards.count(pawns & BitBoards.LIGHT_TILES);
+        }
+        if (hasLightSquareBishop) {
+            value += BISHOP_PAWN_COLOR_BONUS * BitBoards.count(pawns & BitBoards.DARK_TILES);
+        }
+        if (hasLightSquareBishop && hasDarkSquareBishop) {
+            value += BISHOP_PAIR_BONUS;
+        }
+        return value;
+    }
+
+    private static int scoreRooks(final Position board, final Alliance alliance) {
+        final long rooks = board.getPieceBitBoard(PieceType.ROOK, alliance);
+        final Alliance opponent = getOpponent(alliance);
+        final long occupancy = board.getAllOccupancy();
+        int value = 0;
+        for (long pieces = rooks; pieces != BitBoards.EMPTY; pieces = BitBoards.clearFirst(pieces)) {
+            final int index = BitBoards.firstIndex(pieces);
+            final long piecesOnFile = occupancy & BitBoards.FILES[index % BoardUtils.BOARD_SIZE];
+            if (piecesOnFile == BitBoards.squareMask(index)) {
+                value += OPEN_COLUMN_ROOK_BONUS;
+            } else {
+                if ((piecesOnFile & board.getPieceBitBoard(PieceType.QUEEN, opponent)) != BitBoards.EMPTY) {
+                    value += ROOK_AGAINST_ENEMY_QUEEN_BONUS;
+                }
+                if ((piecesOnFile & board.getPieceBitBoard(PieceType.KING, opponent)) != BitBoards.EMPTY) {
+                    value += ROOK_AGAINST_ENEMY_KING_BONUS;
+                }
+            }
+        }
+        return value + connectedRooksBonus(board, alliance, rooks);
+    }
+
+    private static int connectedRooksBonus(final Position board, final Alliance alliance, final long rooks) {
+        if (BitBoards.count(rooks) != 2) {
+            return 0;
+        }
+        final int first = BitBoards.firstIndex(rooks);
+        final int second = BitBoards.lastIndex(rooks);
+        final int x1 = Math.min(first % BoardUtils.BOARD_SIZE, second % BoardUtils.BOARD_SIZE);
+        final int x2 = Math.max(first % BoardUtils.BOARD_SIZE, second % BoardUtils.BOARD_SIZE);
+        final int y1 = Math.min(first / BoardUtils.BOARD_SIZE, second / BoardUtils.BOARD_SIZE);
+        final int y2 = Math.max(first / BoardUtils.BOARD_SIZE, second / BoardUtils.BOARD_SIZE);
+        if (x1 == x2) {
+            for (int y = y1 + 1; y < y2; ++y) {
+                if (BitBoards.isSet(board.getAllOccupancy(), BoardUtils.getTileIndex(x1, y))) {
+                    return 0;
+                }
+            }
+            return ROOKS_CONNECTED_VERTICALLY_BONUS;
+        }
+        final boolean isGoodRank = alliance.isWhite()
+                ? y1 == BoardUtils.FIRST_RANK || y1 == BoardUtils.SEVENTH_RANK || y1 == BoardUtils.EIGHTH_RANK
+                : y1 == BoardUtils.EIGHTH_RANK || y1 == BoardUtils.SECOND_RANK || y1 == BoardUtils.FIRST_RANK;
+        if (y1 != y2 || !isGoodRank) {
+            return 0;
+        }
+        long betweenPieces = BitBoards.EMPTY;
+        for (int x = x1 + 1; x < x2; ++x) {
+            betweenPieces |= board.getAllOccupancy() & BitBoards.squareMask(BoardUtils.getTileIndex(x, y1));
+        }
+        //Nothing between the rooks, or a single enemy piece they both attack
+        return betweenPieces == BitBoards.EMPTY || (BitBoards.count(betweenPieces) == 1
+                && (betweenPieces & board.getOccupancy(alliance)) == BitBoards.EMPTY)
+                ? ROOKS_CONNECTED_HORIZONTALLY_BONUS
+                : 0;
+    }
+
+    private int scoreKingSafety(final Position board, final Alliance alliance) {
+        final Alliance opponent = getOpponent(alliance);
+        final int kingIndex = getKingIndex(board, alliance);
+        final int kingX = kingIndex % BoardUtils.BOARD_SIZE;
+        final int kingY = kingIndex / BoardUtils.BOARD_SIZE;
+        final long pawns = board.getPieceBitBoard(PieceType.PAWN, alliance);
+        final long allPawns = pawns | board.getPieceBitBoard(PieceType.PAWN, opponent);
+        int value = 0;
+        //Pawn shield
+        for (int x = kingX - 1; x <= kingX + 1; ++x) {
+            for (int distance = 1; distance <= 2; ++distance) {
+                final int y = kingY + distance * alliance.getDirectionY();
+                if (BoardUtils.isValidLocation(x, y) && BitBoards.isSet(pawns, BoardUtils.getTileIndex(x, y))) {
+                    value += distance == 1 ? FIRST_SHIELD_RANK_BONUS : SECOND_SHIELD_RANK_BONUS;
+                }
+            }
+        }
+        //Open files against the king
+        if ((board.getPieceBitBoard(PieceType.ROOK, opponent) | board.getPieceBitBoard(PieceType.QUEEN, opponent))
+                != BitBoards.EMPTY) {
+            for (int x = kingX - 1; x <= kingX; ++x) {
+                if (BoardUtils.isValidFile(x)) {
+                    final int pawnsOnFile = BitBoards.count(allPawns & BitBoards.FILES[x]);
+                    if (pawnsOnFile == 0) {
+                        value += OPEN_FILE_AGAINST_KING_PENALTY;
+                    } else if (pawnsOnFile == 1) {
+                        value += SEMIOPEN_FILE_AGAINST_KING_PENALTY;
+                    }
+                }
+            }
+        }
+        //Enemy pawn storm
+        value += STORMING_ENEMY_PAWN_PENALTY * BitBoards.count(board.getPieceBitBoard(PieceType.PAWN, opponent)
+                & (BitBoards.KING_ATTACKS[kingIndex] | BitBoards.squareMask(kingIndex)));
+        //Enemy attack
+        final int attackers = this.kingZoneAttackers[opponent.ordinal()];
+        final int attackWeight = attackers < ATTACK_WEIGHTS.length ? ATTACK_WEIGHTS[attackers] : MAX_ATTACK_WEIGHT;
+        return value - (int) (this.kingZoneAttackValues[opponent.ordinal()] * attackWeight / 100.f);
+    }
+
+    //The king's tile, its neighbours and the two ranks of the pawn shield in front of them
+    private static long calculateKingZone(final Position board, final Alliance alliance) {
+        final int kingIndex = getKingIndex(board, alliance);
+        final int kingX = kingIndex % BoardUtils.BOARD_SIZE;
+        final int kingY = kingIndex / BoardUtils.BOARD_SIZE;
+        long zone = BitBoards.KING_ATTACKS[kingIndex] | BitBoards.squareMask(kingIndex);
+        for (int x = kingX - 1; x <= kingX + 1; ++x) {
+            for (int distance = 1; distance <= 2; ++distance) {
+                final int y = kingY + distance * alliance.getDirectionY();
+                if (BoardUtils.isValidLocation(x, y)) {
+                    zone |= BitBoards.squareMask(BoardUtils.getTileIndex(x, y));
+                }
+            }
+        }
+        return zone;
+    }
+
+    private static long getAttacks(final PieceType pieceType, final int index, final long occupancy) {
+        switch (pieceType) {
+            case KING:
+                return BitBoards.KING_ATTACKS[index];
+            case QUEEN:
+                return BitBoards.queenAttacks(index, occupancy);
+            case BISHOP:
+                return BitBoards.bishopAttacks(index, occupancy);
+            case KNIGHT:
+                return BitBoards.KNIGHT_ATTACKS[index];
+            case ROOK:
+                return BitBoards.rookAttacks(index, occupancy);
+            default:
+                throw new IllegalArgumentException("Pawn moves are not attack sets");
+        }
+    }
+
+    private static boolean isPromotionRank(final Alliance alliance, final int y) {
+        return y == (alliance.isWhite() ? BoardUtils.EIGHTH_RANK : BoardUtils.FIRST_RANK);
+    }
+
+    private static int getKingIndex(final Position board, final Alliance alliance) {
+        return BitBoards.firstIndex(board.getPieceBitBoard(PieceType.KING, alliance));
+    }
+
+    private static Alliance getOpponent(final Alliance alliance) {
+        return alliance.isWhite() ? Alliance.BLACK : Alliance.WHITE;
+    }
+
+    private static int[] createAttackValues() {
+        final int[] values = new int[PieceType.values().length];
+        values[PieceType.KNIGHT.ordinal()] = 20;
+        values[PieceType.BISHOP.ordinal()] = 20;
+        values[PieceType.ROOK.ordinal()] = 40;
+        values[PieceType.QUEEN.ordinal()] = 80;
+        values[PieceType.KING.ordinal()] = 0;
+        values[PieceType.PAWN.ordinal()] = 5;
+        return values;
+    }
+}
@@ -6,8 +6,6 @@ import com.igorternyuk.engine.moves.CapturingMove;
 import com.igorternyuk.engine.pieces.Piece;
 import com.igorternyuk.engine.player.Player;
 
-import java.util.Collection;
-
 /**
  * Created by igor on 06.12.18.
  */
@@ -32,21 +30,22 @@ public final class StandardBoardEvaluator implements BoardEvaluator {
         final RookPositionAnalyzer rookPositionAnalyzer = new RookPositionAnalyzer(player);
         final BishopsEvaluator bishopsEvaluator = new BishopsEvaluator(player);
         final KingSafetyAnalyzer kingSafetyAnalyzer = new KingSafetyAnalyzer(player);
-        return materialValue(player)
+        final Board board = player.getBoard();
+        //Development, castling and king safety fade out with the middlegame piece-square tables
+        final int middleGameScore = board.getMiddleGameScore(player.getAlliance()) + movedPiecesBonus(player)
                 + castleCapable(player) + castled(player)
+                + kingSafetyAnalyzer.scoreKingSafety();
+        return board.blendScores(middleGameScore, board.getEndGameScore(player.getAlliance()))
                 + mobility(player) + kingThreats(player, depth)
                 + attacks(player)
                 + pawnStructureAnalyzer.pawnStructureScore()
                 + bishopsEvaluator.scoreBishops()
-                + rookPositionAnalyzer.rookPositionScore()
-                + kingSafetyAnalyzer.scoreKingSafety();
+                + rookPositionAnalyzer.rookPositionScore();
     }
 
-    private static int materialValue(final Player player) {
-        Collection<Piece> pieces = player.getActivePieces();
+    private static int movedPiecesBonus(final Player player) {
         int value = 0;
-        for (final Piece piece : pieces) {
-            value += piece.getValue();
+        for (final Piece piece : player.getActivePieces()) {
             if (!piece.isFirstMove()) {
                 value += 20;
             }
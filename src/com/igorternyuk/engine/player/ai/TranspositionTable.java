@@ -0,0 +1,168 @@
+package com.igorternyuk.engine.player.ai;
+
+import com.igorternyuk.engine.board.SearchBoard;
+
+import java.util.Arrays;
+
+/**
+ * Created by igor on 16.12.18.
+ *
+ * Fixed-size hash table of search results indexed by the Zobrist key. Every bucket holds a depth-preferred slot
+ * followed by an always-replace slot, and every slot is two longs: the key xor-ed with the data word and the data
+ * word itself. A slot is valid only if both words belong to the same store, so a torn write reads as a miss.
+ * Data word layout: score (bits 0-31), move key (bits 32-51), depth (bits 52-58), bound (bits 59-60) and
+ * search generation (bits 61-63).
+ * Search threads share one table without locking. The probe statistics are approximate then.
+ */
+public final class TranspositionTable {
+    public static final long NO_ENTRY = 0L;
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+    public static final int DEFAULT_SIZE_IN_MEGABYTES = 16;
+
+    private static final int MOVE_SHIFT = 32;
+    private static final long MOVE_MASK = 0xFFFFFL;
+    private static final int DEPTH_SHIFT = 52;
+    private static final int MAX_DEPTH = 0x7F;
+    private static final int BOUND_SHIFT = 59;
+    private static final int BOUND_MASK = 0x3;
+    private static final int GENERATION_SHIFT = 61;
+    private static final int GENERATION_MASK = 0x7;
+    private static final int LONGS_PER_SLOT = 2;
+    private static final int LONGS_PER_BUCKET = 2 * LONGS_PER_SLOT;
+    private static final int BYTES_PER_BUCKET = LONGS_PER_BUCKET * Long.BYTES;
+    private static final int FILL_SAMPLE_SIZE = 1000;
+
+    private final long[] table;
+    private final int bucketMask;
+    private volatile int generation;
+    private long probes;
+    private long hits;
+
+    public TranspositionTable() {
+        this(DEFAULT_SIZE_IN_MEGABYTES);
+    }
+
+    public TranspositionTable(final int sizeInMegabytes) {
+        final long requestedBuckets = Math.max(1L, ((long) sizeInMegabytes << 20) / BYTES_PER_BUCKET);
+        final int numBuckets = Integer.highestOneBit((int) Math.min(requestedBuckets,
+                Integer.MAX_VALUE / LONGS_PER_BUCKET));
+        this.table = new long[numBuckets * LONGS_PER_BUCKET];
+        this.bucketMask = numBuckets - 1;
+        this.generation = 0;
+    }
+
+    public void newSearch() {
+        this.generation = (this.generation + 1) & GENERATION_MASK;
+        this.probes = 0;
+        this.hits = 0;
+    }
+
+    public void clear() {
+        Arrays.fill(this.table, 0L);
+        this.generation = 0;
+        this.probes = 0;
+        this.hits = 0;
+    }
+
+    public long probe(final long key) {
+        ++this.probes;
+        final int bucket = getBucket(key);
+        for (int slot = bucket; slot < bucket + LONGS_PER_BUCKET; slot += LONGS_PER_SLOT) {
+            final long data = this.table[slot + 1];
+            if (data != NO_ENTRY && (this.table[slot] ^ data) == key) {
+                ++this.hits;
+                return data;
+            }
+        }
+        return NO_ENTRY;
+    }
+
+    public void store(final long key, final int depth, final int bound, final int score, final int move) {
+        final int bucket = getBucket(key);
+        final int depthPreferredSlot = bucket;
+        final int alwaysReplaceSlot = bucket + LONGS_PER_SLOT;
+        final long depthPreferredData = this.table[depthPreferredSlot + 1];
+        final boolean isSameKey = (this.table[depthPreferredSlot] ^ depthPreferredData) == key;
+        final int slot;
+        if (depthPreferredData == NO_ENTRY || isSameKey || getGeneration(depthPreferredData) != this.generation
+                || depth >= getDepth(depthPreferredData)) {
+            slot = depthPreferredSlot;
+        } else {
+            slot = alwaysReplaceSlot;
+        }
+        int storedMove = move;
+        if (storedMove == SearchBoard.NULL_MOVE) {
+            final long oldData = this.table[slot + 1];
+            if (oldData != NO_ENTRY && (this.table[slot] ^ oldData) == key) {
+                storedMove = getMove(oldData);
+            }
+        }
+        final long data = pack(depth, bound, score, storedMove);
+        this.table[slot] = key ^ data;
+        this.table[slot + 1] = data;
+    }
+
+    public double getHitRate() {
+        return this.probes == 0 ? 0.0 : (double) this.hits / this.probes;
+    }
+
+    public long getProbes() {
+        return this.probes;
+    }
+
+    public long getHits() {
+        return this.hits;
+    }
+
+    //Share of sampled slots filled during the current search, in permille
+    public int getFillPermille() {
+        final int numSlots = this.table.length / LONGS_PER_SLOT;
+        final int sampleSize = Math.min(FILL_SAMPLE_SIZE, numSlots);
+        int filled = 0;
+        for (int i = 0; i < sampleSize; ++i) {
+            final long data = this.table[i * LONGS_PER_SLOT + 1];
+            if (data != NO_ENTRY && getGeneration(data) == this.generation) {
+                ++filled;
+            }
+        }
+        return filled * 1000 / sampleSize;
+    }
+
+    public int getSizeInMegabytes() {
+        return (int) (((long) this.table.length * Long.BYTES) >> 20);
+    }
+
+    public static int getScore(final long data) {
+        return (int) data;
+    }
+
+    public static int getMove(final long data) {
+        return (int) ((data >>> MOVE_SHIFT) & MOVE_MASK);
+    }
+
+    public static int getDepth(final long data) {
+        return (int) (data >>> DEPTH_SHIFT) & MAX_DEPTH;
+    }
+
+    public static int getBound(final long data) {
+        return (int) (data >>> BOUND_SHIFT) & BOUND_MASK;
+    }
+
+    private static int getGeneration(final long data) {
+        return (int) (data >>> GENERATION_SHIFT) & GENERATION_MASK;
+    }
+
+    private long pack(final int depth, final int bound, final int score, final int move) {
+        return (score & 0xFFFFFFFFL)
+                | ((SearchBoard.getMoveKey(move) & MOVE_MASK) << MOVE_SHIFT)
+                | ((long) Math.min(depth, MAX_DEPTH) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) this.generation << GENERATION_SHIFT);
+    }
+
+    private int getBucket(final long key) {
+        return ((int) key & this.bucketMask) * LONGS_PER_BUCKET;
+    }
+}
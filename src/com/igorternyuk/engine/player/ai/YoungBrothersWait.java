@@ -0,0 +1,303 @@
+package com.igorternyuk.engine.player.ai;
+
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.board.MoveList;
+import com.igorternyuk.engine.board.SearchBoard;
+import com.igorternyuk.engine.moves.Move;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Created by igor on 18.12.18.
+ *
+ * Young Brothers Wait: the root and the nodes of the principal variation search their first move serially and
+ * then search the remaining moves in parallel on a fork-join pool. The parallel siblings share the best score of
+ * their node through an atomic, so every sibling starts with the tightest bound known at the time, and a sibling
+ * that produces a cutoff cancels the rest. Like in the sequential search, the siblings are probed with a null
+ * window first. Below the split depth and off the principal variation the search is
+ * the sequential AlphaBeta of the worker thread.
+ */
+public class YoungBrothersWait implements MoveStrategy {
+    //Nodes with less remaining depth are searched sequentially
+    private static final int MIN_SPLIT_DEPTH = 2;
+
+    private final SearchLimits searchLimits;
+    private final TranspositionTable transpositionTable;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<AlphaBeta> searches;
+    private final LongAdder nodesSearched = new LongAdder();
+    private volatile boolean isStopRequested;
+    private long hardDeadline;
+    private int completedDepth;
+    private int bestScore;
+
+    public YoungBrothersWait(final SearchLimits searchLimits, final TranspositionTable transpositionTable,
+                             final int parallelism) {
+        this.searchLimits = searchLimits;
+        this.transpositionTable = transpositionTable;
+        this.pool = new ForkJoinPool(parallelism);
+        this.searches = ThreadLocal.withInitial(() -> new AlphaBeta(this.searchLimits, this.transpositionTable, 1));
+    }
+
+    @Override
+    public Move execute(final Board board) {
+        final long startTime = System.nanoTime();
+        this.hardDeadline = this.searchLimits.hasTimeLimit()
+                ? startTime + TimeUnit.MILLISECONDS.toNanos(this.searchLimits.getHardTimeLimit())
+                : Long.MAX_VALUE;
+        this.isStopRequested = false;
+        this.nodesSearched.reset();
+        this.completedDepth = 0;
+        this.transpositionTable.newSearch();
+        System.out.println(board.getCurrentPlayer() + " THINKING with " + this.searchLimits + " on "
+                + this.pool.getParallelism() + " threads");
+        final MoveList rootMoves = createRootMoves(new SearchBoard(board));
+        if (rootMoves.isEmpty()) {
+            return Move.MoveFactory.NULL_MOVE;
+        }
+        //Played if the search is aborted before any root move has been searched
+        int bestMove = rootMoves.get(0);
+        for (int depth = 1; depth <= this.searchLimits.getMaxDepth(); ++depth) {
+            final PvNodeTask root = new PvNodeTask(new SearchBoard(board), depth, -AlphaBeta.INFINITE_SCORE,
+                    AlphaBeta.INFINITE_SCORE, null);
+            final int score = this.pool.invoke(root);
+            if (root.isAborted) {
+                if (this.completedDepth == 0 && root.bestMove != SearchBoard.NULL_MOVE) {
+                    bestMove = root.bestMove;
+                }
+                break;
+            }
+            //A root drawn by insufficient material is scored without a best move, the fallback move is kept
+            if (root.bestMove != SearchBoard.NULL_MOVE) {
+                bestMove = root.bestMove;
+            }
+            this.bestScore = score;
+            this.completedDepth = depth;
+            final long elapsedTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            System.out.println("\t" + toString() + " depth " + depth + " score " + score + " nodes "
+                    + this.nodesSearched.sum() + " time " + elapsedTime + " ms best " + SearchBoard.toString(bestMove));
+            if (root.bestMove == SearchBoard.NULL_MOVE || elapsedTime >= this.searchLimits.getSoftTimeLimit()) {
+                break;
+            }
+        }
+        final Move bestBoardMove = SearchBoard.decodeMove(board, bestMove);
+        System.out.println("Best move = " + bestBoardMove + " (depth " + this.completedDepth + ")");
+        System.out.println("Move time = " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + " ms");
+        return bestBoardMove;
+    }
+
+    public void stop() {
+        this.isStopRequested = true;
+    }
+
+    public void shutdown() {
+        this.pool.shutdown();
+    }
+
+    public int getCompletedDepth() {
+        return this.completedDepth;
+    }
+
+    public int getBestScore() {
+        return this.bestScore;
+    }
+
+    public long getNodesSearched() {
+        return this.nodesSearched.sum();
+    }
+
+    private static MoveList createRootMoves(final SearchBoard board) {
+        final MoveList pseudoLegalMoves = new MoveList();
+        board.generateMoves(pseudoLegalMoves);
+        MoveSorter.SMART.sort(board, pseudoLegalMoves);
+        final MoveList rootMoves = new MoveList();
+        for (int i = 0; i < pseudoLegalMoves.size(); ++i) {
+            if (board.makeMove(pseudoLegalMoves.get(i)).isDone()) {
+                board.unmakeMove();
+                rootMoves.add(pseudoLegalMoves.get(i));
+            }
+        }
+        return rootMoves;
+    }
+
+    private int searchSequentially(final SearchBoard board, final int depth, final int alpha, final int beta,
+                                   final SplitPoint splitPoint) {
+        final AlphaBeta search = this.searches.get();
+        final long nodesBefore = search.getNodesSearched();
+        final int value = search.searchSubtree(board, depth, alpha, beta, this.hardDeadline,
+                splitPoint == null ? () -> this.isStopRequested : splitPoint::isCancelled);
+        this.nodesSearched.add(search.getNodesSearched() - nodesBefore);
+        return value;
+    }
+
+    //Tells whether the last sequential search of the calling thread gave up
+    private boolean isSequentialSearchAborted() {
+        return this.searches.get().isAborted();
+    }
+
+    //A node whose remaining moves are searched in parallel, cancelled by a cutoff here or at any node above
+    private final class SplitPoint {
+        private final SplitPoint parent;
+        private volatile boolean isCutOff;
+
+        private SplitPoint(final SplitPoint parent) {
+            this.parent = parent;
+        }
+
+        private boolean isCancelled() {
+            return this.isCutOff || isStopRequested || (this.parent != null && this.parent.isCancelled());
+        }
+    }
+
+    //Searches a node of the principal variation, the board is left as it was found
+    private final class PvNodeTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final SearchBoard board;
+        private final int depth;
+        private final int alpha;
+        private final int beta;
+        private final SplitPoint parent;
+        private int bestMove = SearchBoard.NULL_MOVE;
+        private boolean isAborted;
+
+        private PvNodeTask(final SearchBoard board, final int depth, final int alpha, final int beta,
+                           final SplitPoint parent) {
+            this.board = board;
+            this.depth = depth;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.parent = parent;
+        }
+
+        @Override
+        protected Integer compute() {
+            //The root is always split, so that its best move is known
+            final boolean isRoot = this.parent == null;
+            if ((!isRoot && this.depth < MIN_SPLIT_DEPTH) || this.board.isInsufficientMaterial()
+                    || !this.board.hasLegalMoves()) {
+                final int value = searchSequentially(this.board, this.depth, this.alpha, this.beta, this.parent);
+                this.isAborted = isSequentialSearchAborted();
+                return value;
+            }
+            final long key = this.board.getZobristKey();
+            final MoveList moves = new MoveList();
+            this.board.generateMoves(moves);
+            MoveSorter.SMART.sort(this.board, moves);
+            moves.moveToFront(TranspositionTable.getMove(transpositionTable.probe(key)));
+            final SplitPoint splitPoint = new SplitPoint(this.parent);
+            int i = 0;
+            while (!this.board.makeMove(moves.get(i)).isDone()) {
+                ++i;
+            }
+            //The eldest brother is searched first and alone, it lies on the principal variation
+            final PvNodeTask eldestBrother = new PvNodeTask(this.board, this.depth - 1, -this.beta, -this.alpha,
+                    splitPoint);
+            final int eldestBrotherValue = -eldestBrother.compute();
+            this.board.unmakeMove();
+            if (eldestBrother.isAborted) {
+                this.isAborted = true;
+                return 0;
+            }
+            int best = eldestBrotherValue;
+            if (best > this.alpha) {
+                this.bestMove = moves.get(i);
+            }
+            if (best < this.beta) {
+                int bestMoveScore = Math.max(this.alpha, best);
+                final AtomicInteger bound = new AtomicInteger(bestMoveScore);
+                final List<YoungBrotherTask> youngBrothers = new ArrayList<>();
+                for (++i; i < moves.size(); ++i) {
+                    final SearchBoard youngBrotherBoard = new SearchBoard(this.board);
+                    if (youngBrotherBoard.makeMove(moves.get(i)).isDone()) {
+                        youngBrothers.add(new YoungBrotherTask(youngBrotherBoard, moves.get(i), this.depth - 1,
+                                this, bound, splitPoint));
+                    }
+                }
+                invokeAll(youngBrothers);
+                for (final YoungBrotherTask youngBrother : youngBrothers) {
+                    if (youngBrother.isAborted) {
+                        //Siblings cancelled by a cutoff of this node are not needed
+                        this.isAborted |= !splitPoint.isCutOff;
+                    } else {
+                        //A brother that failed low only knows an upper bound, which may tie the best score
+                        if (youngBrother.value > bestMoveScore && youngBrother.value > youngBrother.alpha) {
+                            bestMoveScore = youngBrother.value;
+                            this.bestMove = youngBrother.move;
+                        }
+                        best = Math.max(best, youngBrother.value);
+                    }
+                }
+            }
+            if (this.isAborted || (!isRoot && this.parent.isCancelled()) || isStopRequested) {
+                this.isAborted = true;
+                return 0;
+            }
+            final int bound = best >= this.beta
+                    ? TranspositionTable.LOWER_BOUND
+                    : best > this.alpha ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+            transpositionTable.store(key, this.depth, bound, AlphaBeta.scoreToTable(best, this.board.getPly()),
+                    this.bestMove);
+            return best;
+        }
+    }
+
+    //A later sibling, probed sequentially with a null window at the best bound its node has when the task starts
+    private final class YoungBrotherTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final SearchBoard board;
+        private final int move;
+        private final int depth;
+        private final PvNodeTask node;
+        private final AtomicInteger bound;
+        private final SplitPoint splitPoint;
+        private int alpha;
+        private int value;
+        private boolean isAborted;
+
+        private YoungBrotherTask(final SearchBoard board, final int move, final int depth, final PvNodeTask node,
+                                 final AtomicInteger bound, final SplitPoint splitPoint) {
+            this.board = board;
+            this.move = move;
+            this.depth = depth;
+            this.node = node;
+            this.bound = bound;
+            this.splitPoint = splitPoint;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.splitPoint.isCancelled()) {
+                this.isAborted = true;
+                return;
+            }
+            this.alpha = this.bound.get();
+            this.value = -searchSequentially(this.board, this.depth, -this.alpha - 1, -this.alpha, this.splitPoint);
+            this.isAborted = isSequentialSearchAborted();
+            if (!this.isAborted && this.value > this.alpha && this.value < this.node.beta) {
+                this.value = -searchSequentially(this.board, this.depth, -this.node.beta, -this.alpha,
+                        this.splitPoint);
+                this.isAborted = isSequentialSearchAborted();
+            }
+            if (this.isAborted) {
+                return;
+            }
+            if (this.bound.accumulateAndGet(this.value, Math::max) >= this.node.beta) {
+                this.splitPoint.isCutOff = true;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "YoungBrothersWait";
+    }
+}
@@ -2,18 +2,23 @@ package com.igorternyuk.gui;
 
 import com.igorternyuk.engine.Alliance;
 import com.igorternyuk.engine.player.Player;
+import com.igorternyuk.engine.player.ai.SearchLimits;
 import com.igorternyuk.gui.View.PlayerType;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by igor on 07.12.18.
  */
 public class GameSetup extends JDialog {
+    private static final int MAX_SEARCH_THREADS = 64;
     private PlayerType whitePlayerType;
     private PlayerType blackPlayerType;
     private JSpinner searchDepthSpinner;
+    private JSpinner moveTimeSpinner;
+    private JSpinner searchThreadsSpinner;
 
     GameSetup(final JFrame frame, final boolean modal) {
         super(frame, modal);
@@ -42,8 +47,12 @@ public class GameSetup extends JDialog {
         panel.add(blackComputerButton);
 
         panel.add(new JLabel("Search"));
-        this.searchDepthSpinner = addLabeledSpinner(panel, "Search Depth",
-                new SpinnerNumberModel(3, 0, 10, 1));
+        this.searchDepthSpinner = addLabeledSpinner(panel, "Max Search Depth",
+                new SpinnerNumberModel(10, 1, SearchLimits.MAX_SEARCH_DEPTH, 1));
+        this.moveTimeSpinner = addLabeledSpinner(panel, "Move Time (seconds)",
+                new SpinnerNumberModel(5, 1, 600, 1));
+        this.searchThreadsSpinner = addLabeledSpinner(panel, "Search Threads",
+                new SpinnerNumberModel(1, 1, MAX_SEARCH_THREADS, 1));
 
         final JButton cancelButton = new JButton("Cancel");
         final JButton okButton = new JButton("OK");
@@ -83,6 +92,14 @@ public class GameSetup extends JDialog {
         return (int) searchDepthSpinner.getValue();
     }
 
+    public long getMoveTimeInMilliseconds() {
+        return TimeUnit.SECONDS.toMillis((int) moveTimeSpinner.getValue());
+    }
+
+    public int getSearchThreadsValue() {
+        return (int) searchThreadsSpinner.getValue();
+    }
+
     void promptUser() {
         setVisible(true);
         repaint();
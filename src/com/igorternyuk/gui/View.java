@@ -8,8 +8,10 @@ import com.igorternyuk.engine.moves.Move;
 import com.igorternyuk.engine.moves.MoveLog;
 import com.igorternyuk.engine.pieces.*;
 import com.igorternyuk.engine.player.Player;
-import com.igorternyuk.engine.player.ai.AlphaBeta;
+import com.igorternyuk.engine.player.ai.LazySmp;
 import com.igorternyuk.engine.player.ai.MoveStrategy;
+import com.igorternyuk.engine.player.ai.SearchLimits;
+import com.igorternyuk.engine.player.ai.TranspositionTable;
 
 import javax.swing.*;
 import java.awt.*;
@@ -46,6 +48,7 @@ public class View extends Observable {
     private final String[] PROMOTED_PIECE_OPTIONS = {"Rook", "Bishop", "Knight", "Queen"};
     private static final ResourceManager RESOURCE_MANAGER = ResourceManager.getInstance();
     private final Game game = new Game(GameType.CLASSIC_CHESS);
+    private final TranspositionTable transpositionTable = new TranspositionTable();
     private Board gameBoard;
     private Tile startTile;
     private Tile destinationTile;
@@ -134,6 +137,10 @@ public class View extends Observable {
         return this.gameSetupPanel;
     }
 
+    private TranspositionTable getTranspositionTable() {
+        return this.transpositionTable;
+    }
+
     private void setupUpdate(GameSetup gameSetup) {
         super.setChanged();
         super.notifyObservers(gameSetup);
@@ -165,8 +172,11 @@ public class View extends Observable {
             //final MoveStrategy strategy = new MiniMax(3);
             //View.getInstance().get
             //final int depth = View.getInstance().getMoveLog().size() > 4 ? 5 : 4;
-            final int depth = View.getInstance().getGameSetupPanel().getSearchDepthValue();
-            final MoveStrategy strategy = new AlphaBeta(depth);
+            final GameSetup gameSetup = View.getInstance().getGameSetupPanel();
+            final SearchLimits searchLimits = SearchLimits.moveTime(gameSetup.getSearchDepthValue(),
+                    gameSetup.getMoveTimeInMilliseconds());
+            final MoveStrategy strategy = new LazySmp(searchLimits, View.getInstance().getTranspositionTable(),
+                    gameSetup.getSearchThreadsValue());
             final Move bestMove = strategy.execute(View.getInstance().getGameBoard());
             return bestMove;
         }
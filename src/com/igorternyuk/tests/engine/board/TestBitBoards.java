@@ -0,0 +1,99 @@
+package com.igorternyuk.tests.engine.board;
+
+import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.board.BitBoards;
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.board.BoardUtils;
+import com.igorternyuk.engine.pieces.Piece;
+import com.igorternyuk.engine.pieces.PieceType;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.*;
+
+/**
+ * Created by igor on 14.12.18.
+ */
+public class TestBitBoards {
+
+    @Test
+    public void testAttackTables() {
+        assertThat(BitBoards.count(BitBoards.KNIGHT_ATTACKS[BoardUtils.getTileIndex(BoardUtils.getLocation("a1"))]),
+                is(2));
+        assertThat(BitBoards.count(BitBoards.KNIGHT_ATTACKS[BoardUtils.getTileIndex(BoardUtils.getLocation("d4"))]),
+                is(8));
+        assertThat(BitBoards.count(BitBoards.KING_ATTACKS[BoardUtils.getTileIndex(BoardUtils.getLocation("h8"))]),
+                is(3));
+        assertThat(BitBoards.count(BitBoards.KING_ATTACKS[BoardUtils.getTileIndex(BoardUtils.getLocation("e4"))]),
+                is(8));
+        final long whitePawnAttacks = BitBoards.pawnAttacks(Alliance.WHITE,
+                BoardUtils.getTileIndex(BoardUtils.getLocation("e4")));
+        assertEquals(whitePawnAttacks, BitBoards.squareMask(BoardUtils.getLocation("d5"))
+                | BitBoards.squareMask(BoardUtils.getLocation("f5")));
+        final long blackPawnAttacks = BitBoards.pawnAttacks(Alliance.BLACK,
+                BoardUtils.getTileIndex(BoardUtils.getLocation("a5")));
+        assertEquals(blackPawnAttacks, BitBoards.squareMask(BoardUtils.getLocation("b4")));
+        assertTrue(BitBoards.isSet(BitBoards.DARK_TILES, BoardUtils.getTileIndex(BoardUtils.getLocation("a1"))));
+        assertTrue(BitBoards.isSet(BitBoards.LIGHT_TILES, BoardUtils.getTileIndex(BoardUtils.getLocation("h1"))));
+    }
+
+    @Test
+    public void testMagicSlidingAttacks() {
+        final int[][] bishopDirections = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+        final int[][] rookDirections = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+        final Random random = new Random(17122018L);
+        for (int i = 0; i < 10000; ++i) {
+            final long occupancy = random.nextLong() & random.nextLong();
+            final int index = random.nextInt(BoardUtils.TOTAL_NUMBER_OF_TILES);
+            assertEquals(walkRays(index, occupancy, bishopDirections), BitBoards.bishopAttacks(index, occupancy));
+            assertEquals(walkRays(index, occupancy, rookDirections), BitBoards.rookAttacks(index, occupancy));
+        }
+        final int d4 = BoardUtils.getTileIndex(BoardUtils.getLocation("d4"));
+        assertThat(BitBoards.count(BitBoards.queenAttacks(d4, BitBoards.EMPTY)), is(27));
+        assertThat(BitBoards.count(BitBoards.rookAttacks(d4, BitBoards.squareMask(BoardUtils.getLocation("d6")))),
+                is(12));
+    }
+
+    @Test
+    public void testStandardBoardBitBoards() {
+        final Board board = Board.createStandardBoard();
+        assertThat(BitBoards.count(board.getAllOccupancy()), is(32));
+        assertThat(BitBoards.count(board.getOccupancy(Alliance.WHITE)), is(16));
+        assertThat(BitBoards.count(board.getOccupancy(Alliance.BLACK)), is(16));
+        assertEquals(board.getPieceBitBoard(PieceType.PAWN, Alliance.WHITE), BitBoards.RANKS[BoardUtils.SECOND_RANK]);
+        assertEquals(board.getPieceBitBoard(PieceType.PAWN, Alliance.BLACK), BitBoards.RANKS[BoardUtils.SEVENTH_RANK]);
+        assertEquals(board.getPieceBitBoard(PieceType.KING, Alliance.WHITE),
+                BitBoards.squareMask(BoardUtils.getLocation("e1")));
+        assertEquals(board.getPieceBitBoard(PieceType.QUEEN, Alliance.BLACK),
+                BitBoards.squareMask(BoardUtils.getLocation("d8")));
+
+        for (int index = 0; index < BoardUtils.TOTAL_NUMBER_OF_TILES; ++index) {
+            final Piece piece = board.getPiece(index);
+            assertEquals(piece != null, BitBoards.isSet(board.getAllOccupancy(), index));
+            assertEquals(piece, board.getTile(BoardUtils.getLocation(index)).getPiece());
+            if (piece != null) {
+                assertTrue(BitBoards.isSet(board.getPieceBitBoard(piece.getPieceType(), piece.getAlliance()), index));
+                assertEquals(piece.getLocation(), BoardUtils.getLocation(index));
+            }
+        }
+    }
+
+    private static long walkRays(final int index, final long occupancy, final int[][] directions) {
+        long attacks = BitBoards.EMPTY;
+        for (final int[] direction : directions) {
+            int x = BoardUtils.getTileX(index) + direction[0];
+            int y = BoardUtils.getTileY(index) + direction[1];
+            while (BoardUtils.isValidLocation(x, y)) {
+                attacks |= BitBoards.squareMask(BoardUtils.getTileIndex(x, y));
+                if (BitBoards.isSet(occupancy, BoardUtils.getTileIndex(x, y))) {
+                    break;
+                }
+                x += direction[0];
+                y += direction[1];
+            }
+        }
+        return attacks;
+    }
+}
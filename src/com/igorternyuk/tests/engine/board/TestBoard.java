@@ -3,11 +3,16 @@ package com.igorternyuk.tests.engine.board;
 import com.google.common.collect.Iterables;
 import com.igorternyuk.engine.board.Board;
 import com.igorternyuk.engine.board.BoardUtils;
+import com.igorternyuk.engine.board.FenParser;
 import com.igorternyuk.engine.board.Location;
+import com.igorternyuk.engine.board.MoveList;
+import com.igorternyuk.engine.board.SearchBoard;
 import com.igorternyuk.engine.moves.Move;
 import com.igorternyuk.engine.moves.MoveTransition;
+import com.igorternyuk.engine.perft.PerftPosition;
 import com.igorternyuk.engine.pieces.Piece;
 import com.igorternyuk.engine.pieces.PieceType;
+import com.igorternyuk.engine.player.Player;
 import com.igorternyuk.engine.player.ai.KingSafetyAnalyzer;
 import com.igorternyuk.engine.player.ai.MiniMax;
 import com.igorternyuk.engine.player.ai.MoveSorter;
@@ -16,6 +21,7 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -234,6 +240,73 @@ public class TestBoard {
                         randomBoard.getTile(blackBishops.get(1).getLocation()).isTileLight()));
     }
 
+    @Test
+    public void testPhaseFollowsMaterial() {
+        assertThat(Board.createStandardBoard().getPhase(), is(Board.MAX_PHASE));
+        final Board board = FenParser.createBoard("4k3/8/8/8/8/8/3r4/3RK3 w - - 0 1");
+        final Piece whiteKing = board.getWhitePlayer().getPlayerKing();
+        final int whiteKingValue = whiteKing.getValue();
+        assertThat(board.getPhase(), is(4));
+        final MoveTransition transition = board.getCurrentPlayer()
+                .makeMove(Move.MoveFactory.createMove(board, "d1", "d2"));
+        assertThat(transition.getMoveStatus().isDone(), is(true));
+        assertThat(transition.getTransitedBoard().getPhase(), is(2));
+        //Reaching the endgame leaves the shared king pieces as they are
+        assertThat(whiteKing.getValue(), is(whiteKingValue));
+        assertThat(transition.getTransitedBoard().blendScores(100, 0), is(100 * 2 / Board.MAX_PHASE));
+    }
+
+    @Test
+    public void testLazyMovesAndCastlesOverPerftPositions() {
+        for (final PerftPosition position : PerftPosition.values()) {
+            final Board board = position.createBoard();
+            final Player player = board.getCurrentPlayer();
+            final Player opponent = player.getOpponent();
+            //Check is answered before any move list is generated and has to agree with the generated one
+            assertThat(position.name(), player.isUnderCheck(), is(board.isInCheck(player.getAlliance())));
+            assertThat(position.name(), opponent.isUnderCheck(), is(board.isInCheck(opponent.getAlliance())));
+
+            final Set<Integer> legalMoves = new HashSet<>();
+            final Set<Integer> castles = new HashSet<>();
+            for (final Move move : player.getLegalMoves()) {
+                if (player.makeMove(move).getMoveStatus().isDone()) {
+                    legalMoves.add(SearchBoard.encodeMove(move));
+                    if (move.isCastlingMove()) {
+                        castles.add(SearchBoard.encodeMove(move));
+                    }
+                }
+            }
+            final SearchBoard searchBoard = new SearchBoard(board);
+            final MoveList moves = new MoveList();
+            searchBoard.generateMoves(moves);
+            final Set<Integer> expectedMoves = new HashSet<>();
+            final Set<Integer> expectedCastles = new HashSet<>();
+            for (int i = 0; i < moves.size(); ++i) {
+                if (searchBoard.makeMove(moves.get(i)).isDone()) {
+                    expectedMoves.add(moves.get(i));
+                    if (SearchBoard.decodeMove(board, moves.get(i)).isCastlingMove()) {
+                        expectedCastles.add(moves.get(i));
+                    }
+                    searchBoard.unmakeMove();
+                }
+            }
+            assertEquals(position.name(), expectedMoves, legalMoves);
+            assertEquals(position.name(), expectedCastles, castles);
+            assertThat(position.name(), player.isKingSideCastlingCapable(),
+                    is(player.getLegalMoves().stream().anyMatch(Move::isKingSideCastling)));
+            assertThat(position.name(), player.isQueenSideCastlingCapable(),
+                    is(player.getLegalMoves().stream().anyMatch(Move::isQueenSideCastling)));
+
+            //The memoized lists are handed out again instead of being generated anew
+            assertSame(position.name(), player.getLegalMoves(), player.getLegalMoves());
+            assertSame(position.name(), board.getPieceLegalMoves(opponent.getAlliance()),
+                    player.getOpponentLegalMoves());
+            assertTrue(position.name(), opponent.getLegalMoves().containsAll(player.getOpponentLegalMoves()));
+            assertEquals(position.name(), Iterables.size(board.getAllLegalMoves()),
+                    board.getPieceLegalMoves(player.getAlliance()).size() + player.getOpponentLegalMoves().size());
+        }
+    }
+
     @Test
     public void testFoolsMate() {
         final Board board = Board.createStandardBoard();
@@ -0,0 +1,219 @@
+package com.igorternyuk.tests.engine.board;
+
+import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.board.BoardUtils;
+import com.igorternyuk.engine.board.FenParser;
+import com.igorternyuk.engine.board.MoveList;
+import com.igorternyuk.engine.board.SearchBoard;
+import com.igorternyuk.engine.board.Zobrist;
+import com.igorternyuk.engine.moves.Move;
+import com.igorternyuk.engine.moves.MoveTransition;
+import com.igorternyuk.engine.perft.PerftPosition;
+import com.igorternyuk.engine.pieces.Piece;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.*;
+
+/**
+ * Created by igor on 15.12.18.
+ */
+public class TestSearchBoard {
+
+    @Test
+    public void testLegalMovesMatchBoard() {
+        Board board = Board.createStandardBoard();
+        final String[][] game = {
+                {"e2", "e4"}, {"d7", "d5"}, {"e4", "e5"}, {"c8", "d7"}, {"g1", "f3"},
+                {"b8", "c6"}, {"f1", "b5"}, {"f7", "f5"}
+        };
+        for (final String[] move : game) {
+            assertSameLegalMoves(board);
+            final MoveTransition transition = board.getCurrentPlayer()
+                    .makeMove(Move.MoveFactory.createMove(board, move[0], move[1]));
+            assertThat(transition.getMoveStatus().isDone(), is(true));
+            board = transition.getTransitedBoard();
+        }
+        //En passant on f6 and king's side castling are available now
+        assertSameLegalMoves(board);
+        final SearchBoard searchBoard = new SearchBoard(board);
+        assertTrue(searchBoard.makeMove(SearchBoard.encodeMove(
+                Move.MoveFactory.createMove(board, "e5", "f6"))).isDone());
+        assertNull(searchBoard.getPiece(BoardUtils.getTileIndex(BoardUtils.getLocation("f5"))));
+        searchBoard.unmakeMove();
+        assertTrue(searchBoard.makeMove(SearchBoard.encodeMove(
+                Move.MoveFactory.createMove(board, "e1", "g1"))).isDone());
+        assertThat(searchBoard.getPiece(BoardUtils.getTileIndex(BoardUtils.getLocation("f1"))).getPieceType().isRook(),
+                is(true));
+        searchBoard.unmakeMove();
+        assertSamePieces(board, searchBoard);
+    }
+
+    @Test
+    public void testMakeAndUnmakeRestoreThePosition() {
+        final Board board = Board.createStandardBoard();
+        final SearchBoard searchBoard = new SearchBoard(board);
+        final MoveList moves = new MoveList();
+        searchBoard.generateMoves(moves);
+        assertThat(moves.size(), is(20));
+        for (int i = 0; i < moves.size(); ++i) {
+            assertTrue(searchBoard.makeMove(moves.get(i)).isDone());
+            final Board transitedBoard = searchBoard.toBoard();
+            final Board expectedBoard = SearchBoard.decodeMove(board, moves.get(i)).execute();
+            assertSamePieces(expectedBoard, new SearchBoard(transitedBoard));
+            searchBoard.unmakeMove();
+            assertSamePieces(board, searchBoard);
+        }
+    }
+
+    @Test
+    public void testPackedMoveMatchesMoveObject() {
+        final Random random = new Random(17122018L);
+        Board board = Board.createStandardBoard();
+        for (int ply = 0; ply < 150 && !board.isEndGameScenario(); ++ply) {
+            final List<Move> legalMoves = new ArrayList<>();
+            for (final Move move : board.getCurrentPlayer().getLegalMoves()) {
+                final int packedMove = SearchBoard.encodeMove(move);
+                assertEquals(move, SearchBoard.decodeMove(board, packedMove));
+                assertEquals(move.getMovedPiece().getPieceType(), SearchBoard.getMovedPieceType(packedMove));
+                assertEquals(move.isCapturingMove() ? move.getCapturedPiece().getPieceType() : null,
+                        move.isPawnPromotionMove() ? null : SearchBoard.getCapturedPieceType(packedMove));
+                if (board.getCurrentPlayer().makeMove(move).getMoveStatus().isDone()) {
+                    legalMoves.add(move);
+                }
+            }
+            board = board.getCurrentPlayer().makeMove(legalMoves.get(random.nextInt(legalMoves.size())))
+                    .getTransitedBoard();
+        }
+    }
+
+    @Test
+    public void testTacticalMovesAreCapturesAndPromotions() {
+        for (final PerftPosition position : PerftPosition.values()) {
+            final SearchBoard searchBoard = new SearchBoard(position.createBoard());
+            final MoveList moves = new MoveList();
+            searchBoard.generateMoves(moves);
+            final Set<Integer> expectedMoves = new HashSet<>();
+            for (int i = 0; i < moves.size(); ++i) {
+                if (SearchBoard.isCapturingMove(moves.get(i)) || SearchBoard.isPawnPromotionMove(moves.get(i))) {
+                    expectedMoves.add(moves.get(i));
+                }
+            }
+            searchBoard.generateTacticalMoves(moves);
+            final Set<Integer> tacticalMoves = new HashSet<>();
+            for (int i = 0; i < moves.size(); ++i) {
+                tacticalMoves.add(moves.get(i));
+            }
+            assertEquals(position.toString(), expectedMoves, tacticalMoves);
+        }
+    }
+
+    @Test
+    public void testStaticExchangeEvaluation() {
+        //Undefended pawn
+        assertThat(evaluateExchange("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1", "e1", "e5"), is(100));
+        //Pawn defended by a knight and a bishop, the knight is lost for it
+        assertThat(evaluateExchange("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1", "d3", "e5"),
+                is(-200));
+        //The rook behind the capturing rook recaptures through it
+        assertThat(evaluateExchange("3r2k1/8/8/3p4/8/8/3R4/3R2K1 w - - 0 1", "d2", "d5"), is(100));
+        //Without the second rook the exchange loses the rook for a pawn
+        assertThat(evaluateExchange("3r2k1/8/8/3p4/8/8/3R4/6K1 w - - 0 1", "d2", "d5"), is(-400));
+    }
+
+    @Test
+    public void testNullMovePassesTheTurn() {
+        final Board board = FenParser.createBoard("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3");
+        final Board transitedBoard = Move.MoveFactory.createNullMove(board).execute();
+        assertNull(transitedBoard.getEnPassantPawn());
+        assertThat(transitedBoard.getZobristKey(), is(Zobrist.calculateKey(transitedBoard)));
+        final SearchBoard searchBoard = new SearchBoard(board);
+        searchBoard.makeNullMove();
+        assertSamePieces(transitedBoard, searchBoard);
+        assertThat(searchBoard.getZobristKey(), is(transitedBoard.getZobristKey()));
+        assertThat(searchBoard.getLastMove(), is(SearchBoard.NULL_MOVE));
+        searchBoard.unmakeNullMove();
+        assertSamePieces(board, searchBoard);
+        assertThat(searchBoard.getZobristKey(), is(board.getZobristKey()));
+    }
+
+    @Test
+    public void testScoresAndPhaseFollowMakeAndUnmake() {
+        final List<Board> boards = new ArrayList<>();
+        for (final PerftPosition position : PerftPosition.values()) {
+            boards.add(position.createBoard());
+        }
+        //Promotions with and without a capture, castles and an en passant capture
+        boards.add(FenParser.createBoard("r3k2r/1P4P1/8/8/8/8/1p4p1/R3K2R w KQkq - 0 1"));
+        boards.add(FenParser.createBoard("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3"));
+        for (final Board board : boards) {
+            final SearchBoard searchBoard = new SearchBoard(board);
+            assertSameScores(board, searchBoard);
+            final MoveList moves = new MoveList();
+            searchBoard.generateMoves(moves);
+            for (int i = 0; i < moves.size(); ++i) {
+                if (searchBoard.makeMove(moves.get(i)).isDone()) {
+                    assertSameScores(SearchBoard.decodeMove(board, moves.get(i)).execute(), searchBoard);
+                    searchBoard.unmakeMove();
+                    assertSameScores(board, searchBoard);
+                }
+            }
+        }
+    }
+
+    private static int evaluateExchange(final String fen, final String from, final String to) {
+        final Board board = FenParser.createBoard(fen);
+        return new SearchBoard(board).evaluateExchange(SearchBoard.encodeMove(
+                Move.MoveFactory.createMove(board, from, to)));
+    }
+
+    private static void assertSameLegalMoves(final Board board) {
+        final Set<Integer> expectedMoves = new HashSet<>();
+        for (final Move move : board.getCurrentPlayer().getLegalMoves()) {
+            if (board.getCurrentPlayer().makeMove(move).getMoveStatus().isDone()) {
+                expectedMoves.add(SearchBoard.encodeMove(move));
+            }
+        }
+        final SearchBoard searchBoard = new SearchBoard(board);
+        final MoveList moves = new MoveList();
+        searchBoard.generateMoves(moves);
+        final Set<Integer> legalMoves = new HashSet<>();
+        for (int i = 0; i < moves.size(); ++i) {
+            if (searchBoard.makeMove(moves.get(i)).isDone()) {
+                legalMoves.add(moves.get(i));
+                searchBoard.unmakeMove();
+            }
+        }
+        assertEquals(expectedMoves, legalMoves);
+        assertThat(searchBoard.isInCheck(), is(board.getCurrentPlayer().isUnderCheck()));
+    }
+
+    private static void assertSamePieces(final Board board, final SearchBoard searchBoard) {
+        for (int index = 0; index < BoardUtils.TOTAL_NUMBER_OF_TILES; ++index) {
+            final Piece piece = board.getPiece(index);
+            assertEquals(piece, searchBoard.getPiece(index));
+        }
+        assertEquals(board.getCurrentPlayer().getAlliance(), searchBoard.getSideToMove());
+    }
+
+    private static void assertSameScores(final Board board, final SearchBoard searchBoard) {
+        final Board convertedBoard = searchBoard.toBoard();
+        for (final Alliance alliance : Alliance.values()) {
+            assertEquals(board.getMiddleGameScore(alliance), searchBoard.getMiddleGameScore(alliance));
+            assertEquals(board.getEndGameScore(alliance), searchBoard.getEndGameScore(alliance));
+            assertEquals(board.getEndGameScore(alliance), convertedBoard.getEndGameScore(alliance));
+        }
+        assertEquals(board.getPhase(), searchBoard.getPhase());
+        assertEquals(board.getPhase(), convertedBoard.getPhase());
+        //The converted board takes over the key and the castling rights instead of computing them
+        assertEquals(Zobrist.calculateKey(convertedBoard), convertedBoard.getZobristKey());
+        assertEquals(Zobrist.calculateCastlingRights(convertedBoard), convertedBoard.getCastlingRights());
+    }
+}
@@ -0,0 +1,87 @@
+package com.igorternyuk.tests.engine.board;
+
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.board.SearchBoard;
+import com.igorternyuk.engine.board.Zobrist;
+import com.igorternyuk.engine.moves.Move;
+import com.igorternyuk.engine.moves.MoveTransition;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.*;
+
+/**
+ * Created by igor on 16.12.18.
+ */
+public class TestZobrist {
+
+    @Test
+    public void testTranspositionsHaveEqualKeys() {
+        final Board initialBoard = Board.createStandardBoard();
+        final Board firstOrder = play(initialBoard, "g1", "f3", "b8", "c6", "b1", "c3");
+        final Board secondOrder = play(initialBoard, "b1", "c3", "b8", "c6", "g1", "f3");
+        assertThat(firstOrder.getZobristKey(), is(secondOrder.getZobristKey()));
+        final Board knightsBack = play(initialBoard, "g1", "f3", "g8", "f6", "f3", "g1", "f6", "g8");
+        assertThat(knightsBack.getZobristKey(), is(initialBoard.getZobristKey()));
+        assertNotEquals(play(initialBoard, "g1", "f3").getZobristKey(),
+                play(initialBoard, "g1", "f3", "g8", "f6", "f3", "g1").getZobristKey());
+    }
+
+    @Test
+    public void testKeyTracksCastlingRightsAndEnPassant() {
+        final Board initialBoard = Board.createStandardBoard();
+        final Board kingMoved = play(initialBoard, "e2", "e4", "e7", "e5", "e1", "e2", "e8", "e7",
+                "e2", "e1", "e7", "e8");
+        final Board knightsMoved = play(initialBoard, "e2", "e4", "e7", "e5", "g1", "f3", "g8", "f6",
+                "f3", "g1", "f6", "g8");
+        assertThat(Zobrist.calculateCastlingRights(kingMoved), is(Zobrist.NO_CASTLING_RIGHTS));
+        assertNotEquals(kingMoved.getZobristKey(), knightsMoved.getZobristKey());
+        final Board enPassantAvailable = play(initialBoard, "e2", "e4", "g8", "f6", "e4", "e5", "d7", "d5");
+        final Board enPassantExpired = play(initialBoard, "e2", "e4", "d7", "d5", "e4", "e5", "g8", "f6");
+        assertNotEquals(enPassantAvailable.getZobristKey(), enPassantExpired.getZobristKey());
+        final long enPassantKey = Zobrist.getEnPassantKey(enPassantAvailable.getEnPassantPawn());
+        assertThat(enPassantAvailable.getZobristKey() ^ enPassantKey, is(enPassantExpired.getZobristKey()));
+    }
+
+    @Test
+    public void testIncrementalKeyMatchesFullCalculation() {
+        final Random random = new Random(16122018L);
+        for (int game = 0; game < 20; ++game) {
+            Board board = game % 2 == 0 ? Board.createStandardBoard() : Board.createBoardForChess960();
+            final SearchBoard searchBoard = new SearchBoard(board);
+            for (int ply = 0; ply < 120 && !board.isEndGameScenario(); ++ply) {
+                final List<Board> transitedBoards = new ArrayList<>();
+                for (final Move move : board.getCurrentPlayer().getLegalMoves()) {
+                    final MoveTransition transition = board.getCurrentPlayer().makeMove(move);
+                    if (transition.getMoveStatus().isDone()) {
+                        final Board transitedBoard = transition.getTransitedBoard();
+                        assertThat(transitedBoard.getZobristKey(), is(Zobrist.calculateKey(transitedBoard)));
+                        assertTrue(searchBoard.makeMove(SearchBoard.encodeMove(move)).isDone());
+                        assertThat(searchBoard.getZobristKey(), is(transitedBoard.getZobristKey()));
+                        searchBoard.unmakeMove();
+                        assertThat(searchBoard.getZobristKey(), is(board.getZobristKey()));
+                        transitedBoards.add(transitedBoard);
+                    }
+                }
+                final Board nextBoard = transitedBoards.get(random.nextInt(transitedBoards.size()));
+                searchBoard.makeMove(SearchBoard.encodeMove(nextBoard.getTransitionMove()));
+                board = nextBoard;
+            }
+        }
+    }
+
+    private static Board play(final Board initialBoard, final String... squares) {
+        Board board = initialBoard;
+        for (int i = 0; i < squares.length; i += 2) {
+            final MoveTransition transition = board.getCurrentPlayer()
+                    .makeMove(Move.MoveFactory.createMove(board, squares[i], squares[i + 1]));
+            assertThat(transition.getMoveStatus().isDone(), is(true));
+            board = transition.getTransitedBoard();
+        }
+        return board;
+    }
+}
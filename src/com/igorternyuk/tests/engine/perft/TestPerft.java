@@ -0,0 +1,48 @@
+package com.igorternyuk.tests.engine.perft;
+
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.perft.Perft;
+import com.igorternyuk.engine.perft.PerftPosition;
+import com.igorternyuk.engine.perft.PerftResult;
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Created by igor on 17.12.18.
+ */
+public class TestPerft {
+    private static final int MAX_TEST_DEPTH = 3;
+
+    @Test
+    public void testReferencePositions() {
+        final Perft perft = new Perft();
+        for (final PerftPosition position : PerftPosition.values()) {
+            final Board board = position.createBoard();
+            for (int depth = 1; depth <= Math.min(MAX_TEST_DEPTH, position.getMaxDepth()); ++depth) {
+                assertThat(position + " depth " + depth, perft.perft(board, depth).getNodes(),
+                        is(position.getExpectedNodes(depth)));
+            }
+        }
+    }
+
+    @Test
+    public void testParallelHashedDivide() {
+        final Perft perft = new Perft(4, 16);
+        final PerftPosition position = PerftPosition.KIWIPETE;
+        final PerftResult result = perft.divide(position.createBoard(), MAX_TEST_DEPTH);
+        perft.shutdown();
+        assertThat(result.getNodes(), is(position.getExpectedNodes(MAX_TEST_DEPTH)));
+        assertThat(result.getNodesPerMove().size(), is((int) position.getExpectedNodes(1)));
+        assertThat(result.getNodesPerMove().values().stream().mapToLong(Long::longValue).sum(),
+                is(result.getNodes()));
+        assertThat(result.getNodesPerMove().get("e1g1"), is(2059L));
+    }
+
+    @Test
+    public void testStandardFenMatchesStandardBoard() {
+        assertThat(PerftPosition.INITIAL.createBoard().getZobristKey(),
+                is(Board.createStandardBoard().getZobristKey()));
+    }
+}
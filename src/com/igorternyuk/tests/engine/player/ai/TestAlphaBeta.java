@@ -0,0 +1,124 @@
+package com.igorternyuk.tests.engine.player.ai;
+
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.board.FenParser;
+import com.igorternyuk.engine.board.SearchBoard;
+import com.igorternyuk.engine.moves.Move;
+import com.igorternyuk.engine.perft.PerftPosition;
+import com.igorternyuk.engine.player.ai.AlphaBeta;
+import com.igorternyuk.engine.player.ai.LazySmp;
+import com.igorternyuk.engine.player.ai.SearchLimits;
+import com.igorternyuk.engine.player.ai.TranspositionTable;
+import com.igorternyuk.engine.player.ai.YoungBrothersWait;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created by igor on 18.12.18.
+ */
+public class TestAlphaBeta {
+    private static final long MOVE_TIME = 500;
+    //The abort check runs every few hundred nodes and the result still has to be printed
+    private static final long ALLOWED_OVERRUN = 1000;
+    private static final long HELPER_TIME_LIMIT = 20000;
+    private static final int LAZY_SMP_RUNS = 20;
+
+    @Test
+    public void testFindsMateInOne() {
+        final Board board = FenParser.createBoard("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+        final AlphaBeta alphaBeta = new AlphaBeta(2, new TranspositionTable());
+        final Move bestMove = alphaBeta.execute(board);
+        assertThat(SearchBoard.toString(SearchBoard.encodeMove(bestMove)), is("a1a8"));
+        assertThat(alphaBeta.getCompletedDepth(), is(2));
+        assertThat(alphaBeta.getPrincipalVariation().get(0), is(SearchBoard.encodeMove(bestMove)));
+    }
+
+    @Test
+    public void testLazySmpHelpersShareTheTable() {
+        final Board board = FenParser.createBoard("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+        final LazySmp lazySmp = new LazySmp(SearchLimits.fixedDepth(3), new TranspositionTable(), 3);
+        final Move bestMove = lazySmp.execute(board);
+        assertThat(SearchBoard.toString(SearchBoard.encodeMove(bestMove)), is("a1a8"));
+        assertThat(lazySmp.getNumberOfThreads(), is(3));
+        assertTrue(lazySmp.getCompletedDepth(lazySmp.getBestThread()) >= 1);
+        for (int thread = 0; thread < lazySmp.getNumberOfThreads(); ++thread) {
+            assertTrue(lazySmp.getNodesSearched(thread) > 0);
+        }
+    }
+
+    @Test
+    public void testLazySmpReturnsWithTheFirstSearchToFinish() {
+        final Board board = PerftPosition.KIWIPETE.createBoard();
+        //Unless the main search stops them, the helpers run until their hard time limit
+        final SearchLimits helperSearchLimits = new SearchLimits.Builder()
+                .setHardTimeLimit(HELPER_TIME_LIMIT)
+                .build();
+        //Once warmed up, the main search is done before a helper thread has even started
+        for (int i = 0; i < LAZY_SMP_RUNS; ++i) {
+            final LazySmp lazySmp = new LazySmp(SearchLimits.fixedDepth(1), helperSearchLimits,
+                    new TranspositionTable(), 4);
+            final long startTime = System.nanoTime();
+            final Move bestMove = lazySmp.execute(board);
+            final long elapsedTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            assertTrue("Search took " + elapsedTime + " ms", elapsedTime < ALLOWED_OVERRUN);
+            assertTrue(board.getCurrentPlayer().getLegalMoves().contains(bestMove));
+            assertThat(lazySmp.getCompletedDepth(0), is(1));
+        }
+    }
+
+    @Test
+    public void testYoungBrothersWaitFindsMateInOne() {
+        final Board board = FenParser.createBoard("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+        final YoungBrothersWait youngBrothersWait = new YoungBrothersWait(SearchLimits.fixedDepth(3),
+                new TranspositionTable(), 2);
+        final Move bestMove = youngBrothersWait.execute(board);
+        youngBrothersWait.shutdown();
+        assertThat(SearchBoard.toString(SearchBoard.encodeMove(bestMove)), is("a1a8"));
+        assertThat(youngBrothersWait.getCompletedDepth(), is(3));
+    }
+
+    @Test
+    public void testYoungBrothersWaitPlaysALegalMoveWhenAbortedAtOnce() {
+        final Board board = PerftPosition.KIWIPETE.createBoard();
+        //Aborted before the first iteration has searched any root move
+        final SearchLimits searchLimits = new SearchLimits.Builder().setHardTimeLimit(0).build();
+        final YoungBrothersWait youngBrothersWait = new YoungBrothersWait(searchLimits, new TranspositionTable(), 2);
+        final Move bestMove = youngBrothersWait.execute(board);
+        youngBrothersWait.shutdown();
+        assertThat(youngBrothersWait.getCompletedDepth(), is(0));
+        assertTrue(board.getCurrentPlayer().getLegalMoves().contains(bestMove));
+    }
+
+    @Test
+    public void testStopEndsOnlyTheSearchInProgress() {
+        final Board board = PerftPosition.KIWIPETE.createBoard();
+        final AlphaBeta alphaBeta = new AlphaBeta(4, new TranspositionTable());
+        alphaBeta.stop();
+        alphaBeta.execute(board);
+        assertThat(alphaBeta.getCompletedDepth(), is(4));
+        final YoungBrothersWait youngBrothersWait = new YoungBrothersWait(SearchLimits.fixedDepth(4),
+                new TranspositionTable(), 2);
+        youngBrothersWait.stop();
+        youngBrothersWait.execute(board);
+        youngBrothersWait.shutdown();
+        assertThat(youngBrothersWait.getCompletedDepth(), is(4));
+    }
+
+    @Test
+    public void testAnswersWithinHardTimeLimit() {
+        final Board board = PerftPosition.KIWIPETE.createBoard();
+        final AlphaBeta alphaBeta = new AlphaBeta(SearchLimits.moveTime(SearchLimits.MAX_SEARCH_DEPTH, MOVE_TIME),
+                new TranspositionTable());
+        final long startTime = System.nanoTime();
+        final Move bestMove = alphaBeta.execute(board);
+        final long elapsedTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        assertTrue("Search took " + elapsedTime + " ms", elapsedTime < MOVE_TIME + ALLOWED_OVERRUN);
+        assertTrue(board.getCurrentPlayer().getLegalMoves().contains(bestMove));
+        assertTrue(alphaBeta.getCompletedDepth() >= 1);
+    }
+}
@@ -0,0 +1,68 @@
+package com.igorternyuk.tests.engine.player.ai;
+
+import com.igorternyuk.engine.board.MoveList;
+import com.igorternyuk.engine.board.SearchBoard;
+import com.igorternyuk.engine.perft.PerftPosition;
+import com.igorternyuk.engine.player.ai.MovePicker;
+import com.igorternyuk.engine.player.ai.SearchHistory;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created by igor on 18.12.18.
+ */
+public class TestMovePicker {
+
+    @Test
+    public void testPicksEveryMoveOnce() {
+        for (final PerftPosition position : PerftPosition.values()) {
+            final SearchBoard board = new SearchBoard(position.createBoard());
+            final MoveList moves = new MoveList();
+            board.generateMoves(moves);
+            final Set<Integer> expectedMoves = new HashSet<>();
+            for (int i = 0; i < moves.size(); ++i) {
+                expectedMoves.add(moves.get(i));
+            }
+            //The last two quiet moves become the killers and the last move of all is the hash move
+            final SearchHistory searchHistory = new SearchHistory();
+            final MoveList failedQuietMoves = new MoveList();
+            for (int i = 0; i < moves.size(); ++i) {
+                if (SearchBoard.isQuietMove(moves.get(i))) {
+                    searchHistory.update(board, moves.get(i), 1, failedQuietMoves);
+                }
+            }
+            final MovePicker movePicker = new MovePicker();
+            movePicker.init(board, SearchBoard.getMoveKey(moves.get(moves.size() - 1)), searchHistory);
+            final Set<Integer> pickedMoves = new HashSet<>();
+            for (int move = movePicker.next(); move != SearchBoard.NULL_MOVE; move = movePicker.next()) {
+                assertTrue(position + " " + SearchBoard.toString(move), pickedMoves.add(move));
+            }
+            assertEquals(position.toString(), expectedMoves, pickedMoves);
+        }
+    }
+
+    @Test
+    public void testHashMoveComesFirstAndLosingCapturesLast() {
+        final SearchBoard board = new SearchBoard(PerftPosition.KIWIPETE.createBoard());
+        final MoveList moves = new MoveList();
+        board.generateMoves(moves);
+        final int hashMove = moves.get(moves.size() / 2);
+        final MovePicker movePicker = new MovePicker();
+        movePicker.init(board, hashMove, new SearchHistory());
+        assertThat(movePicker.next(), is(hashMove));
+        boolean hasLosingCaptureBeenPicked = false;
+        for (int move = movePicker.next(); move != SearchBoard.NULL_MOVE; move = movePicker.next()) {
+            final boolean isLosingCapture = SearchBoard.isCapturingMove(move) && board.evaluateExchange(move) < 0;
+            assertTrue(SearchBoard.toString(move), isLosingCapture || !hasLosingCaptureBeenPicked);
+            hasLosingCaptureBeenPicked |= isLosingCapture;
+        }
+        assertTrue(hasLosingCaptureBeenPicked);
+    }
+}
@@ -0,0 +1,105 @@
+package com.igorternyuk.tests.engine.player.ai;
+
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.board.FenParser;
+import com.igorternyuk.engine.board.MoveList;
+import com.igorternyuk.engine.board.SearchBoard;
+import com.igorternyuk.engine.moves.Move;
+import com.igorternyuk.engine.moves.MoveTransition;
+import com.igorternyuk.engine.perft.PerftPosition;
+import com.igorternyuk.engine.player.ai.BoardEvaluator;
+import com.igorternyuk.engine.player.ai.SinglePassBoardEvaluator;
+import com.igorternyuk.engine.player.ai.StandardBoardEvaluator;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Created by igor on 18.12.18.
+ */
+public class TestSinglePassBoardEvaluator {
+    private static final int PLAYOUTS_PER_POSITION = 4;
+    private static final int PLAYOUT_LENGTH = 60;
+    private static final int[] DEPTHS = {0, 3};
+    //Mates, checks, en passant and promotions the random playouts rarely reach
+    private static final String[] POSITIONS = {
+            "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3",
+            "6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1",
+            "R5k1/5ppp/8/8/8/8/5PPP/6K1 b - - 1 1",
+            "r1bqkb1r/pppp1Qpp/2n2n2/4p3/2B1P3/8/PPPP1PPP/RNB1K1NR b KQkq - 0 4",
+            "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+            "r3k2r/1P4P1/8/8/8/8/1p4p1/R3K2R w KQkq - 0 1",
+            "4k3/8/8/8/8/8/8/R3K2R b KQ - 0 1"
+    };
+
+    @Test
+    public void testScoresLikeStandardBoardEvaluator() {
+        final Random random = new Random(1812);
+        final List<Board> corpus = new ArrayList<>();
+        for (final String fen : POSITIONS) {
+            corpus.add(FenParser.createBoard(fen));
+        }
+        for (final PerftPosition position : PerftPosition.values()) {
+            for (int i = 0; i < PLAYOUTS_PER_POSITION; ++i) {
+                addPlayout(position.createBoard(), random, corpus);
+            }
+        }
+        final BoardEvaluator standardBoardEvaluator = new StandardBoardEvaluator();
+        final BoardEvaluator singlePassBoardEvaluator = new SinglePassBoardEvaluator();
+        for (final Board board : corpus) {
+            for (final int depth : DEPTHS) {
+                assertEquals(board.toString() + " depth " + depth, standardBoardEvaluator.evaluate(board, depth),
+                        singlePassBoardEvaluator.evaluate(board, depth));
+            }
+        }
+    }
+
+    @Test
+    public void testScoresSearchBoardLikeConvertedBoard() {
+        final SinglePassBoardEvaluator evaluator = new SinglePassBoardEvaluator();
+        final List<Board> boards = new ArrayList<>();
+        for (final String fen : POSITIONS) {
+            boards.add(FenParser.createBoard(fen));
+        }
+        for (final PerftPosition position : PerftPosition.values()) {
+            boards.add(position.createBoard());
+        }
+        final MoveList moves = new MoveList();
+        for (final Board board : boards) {
+            final SearchBoard searchBoard = new SearchBoard(board);
+            searchBoard.generateMoves(moves);
+            for (int i = 0; i < moves.size(); ++i) {
+                if (searchBoard.makeMove(moves.get(i)).isDone()) {
+                    for (final int depth : DEPTHS) {
+                        assertEquals(SearchBoard.toString(moves.get(i)),
+                                evaluator.evaluate(searchBoard.toBoard(), depth), evaluator.evaluate(searchBoard, depth));
+                    }
+                    searchBoard.unmakeMove();
+                }
+            }
+        }
+    }
+
+    //Plays random legal moves from the board and adds every position on the way
+    private static void addPlayout(Board board, final Random random, final List<Board> corpus) {
+        corpus.add(board);
+        for (int ply = 0; ply < PLAYOUT_LENGTH; ++ply) {
+            final List<Board> successors = new ArrayList<>();
+            for (final Move move : board.getCurrentPlayer().getLegalMoves()) {
+                final MoveTransition transition = board.getCurrentPlayer().makeMove(move);
+                if (transition.getMoveStatus().isDone()) {
+                    successors.add(transition.getTransitedBoard());
+                }
+            }
+            if (successors.isEmpty()) {
+                return;
+            }
+            board = successors.get(random.nextInt(successors.size()));
+            corpus.add(board);
+        }
+    }
+}